@@ -34,6 +34,7 @@ import android.os.Build;
 import android.os.Environment;
 import android.provider.DocumentsContract;
 import android.provider.MediaStore;
+import android.provider.OpenableColumns;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.android.AndroidApplication;
@@ -48,7 +49,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
+import games.spooky.gdx.nativefilechooser.ChooserHandle;
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.ChooserPools;
+import games.spooky.gdx.nativefilechooser.NativeCancellableChooser;
 import games.spooky.gdx.nativefilechooser.NativeChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeChooserConfiguration;
 import games.spooky.gdx.nativefilechooser.NativeFileChooser;
@@ -59,6 +65,11 @@ import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
 import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeSelectionCallback;
+import games.spooky.gdx.nativefilechooser.NativeSelectionChooser;
+import games.spooky.gdx.nativefilechooser.SelectionEntry;
+import games.spooky.gdx.nativefilechooser.SelectionLimitException;
+import games.spooky.gdx.nativefilechooser.SelectionLimits;
 
 import static android.content.Intent.normalizeMimeType;
 
@@ -73,6 +84,11 @@ import static android.content.Intent.normalizeMimeType;
  * property of given {@link NativeFileChooserConfiguration} has no effect with
  * this implementation.
  * 
+ * <p>
+ * Cancelling a call through its {@link ChooserHandle} closes the picker
+ * activity, or interrupts the copy of chosen content and deletes what was
+ * already copied.
+ * 
  * @see #chooseFile(NativeFileChooserConfiguration, NativeFileChooserCallback)
  * 
  * @see NativeFileChooser
@@ -82,7 +98,7 @@ import static android.content.Intent.normalizeMimeType;
  * @author thorthur
  * 
  */
-public class AndroidFileChooser implements NativeFileChooser {
+public class AndroidFileChooser implements NativeCancellableChooser, NativeSelectionChooser {
 
 	private final static int IntentCode = 19161107;
 
@@ -108,16 +124,28 @@ public class AndroidFileChooser implements NativeFileChooser {
 	 * NativeFileChooserCallback)
 	 */
 	@Override
-	public void chooseFile(final NativeFileChooserConfiguration configuration, final NativeFileChooserCallback callback) {
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		chooseFile(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFile(NativeFileChooserConfiguration,
+	 * NativeFileChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFile(final NativeFileChooserConfiguration configuration, final NativeFileChooserCallback callback, final ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		try {
 
 			Intent intent = createFileSelectionIntent(configuration);
 
-			registerCallbackListener(callback, new IntentConsumer() {
+			registerCallbackListener(configuration, callback, handle, new IntentConsumer() {
 				@Override
 				public void onData(Intent data) throws IOException {
 					FileHandle file;
@@ -125,8 +153,11 @@ public class AndroidFileChooser implements NativeFileChooser {
 					// Get the Uri of the selected file
 					Uri uri = data.getData();
 
-					// Try to build file from it
-					file = fileHandleFromUri(uri);
+					// Check limits before copying, then try to build file from it
+					long[] sizes = checkKnownSizes(configuration, uri);
+					file = fileHandleFromUri(uri, configuration.metrics, handle);
+					if (sizes != null)
+						checkCopies(configuration, sizes, Array.with(file));
 
 					// Call success callback
 					callback.onFileChosen(file);
@@ -147,28 +178,61 @@ public class AndroidFileChooser implements NativeFileChooser {
 	 * NativeFilesChooserCallback)
 	 */
 	@Override
-	public void chooseFiles(final NativeFileChooserConfiguration configuration, final NativeFilesChooserCallback callback) {
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		chooseFiles(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFiles(NativeFileChooserConfiguration,
+	 * NativeFilesChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFiles(final NativeFileChooserConfiguration configuration, final NativeFilesChooserCallback callback, final ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		try {
 
 			Intent intent = createFileSelectionIntent(configuration);
 			intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
 
-			registerCallbackListener(callback, new IntentConsumer() {
+			registerCallbackListener(configuration, callback, handle, new IntentConsumer() {
 				@Override
 				public void onData(Intent data) throws IOException {
-					Array<FileHandle> files = new Array<>();
+					Uri[] uris = uris(data);
 
-					ClipData clipData = data.getClipData();
-					if (clipData == null) {
-						files.add(fileHandleFromUri(data.getData()));
-					} else {
-						for (int i = 0, n = clipData.getItemCount(); i < n; i++) {
-							files.add(fileHandleFromUri(clipData.getItemAt(i).getUri()));
+					// Refuse too large selections before copying anything
+					long[] sizes = checkKnownSizes(configuration, uris);
+					SelectionLimits limits = sizes == null ? null : new SelectionLimits(configuration);
+
+					Array<FileHandle> files = ChooserPools.obtainArray();
+
+					try {
+						for (int i = 0; i < uris.length; i++) {
+							FileHandle file = fileHandleFromUri(uris[i], configuration.metrics, handle);
+							if (limits != null) {
+								try {
+									// Sizes unknown to the provider are only known now
+									limits.add(file, sizes[i] >= 0L ? sizes[i] : file.length());
+								} catch (SelectionLimitException ex) {
+									// Copies so far are handed over with the exception
+									discardCopy(file.file());
+									ChooserPools.free(files);
+									throw ex;
+								}
+							}
+							files.add(file);
 						}
+					} catch (CancellationException ex) {
+						// Do not leave copies of a selection nobody wants
+						for (FileHandle file : files)
+							discardCopy(file.file());
+						ChooserPools.free(files);
+						throw ex;
 					}
 
 					callback.onFilesChosen(files);
@@ -181,6 +245,60 @@ public class AndroidFileChooser implements NativeFileChooser {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeSelectionChooser#chooseEntries(NativeFileChooserConfiguration,
+	 * NativeSelectionCallback)
+	 */
+	@Override
+	public void chooseEntries(final NativeFileChooserConfiguration configuration, final NativeSelectionCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		try {
+
+			Intent intent = createFileSelectionIntent(configuration);
+			intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+
+			registerCallbackListener(configuration, callback, new ChooserHandle(), new IntentConsumer() {
+				@Override
+				public void onData(Intent data) throws IOException {
+					Uri[] uris = uris(data);
+
+					// Refuse too large selections before copying anything
+					long[] sizes = checkKnownSizes(configuration, uris);
+					SelectionLimits limits = sizes == null ? null : new SelectionLimits(configuration);
+
+					// Content is only copied on first file() call, unless its size is needed now
+					Array<SelectionEntry> entries = ChooserPools.obtainArray();
+					for (int i = 0; i < uris.length; i++) {
+						boolean measure = limits != null && limits.sizeLimited() && sizes[i] < 0L;
+						SelectionEntry entry = entryFromUri(uris[i], configuration.metrics, measure);
+						if (limits != null) {
+							try {
+								limits.add(measure ? entry.file() : null, measure ? entry.length() : sizes[i]);
+							} catch (SelectionLimitException ex) {
+								if (measure)
+									discardCopy(entry.file().file());
+								ChooserPools.free(entries);
+								throw ex;
+							}
+						}
+						entries.add(entry);
+					}
+
+					callback.onEntriesChosen(entries);
+				}
+			});
+
+			startSelection(intent, configuration);
+		} catch (Exception ex) {
+			callback.onError(ex);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -188,16 +306,28 @@ public class AndroidFileChooser implements NativeFileChooser {
 	 * NativeFolderChooserCallback)
 	 */
 	@Override
-	public void chooseFolder(final NativeFolderChooserConfiguration configuration, final NativeFolderChooserCallback callback) {
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		chooseFolder(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFolder(NativeFolderChooserConfiguration,
+	 * NativeFolderChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFolder(final NativeFolderChooserConfiguration configuration, final NativeFolderChooserCallback callback, final ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		try {
 
 			Intent intent = createFolderSelectionIntent(configuration);
 
-			registerCallbackListener(callback, new IntentConsumer() {
+			registerCallbackListener(configuration, callback, handle, new IntentConsumer() {
 				@Override
 				public void onData(Intent data) throws IOException {
 					// Get the Uri of the selected file
@@ -218,6 +348,23 @@ public class AndroidFileChooser implements NativeFileChooser {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeFileChooser#warmUp()
+	 */
+	@Override
+	public void warmUp() {
+		NativeFileChooserUtils.warmUpInBackground("AndroidFileChooser", new Runnable() {
+			@Override
+			public void run() {
+				// Disk access otherwise done on the UI thread when the first result comes back
+				app.getCacheDir();
+				app.getContentResolver();
+			}
+		});
+	}
+
 	private Intent createFolderSelectionIntent(final NativeFolderChooserConfiguration configuration) {
 		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
 			throw new IllegalStateException("Choosing folder is not supported on Android SDK < 21");
@@ -295,7 +442,26 @@ public class AndroidFileChooser implements NativeFileChooser {
 		return intent;
 	}
 
-	private void registerCallbackListener(final NativeChooserCallback callback, final IntentConsumer onData) {
+	private void registerCallbackListener(NativeChooserConfiguration configuration, final NativeChooserCallback callback,
+			final ChooserHandle handle, final IntentConsumer onData) {
+
+		// The activity cannot tell when it shows up, only measure time until result
+		final ChooserMetrics metrics = configuration.metrics;
+		final long start = metrics == null ? 0L : System.nanoTime();
+
+		// Close the picker if the call is given up on, its result comes back as a cancellation
+		final Runnable closer = new Runnable() {
+			@Override
+			public void run() {
+				app.runOnUiThread(new Runnable() {
+					@Override
+					public void run() {
+						app.finishActivity(IntentCode);
+					}
+				});
+			}
+		};
+		handle.addCancellationListener(closer);
 
 		// Register a listener to get a callback
 		// It will deregister by itself on first call
@@ -307,6 +473,11 @@ public class AndroidFileChooser implements NativeFileChooser {
 				if (requestCode != IntentCode)
 					return;
 
+				if (metrics != null)
+					metrics.onDialogClosed(System.nanoTime() - start);
+
+				handle.removeCancellationListener(closer);
+
 				try {
 
 					switch (resultCode) {
@@ -322,6 +493,8 @@ public class AndroidFileChooser implements NativeFileChooser {
 									onData.onData(data);
 								} catch (IOException ex) {
 									callback.onError(ex);
+								} catch (CancellationException ex) {
+									// Copy interrupted, callback gets notified by the handle
 								}
 							}
 							break;
@@ -373,19 +546,124 @@ public class AndroidFileChooser implements NativeFileChooser {
         return uri.getPath();
     }
 
-	private FileHandle fileHandleFromUri(Uri uri) throws IOException {
+	private static Uri[] uris(Intent data) {
+		ClipData clipData = data.getClipData();
+		if (clipData == null)
+			return new Uri[] { data.getData() };
+		Uri[] uris = new Uri[clipData.getItemCount()];
+		for (int i = 0; i < uris.length; i++)
+			uris[i] = clipData.getItemAt(i).getUri();
+		return uris;
+	}
+
+	/*
+	 * Check selection limits of given configuration against provider metadata,
+	 * before copying anything. Return sizes known to the provider, or null if
+	 * nothing is limited.
+	 */
+	private long[] checkKnownSizes(NativeFileChooserConfiguration configuration, Uri... uris) throws IOException {
+		if (!SelectionLimits.isLimited(configuration))
+			return null;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.checkCount(uris.length);
+		long[] sizes = new long[uris.length];
+		for (int i = 0; i < uris.length; i++) {
+			sizes[i] = limits.sizeLimited() ? sizeFromUri(uris[i]) : SelectionEntry.UNKNOWN;
+			limits.add(null, sizes[i]);
+		}
+		return sizes;
+	}
+
+	/*
+	 * Check sizes unknown to the provider once copies are made.
+	 */
+	private void checkCopies(NativeFileChooserConfiguration configuration, long[] sizes, Array<FileHandle> copies) throws IOException {
+		SelectionLimits limits = new SelectionLimits(configuration);
+		for (int i = 0; i < copies.size; i++) {
+			FileHandle copy = copies.get(i);
+			try {
+				limits.add(copy, sizes[i] >= 0L ? sizes[i] : copy.length());
+			} catch (SelectionLimitException ex) {
+				discardCopy(copy.file());
+				throw ex;
+			}
+		}
+	}
+
+	private long sizeFromUri(Uri uri) {
+		if (uri == null)
+			return SelectionEntry.UNKNOWN;
+		String[] projection = { OpenableColumns.SIZE };
+		Cursor metaCursor = app.getContentResolver().query(uri, projection, null, null, null);
+		if (metaCursor != null) {
+			try {
+				if (metaCursor.moveToFirst() && !metaCursor.isNull(0))
+					return metaCursor.getLong(0);
+			} finally {
+				metaCursor.close();
+			}
+		}
+		return SelectionEntry.UNKNOWN;
+	}
+
+	private FileHandle fileHandleFromUri(Uri uri, ChooserMetrics metrics, ChooserHandle handle) throws IOException {
+		if (uri == null)
+			throw new IOException("No uri data received from intent");
+		return fileHandleFromUri(uri, null, metrics, handle);
+	}
+
+	private SelectionEntry entryFromUri(final Uri uri, final ChooserMetrics metrics, boolean copy) throws IOException {
 		if (uri == null)
 			throw new IOException("No uri data received from intent");
 
+		// Provider metadata comes for free with the query we need anyway
+		String name = null;
+		long size = SelectionEntry.UNKNOWN;
+		long lastModified = SelectionEntry.UNKNOWN;
+		Cursor metaCursor = app.getContentResolver().query(uri, null, null, null, null);
+		if (metaCursor != null) {
+			try {
+				if (metaCursor.moveToFirst()) {
+					int column = metaCursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+					if (column >= 0)
+						name = metaCursor.getString(column);
+					column = metaCursor.getColumnIndex(OpenableColumns.SIZE);
+					if (column >= 0 && !metaCursor.isNull(column))
+						size = metaCursor.getLong(column);
+					column = metaCursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+					if (column >= 0 && !metaCursor.isNull(column))
+						lastModified = metaCursor.getLong(column);
+				}
+			} finally {
+				metaCursor.close();
+			}
+		}
+
+		String mimeType = app.getContentResolver().getType(uri);
+		if (copy)
+			return new SelectionEntry(fileHandleFromUri(uri, name, metrics, null), name, size, lastModified, mimeType);
+
+		final String displayName = name;
+		return new SelectionEntry(uri.toString(), name, size, lastModified, mimeType, new SelectionEntry.Loader() {
+			@Override
+			public FileHandle load(SelectionEntry entry) throws IOException {
+				return fileHandleFromUri(uri, displayName, metrics, null);
+			}
+		});
+	}
+
+	private FileHandle fileHandleFromUri(Uri uri, String name, ChooserMetrics metrics, ChooserHandle handle) throws IOException {
 		File f = new File(uri.toString());
 		if (!f.exists()) {
 
 			// Copy stream to temp file and return that file
 			File outputDir = app.getCacheDir();
-			f = new File(outputDir, "~" + nameFromUri(uri));
+			f = new File(outputDir, "~" + (name == null ? nameFromUri(uri) : name));
 
 			InputStream input = null;
 			OutputStream output = null;
+			Runnable interrupter = null;
+			boolean copied = false;
 
 			try {
 				input = app.getContentResolver().openInputStream(uri);
@@ -393,18 +671,51 @@ public class AndroidFileChooser implements NativeFileChooser {
 					throw new IOException("Unable to open input stream");
 				output = new FileOutputStream(f);
 
-				copyStream(input, output);
+				if (handle != null) {
+					// Unblock reads from slow providers
+					final InputStream opened = input;
+					interrupter = new Runnable() {
+						@Override
+						public void run() {
+							try {
+								opened.close();
+							} catch (IOException ignored) {
+							}
+						}
+					};
+					handle.addCancellationListener(interrupter);
+				}
+
+				long start = metrics == null ? 0L : System.nanoTime();
+				long bytes = NativeFileChooserUtils.copyStream(input, output, handle);
+				if (metrics != null)
+					metrics.onStreamCopied(bytes, System.nanoTime() - start);
+				copied = true;
+			} catch (IOException ex) {
+				if (handle != null && handle.isCancelled())
+					throw new CancellationException();
+				throw ex;
 			} finally {
+				if (interrupter != null)
+					handle.removeCancellationListener(interrupter);
 				if (input != null)
 					input.close();
 				if (output != null)
 					output.close();
+				if (!copied)
+					discardCopy(f);
 			}
 		}
 
 		return new FileHandle(f);
 	}
 
+	private void discardCopy(File file) {
+		// Only delete our own copies, never chosen files themselves
+		if (file.getName().startsWith("~") && app.getCacheDir().equals(file.getParentFile()))
+			file.delete();
+	}
+
 	private String nameFromUri(Uri uri) {
 		String[] projection = { MediaStore.MediaColumns.DISPLAY_NAME };
 		Cursor metaCursor = app.getContentResolver().query(uri, projection, null, null, null);
@@ -420,12 +731,6 @@ public class AndroidFileChooser implements NativeFileChooser {
 		return uri.getLastPathSegment();
 	}
 
-	private static void copyStream(InputStream in, OutputStream out) throws IOException {
-		byte[] buffer = new byte[2048];
-		for (int n = in.read(buffer); n >= 0; n = in.read(buffer))
-			out.write(buffer, 0, n);
-	}
-
 	private interface IntentConsumer {
 		void onData(Intent data) throws IOException;
 	}
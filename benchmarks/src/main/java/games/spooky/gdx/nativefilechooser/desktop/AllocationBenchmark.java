@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import games.spooky.gdx.nativefilechooser.ChooserPools;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-call allocations of the pooled result arrays and cached filters of a
+ * chooser call, in steady state. The rest of a call (dialog, handle, file
+ * handles) is not measured. Run with {@code -prof gc}:
+ * {@code gc.alloc.rate.norm} should be zero for everything but the
+ * {@code newArray} baseline. The unit tests
+ * {@code AllocationTest} (core) and {@code FilterCacheTest} (desktop) enforce
+ * the same budget on every build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+	private static final int SELECTED = 16;
+
+	NativeFileChooserConfiguration configuration;
+	FilterCache filterCache;
+	FileHandle[] handles;
+
+	@Setup
+	public void setup() {
+		configuration = new NativeFileChooserConfiguration();
+		configuration.mimeFilter = "audio/*";
+		configuration.nameFilter = new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".ogg");
+			}
+		};
+		filterCache = new FilterCache();
+
+		handles = new FileHandle[SELECTED];
+		for (int i = 0; i < SELECTED; i++)
+			handles[i] = new FileHandle("file" + i + ".ogg");
+	}
+
+	@Benchmark
+	public Pattern mimePattern() {
+		return NativeFileChooserUtils.mimePattern(configuration.mimeFilter);
+	}
+
+	@Benchmark
+	public FilenameFilter filenameFilter() {
+		return filterCache.get(configuration, null);
+	}
+
+	@Benchmark
+	public int pooledArray() {
+		Array<FileHandle> files = ChooserPools.obtainArray();
+		for (FileHandle handle : handles)
+			files.add(handle);
+		int size = files.size;
+		ChooserPools.free(files);
+		return size;
+	}
+
+	@Benchmark
+	public int newArray() {
+		Array<FileHandle> files = new Array<>();
+		for (FileHandle handle : handles)
+			files.add(handle);
+		return files.size;
+	}
+
+}
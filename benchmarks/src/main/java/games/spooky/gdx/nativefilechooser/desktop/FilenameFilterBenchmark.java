@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter built by {@link DesktopFileChooser#createFilenameFilter(NativeFileChooserConfiguration, DirectoryIndex)}
+ * run over every file of a synthetic directory, the way a dialog does when
+ * listing it. With {@code indexed}, MIME types come from a warm
+ * {@link DirectoryIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilenameFilterBenchmark {
+
+	private static final String[] extensions = { "ogg", "mp3", "wav", "png", "txt", "json" };
+
+	@Param({ "1000", "10000", "100000" })
+	int files;
+
+	@Param({ "false", "true" })
+	boolean mime;
+
+	@Param({ "false", "true" })
+	boolean indexed;
+
+	File directory;
+	String[] names;
+	File indexFile;
+	DirectoryIndex index;
+	FilenameFilter filter;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("gdx-nativefilechooser-bench").toFile();
+		names = new String[files];
+		for (int i = 0; i < files; i++) {
+			names[i] = "file" + i + "." + extensions[i % extensions.length];
+			if (!new File(directory, names[i]).createNewFile())
+				throw new IOException("Unable to create " + names[i]);
+		}
+
+		NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+		configuration.nameFilter = new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				String lowerCase = name.toLowerCase(Locale.ENGLISH);
+				return lowerCase.endsWith(".ogg") || lowerCase.endsWith(".mp3") || lowerCase.endsWith(".wav");
+			}
+		};
+		if (mime)
+			configuration.mimeFilter = "audio/*";
+		if (indexed) {
+			indexFile = File.createTempFile("gdx-nativefilechooser-bench", ".idx");
+			index = DirectoryIndex.open(indexFile);
+		}
+		filter = DesktopFileChooser.createFilenameFilter(configuration, index);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (String name : names)
+			new File(directory, name).delete();
+		directory.delete();
+		if (index != null) {
+			index.dispose();
+			indexFile.delete();
+		}
+	}
+
+	@Benchmark
+	public int filterDirectory() {
+		int accepted = 0;
+		for (String name : names) {
+			if (filter.accept(directory, name))
+				accepted++;
+		}
+		return accepted;
+	}
+
+}
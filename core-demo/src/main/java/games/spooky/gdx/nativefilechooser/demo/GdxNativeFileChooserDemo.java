@@ -25,7 +25,6 @@ package games.spooky.gdx.nativefilechooser.demo;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.GL20;
@@ -56,6 +55,7 @@ import games.spooky.gdx.nativefilechooser.NativeFileChooserIntent;
 import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.RecentLocations;
 
 @SuppressWarnings("CallToPrintStackTrace")
 public class GdxNativeFileChooserDemo extends ApplicationAdapter {
@@ -65,24 +65,27 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 	Stage stage;
 	Skin skin;
 
-	Preferences prefs;
+	RecentLocations recentLocations;
 
 	Label fileLabel;
 	VerticalGroup files;
 	Button saveFileButton;
 
-	final NativeFileChooser fileChooser;
+	final NativeFileChooser baseFileChooser;
+	NativeFileChooser fileChooser;
 	final ObjectSet<FileHandle> selectedFiles = new ObjectSet<>();
 
 	public GdxNativeFileChooserDemo(NativeFileChooser fileChooser) {
 		super();
-		this.fileChooser = fileChooser;
+		this.baseFileChooser = fileChooser;
 	}
 
 	@Override
 	public void create() {
 
-		prefs = Gdx.app.getPreferences("GdxNativeFileChooserDemo");
+		recentLocations = new RecentLocations("GdxNativeFileChooserDemo");
+		fileChooser = recentLocations.chooser("audio", baseFileChooser);
+		recentLocations.warmUp(fileChooser);
 
 		batch = new SpriteBatch();
 
@@ -172,11 +175,6 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 						} catch (Exception exception) {
 							onError(exception);
 						}
-
-						if (file != null) {
-							prefs.putString("last", file.parent().file().getAbsolutePath());
-							prefs.flush();
-						}
 					}
 
 					@Override
@@ -233,6 +231,7 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 
 	@Override
 	public void dispose() {
+		recentLocations.dispose();
 		batch.dispose();
 		stage.dispose();
 		skin.dispose();
@@ -251,12 +250,14 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 	private NativeFileChooserConfiguration audioChooserConfiguration() {
 
 		NativeFileChooserConfiguration conf = new NativeFileChooserConfiguration();
-		conf.directory = Gdx.files.absolute(prefs.getString("last",
-				Gdx.files.isExternalStorageAvailable() ?
-						Gdx.files.getExternalStoragePath()
-						: (Gdx.files.isLocalStorageAvailable() ?
-						Gdx.files.getLocalStoragePath()
-						: System.getProperty("user.home"))));
+		conf.directory = recentLocations.last("audio");
+		if (conf.directory == null)
+			conf.directory = Gdx.files.absolute(
+					Gdx.files.isExternalStorageAvailable() ?
+							Gdx.files.getExternalStoragePath()
+							: (Gdx.files.isLocalStorageAvailable() ?
+							Gdx.files.getLocalStoragePath()
+							: System.getProperty("user.home")));
 		conf.nameFilter = new FilenameFilter() {
 			final String[] extensions = { "wav", "mp3", "ogg" };
 
@@ -285,11 +286,6 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 		public void onFilesChosen(Array<FileHandle> files) {
 			System.out.println("-- Files chosen: " + files);
 
-			if (files != null && files.size > 0) {
-				prefs.putString("last", files.first().parent().file().getAbsolutePath());
-				prefs.flush();
-			}
-
 			selectedFiles.addAll(files);
 			refresh();
 		}
@@ -298,11 +294,6 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 		public void onFileChosen(FileHandle file) {
 			System.out.println("-- File chosen: " + file);
 
-			if (file != null) {
-				prefs.putString("last", file.parent().file().getAbsolutePath());
-				prefs.flush();
-			}
-
 			selectedFiles.add(file);
 			refresh();
 		}
@@ -323,9 +314,6 @@ public class GdxNativeFileChooserDemo extends ApplicationAdapter {
 			System.out.println("-- Folder chosen: " + folder);
 
 			if (folder != null) {
-				prefs.putString("last", folder.path());
-				prefs.flush();
-
 				selectedFiles.addAll(folder.list());
 				refresh();
 			}
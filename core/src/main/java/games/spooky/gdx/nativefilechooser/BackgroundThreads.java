@@ -0,0 +1,192 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Threads for background work: folder walks, digests, warm-ups and watches.
+ * Virtual threads on Java 21+, so that blocking on the file system only parks
+ * a virtual thread instead of holding a platform one. Platform daemon threads
+ * elsewhere, Android included.
+ *
+ * Virtual threads are reached through reflection (Method, not MethodHandle,
+ * which D8 refuses below Android 8) to keep a single Java 8 class.
+ */
+final class BackgroundThreads {
+
+	// Thread.ofVirtual(), Thread.Builder.name(String), Thread.Builder.unstarted(Runnable)
+	// and Executors.newThreadPerTaskExecutor(ThreadFactory), null before Java 21
+	private static final Method[] virtualThreads = virtualThreadMethods();
+
+	private BackgroundThreads() {
+		super();
+	}
+
+	/*
+	 * Executor running at most given number of tasks at once. Virtual threads
+	 * are not meant to be pooled, each task gets its own and a semaphore does
+	 * the bounding.
+	 */
+	static ExecutorService newPool(final String name, int parallelism) {
+		ThreadFactory factory = new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return BackgroundThreads.newThread(name + "-" + count.incrementAndGet(), runnable);
+			}
+		};
+		if (virtualThreads == null)
+			return Executors.newFixedThreadPool(parallelism, factory);
+		return new BoundedExecutor((ExecutorService) invoke(virtualThreads[3], null, factory), parallelism);
+	}
+
+	/*
+	 * Parallelism for work mostly waiting on the file system. Every platform
+	 * thread task holds its thread, so no more than there are processors.
+	 * Waiting virtual threads leave their carrier to others, so well beyond.
+	 */
+	static int ioParallelism() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return virtualThreads == null ? processors : Math.max(16, 8 * processors);
+	}
+
+	/*
+	 * Unstarted daemon thread, a virtual one when available.
+	 */
+	static Thread newThread(String name, Runnable runnable) {
+		if (virtualThreads != null) {
+			Object builder = invoke(virtualThreads[0], null);
+			builder = invoke(virtualThreads[1], builder, name);
+			return (Thread) invoke(virtualThreads[2], builder, runnable);
+		}
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private static Method[] virtualThreadMethods() {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method[] methods = new Method[4];
+			methods[0] = Thread.class.getMethod("ofVirtual");
+			methods[1] = builderClass.getMethod("name", String.class);
+			methods[2] = builderClass.getMethod("unstarted", Runnable.class);
+			methods[3] = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			// Preview API on Java 19 and 20, make sure it is really on
+			((Thread) methods[2].invoke(methods[1].invoke(methods[0].invoke(null), "probe"), new Runnable() {
+				@Override
+				public void run() {
+				}
+			})).getName();
+			return methods;
+		} catch (Exception ex) {
+			return null;
+		} catch (LinkageError err) {
+			return null;
+		}
+	}
+
+	private static Object invoke(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		} catch (InvocationTargetException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static final class BoundedExecutor extends AbstractExecutorService {
+
+		private final ExecutorService delegate;
+		private final Semaphore permits;
+
+		BoundedExecutor(ExecutorService delegate, int parallelism) {
+			this.delegate = delegate;
+			this.permits = new Semaphore(parallelism);
+		}
+
+		@Override
+		public void execute(final Runnable command) {
+			NativeFileChooserUtils.checkNotNull(command, "command");
+			delegate.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						permits.acquire();
+					} catch (InterruptedException ex) {
+						// Shut down while waiting for its turn
+						return;
+					}
+					try {
+						command.run();
+					} finally {
+						permits.release();
+					}
+				}
+			});
+		}
+
+		@Override
+		public void shutdown() {
+			delegate.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+}
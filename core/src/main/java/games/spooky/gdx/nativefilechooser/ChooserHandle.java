@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle on an in-flight chooser call or background operation, letting the
+ * application give up on it, either explicitly or after a timeout.
+ *
+ * <p>
+ * A handle ends exactly once: completed by the operation itself, or cancelled
+ * (see {@link #cancel()} and {@link #setTimeout(long)}). On cancellation, the
+ * operation stops what it can (file copies, folder walks, content digests),
+ * frees its resources and its callback gets
+ * {@link NativeChooserCallback#onCancellation()}, or
+ * {@link NativeChooserCallback#onError(Exception)} with a
+ * {@link java.util.concurrent.TimeoutException} on timeout. Whatever the
+ * operation produces afterwards is dropped.
+ *
+ * <p>
+ * Native dialogs cannot always be closed programmatically: depending on the
+ * platform, a cancelled dialog may stay on screen until the user closes it.
+ *
+ * @see NativeFileChooserUtils#chooseFile(NativeFileChooser, NativeFileChooserConfiguration, NativeFileChooserCallback)
+ * @see NativeCancellableChooser
+ *
+ * @author thorthur
+ *
+ */
+public final class ChooserHandle {
+
+	private static final int RUNNING = 0;
+	private static final int COMPLETED = 1;
+	private static final int CANCELLED = 2;
+	private static final int TIMED_OUT = 3;
+
+	private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+	// Guarded by this
+	private List<Runnable> listeners = new ArrayList<>(2);
+	private TimerTask timeout;
+	private long timeoutMillis;
+
+	/**
+	 * Initialize a new running {@code ChooserHandle}.
+	 */
+	public ChooserHandle() {
+		super();
+	}
+
+	/**
+	 * Give up on the operation.
+	 *
+	 * @return true if the operation was still running, false if it had
+	 *         already ended
+	 */
+	public boolean cancel() {
+		return end(CANCELLED);
+	}
+
+	/**
+	 * Give up on the operation if still running after given delay, replacing
+	 * any previous timeout.
+	 *
+	 * @param millis
+	 *            Delay in milliseconds, 0 for no timeout
+	 * @return this handle, for chaining
+	 */
+	public ChooserHandle setTimeout(long millis) {
+		TimerTask task = null;
+		synchronized (this) {
+			if (timeout != null)
+				timeout.cancel();
+			timeout = null;
+			timeoutMillis = millis;
+			if (millis > 0L && state.get() == RUNNING) {
+				task = new TimerTask() {
+					@Override
+					public void run() {
+						end(TIMED_OUT);
+					}
+				};
+				timeout = task;
+			}
+		}
+		if (task != null)
+			NativeFileChooserUtils.timer().schedule(task, millis);
+		return this;
+	}
+
+	/**
+	 * @return the timeout in milliseconds, 0 if none
+	 */
+	public synchronized long getTimeout() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * @return true if the operation was cancelled, explicitly or by timeout
+	 */
+	public boolean isCancelled() {
+		return state.get() >= CANCELLED;
+	}
+
+	/**
+	 * @return true if the operation was cancelled by timeout
+	 */
+	public boolean isTimedOut() {
+		return state.get() == TIMED_OUT;
+	}
+
+	/**
+	 * @return true if the operation ended, whatever the way
+	 */
+	public boolean isDone() {
+		return state.get() != RUNNING;
+	}
+
+	/**
+	 * Throw a {@link CancellationException} if the operation was cancelled.
+	 * Meant for the loops of long operations.
+	 */
+	public void checkCancelled() {
+		if (isCancelled())
+			throw new CancellationException();
+	}
+
+	/**
+	 * End the operation normally. Operations call this before delivering
+	 * their result, and deliver it only if this returns true.
+	 *
+	 * @return true if the operation was still running, false if it had
+	 *         already ended (and its result must be dropped)
+	 */
+	public boolean complete() {
+		return end(COMPLETED);
+	}
+
+	/**
+	 * Register a listener to be run on cancellation, typically to interrupt
+	 * some work or release some resource. Listeners run on the cancelling
+	 * thread (the timer thread on timeout); a listener registered on an
+	 * already cancelled handle runs right away.
+	 *
+	 * @param listener
+	 *            Cancellation listener, must not be null
+	 */
+	public void addCancellationListener(Runnable listener) {
+		NativeFileChooserUtils.checkNotNull(listener, "listener");
+		synchronized (this) {
+			if (listeners != null) {
+				listeners.add(listener);
+				return;
+			}
+		}
+		if (isCancelled())
+			listener.run();
+	}
+
+	/**
+	 * Unregister a cancellation listener, once the work it interrupts is
+	 * over.
+	 *
+	 * @param listener
+	 *            Cancellation listener
+	 */
+	public synchronized void removeCancellationListener(Runnable listener) {
+		if (listeners != null)
+			listeners.remove(listener);
+	}
+
+	private boolean end(int outcome) {
+		if (!state.compareAndSet(RUNNING, outcome))
+			return false;
+
+		List<Runnable> toRun;
+		synchronized (this) {
+			if (timeout != null)
+				timeout.cancel();
+			timeout = null;
+			toRun = listeners;
+			listeners = null;
+		}
+
+		if (outcome != COMPLETED) {
+			RuntimeException failure = null;
+			for (Runnable listener : toRun) {
+				try {
+					listener.run();
+				} catch (RuntimeException ex) {
+					// Run the others anyway
+					if (failure == null)
+						failure = ex;
+				}
+			}
+			if (failure != null)
+				throw failure;
+		}
+		return true;
+	}
+}
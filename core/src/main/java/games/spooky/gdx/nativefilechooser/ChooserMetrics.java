@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * Listener for performance metrics of a {@code NativeFileChooser} call. Set one
+ * on {@link NativeChooserConfiguration#metrics} to know where time goes.
+ *
+ * <p>
+ * All durations are given in nanoseconds. Methods may be called from any
+ * thread (eg. name filters are evaluated by the native dialog itself), so
+ * implementations should be thread-safe and quick.
+ *
+ * <p>
+ * Not every metric is available on every platform: the Android backend cannot
+ * tell when its activity becomes visible, and the LWJGL backend reports the
+ * time until the native dialog is requested.
+ *
+ * @see NativeChooserConfiguration#metrics
+ * @see ChooserMetricsAdapter
+ *
+ * @author thorthur
+ *
+ */
+public interface ChooserMetrics {
+
+	/**
+	 * Report the latency between the call to the chooser and the dialog
+	 * becoming visible.
+	 *
+	 * @param latency
+	 *            Open-to-visible latency, in nanoseconds
+	 */
+	void onDialogOpened(long latency);
+
+	/**
+	 * Report the time spent by the user in the dialog.
+	 *
+	 * @param duration
+	 *            Time from dialog opening to dialog closing, in nanoseconds
+	 */
+	void onDialogClosed(long duration);
+
+	/**
+	 * Report one evaluation of the name and/or MIME filter built from the
+	 * configuration.
+	 *
+	 * @param duration
+	 *            Time spent evaluating filter, in nanoseconds
+	 */
+	void onFilterEvaluated(long duration);
+
+	/**
+	 * Report one probe of the MIME type of a file.
+	 *
+	 * @param duration
+	 *            Time spent probing, in nanoseconds
+	 */
+	void onMimeProbed(long duration);
+
+	/**
+	 * Report the copy of a chosen resource, like Android content copied to a
+	 * temporary file.
+	 *
+	 * @param bytes
+	 *            Number of bytes copied
+	 * @param duration
+	 *            Time spent copying, in nanoseconds
+	 */
+	void onStreamCopied(long bytes, long duration);
+
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Pool of the result arrays handed over to multi-files callbacks, for
+ * applications sensitive to garbage collection pauses.
+ *
+ * <p>
+ * Arrays given to {@link NativeFilesChooserCallback#onFilesChosen(Array)} and
+ * {@link NativeSelectionCallback#onEntriesChosen(Array)} by the choosers of
+ * this library come from here. Once done with such an array, give it back with
+ * {@link #free(Array)} so that next calls reuse it, or simply keep it: arrays
+ * which never come back are garbage collected as usual. Arrays of very large
+ * selections are pooled without their storage.
+ *
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author thorthur
+ *
+ */
+public final class ChooserPools {
+
+	// Larger arrays give their storage back when freed, so that one huge selection is not held forever
+	static final int MAX_POOLED_CAPACITY = 1024;
+
+	private static final Pool<Array<?>> arrays = new Pool<Array<?>>(4, 16) {
+		@Override
+		protected Array<?> newObject() {
+			return new Array<Object>();
+		}
+
+		@Override
+		protected void reset(Array<?> array) {
+			array.clear();
+			if (array.items.length > MAX_POOLED_CAPACITY)
+				array.shrink();
+		}
+	};
+
+	private ChooserPools() {
+	}
+
+	/**
+	 * Get an empty array, either a pooled one or a new one.
+	 *
+	 * @return an empty array
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Array<T> obtainArray() {
+		synchronized (arrays) {
+			return (Array<T>) arrays.obtain();
+		}
+	}
+
+	/**
+	 * Give back an array obtained from a callback or from
+	 * {@link #obtainArray()}. It is cleared, and must not be used afterwards.
+	 *
+	 * @param array
+	 *            Array to give back, must not be null
+	 */
+	public static void free(Array<?> array) {
+		NativeFileChooserUtils.checkNotNull(array, "array");
+		synchronized (arrays) {
+			arrays.free(array);
+		}
+	}
+}
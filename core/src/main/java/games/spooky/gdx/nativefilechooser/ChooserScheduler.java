@@ -0,0 +1,679 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link NativeFileChooser} decorator making sure only one dialog of the
+ * wrapped chooser is shown at a time, whatever the number of concurrent
+ * calls.
+ *
+ * <p>
+ * A call identical to one already pending (same kind of choice and same
+ * configuration, like a double click on a button) does not open another
+ * dialog: it is merged with the pending one, whose result is handed over to
+ * all callbacks. Other calls are queued and served one after the other, by
+ * decreasing priority then in order of arrival.
+ *
+ * <p>
+ * Calls are rejected with a {@link RejectedExecutionException} when the queue
+ * is full, and with a {@link TimeoutException} when they waited in the queue
+ * for too long.
+ *
+ * <p>
+ * Queued calls are served from the thread completing the previous dialog, so
+ * with synchronous choosers (desktop backends) a call may return before its
+ * callback is called, and callbacks may be called on another thread than the
+ * one of the call.
+ *
+ * <p>
+ * Calls cancelled through a {@link ChooserHandle} (see
+ * {@link NativeFileChooserUtils#chooseFile(NativeFileChooser, NativeFileChooserConfiguration, NativeFileChooserCallback)})
+ * leave the queue. A dialog nobody waits for anymore is cancelled as well if
+ * the wrapped chooser supports it.
+ *
+ * @author thorthur
+ *
+ */
+public class ChooserScheduler implements NativeCancellableChooser {
+
+	/**
+	 * Default priority of calls.
+	 */
+	public static final int DEFAULT_PRIORITY = 0;
+
+	private final NativeFileChooser chooser;
+
+	private final ConcurrentSkipListSet<Request> queue = new ConcurrentSkipListSet<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final ThreadLocal<Boolean> draining = new ThreadLocal<>();
+
+	private volatile Request current;
+
+	private volatile int maxQueued = Integer.MAX_VALUE;
+	private volatile long queueTimeout;
+
+	/**
+	 * Initialize a new {@code ChooserScheduler} around given chooser.
+	 *
+	 * @param chooser
+	 *            Actual chooser, must not be null
+	 */
+	public ChooserScheduler(NativeFileChooser chooser) {
+		super();
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		this.chooser = chooser;
+	}
+
+	/**
+	 * Set the maximum number of calls waiting for their turn. Calls over this
+	 * limit are rejected, merged calls do not count.
+	 *
+	 * @param maxQueued
+	 *            Maximum number of queued calls
+	 * @return this scheduler, for chaining
+	 */
+	public ChooserScheduler setMaxQueued(int maxQueued) {
+		this.maxQueued = maxQueued;
+		return this;
+	}
+
+	/**
+	 * Set how long calls may wait for their turn before being rejected.
+	 *
+	 * @param queueTimeout
+	 *            Maximum waiting time in milliseconds, 0 for no limit
+	 * @return this scheduler, for chaining
+	 */
+	public ChooserScheduler setQueueTimeout(long queueTimeout) {
+		this.queueTimeout = queueTimeout;
+		return this;
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		submit(Kind.FILE, configuration, callback, DEFAULT_PRIORITY, null);
+	}
+
+	/**
+	 * Same as {@link #chooseFile(NativeFileChooserConfiguration, NativeFileChooserCallback)},
+	 * served before queued calls of lower priority.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            File choosing asynchronous callback, must not be null
+	 * @param priority
+	 *            Priority of the call, higher first
+	 * @return a handle to cancel the call
+	 */
+	public ChooserHandle chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, int priority) {
+		return chooseFile(configuration, callback, priority, new ChooserHandle());
+	}
+
+	/**
+	 * Same as {@link #chooseFile(NativeFileChooserConfiguration, NativeFileChooserCallback, int)}, under control
+	 * of given handle (and its timeout, if any), as
+	 * {@link NativeFileChooserUtils#chooseFile(NativeFileChooser, NativeFileChooserConfiguration, NativeFileChooserCallback, ChooserHandle)}
+	 * does: callback is called exactly once, with the result or on
+	 * cancellation of the handle.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            File choosing asynchronous callback, must not be null
+	 * @param priority
+	 *            Priority of the call, higher first
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, int priority, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		submit(Kind.FILE, configuration, NativeFileChooserUtils.guard(callback, handle), priority, handle);
+		return handle;
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+		submit(Kind.FILE, configuration, callback, DEFAULT_PRIORITY, handle);
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		submit(Kind.FILES, configuration, callback, DEFAULT_PRIORITY, null);
+	}
+
+	/**
+	 * Same as {@link #chooseFiles(NativeFileChooserConfiguration, NativeFilesChooserCallback)},
+	 * served before queued calls of lower priority.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            Files choosing asynchronous callback, must not be null
+	 * @param priority
+	 *            Priority of the call, higher first
+	 * @return a handle to cancel the call
+	 */
+	public ChooserHandle chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, int priority) {
+		return chooseFiles(configuration, callback, priority, new ChooserHandle());
+	}
+
+	/**
+	 * Same as {@link #chooseFiles(NativeFileChooserConfiguration, NativeFilesChooserCallback, int)}, under control
+	 * of given handle (and its timeout, if any), as
+	 * {@link NativeFileChooserUtils#chooseFiles(NativeFileChooser, NativeFileChooserConfiguration, NativeFilesChooserCallback, ChooserHandle)}
+	 * does: callback is called exactly once, with the result or on
+	 * cancellation of the handle.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            Files choosing asynchronous callback, must not be null
+	 * @param priority
+	 *            Priority of the call, higher first
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, int priority, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		submit(Kind.FILES, configuration, NativeFileChooserUtils.guard(callback, handle), priority, handle);
+		return handle;
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+		submit(Kind.FILES, configuration, callback, DEFAULT_PRIORITY, handle);
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		submit(Kind.FOLDER, configuration, callback, DEFAULT_PRIORITY, null);
+	}
+
+	/**
+	 * Same as {@link #chooseFolder(NativeFolderChooserConfiguration, NativeFolderChooserCallback)},
+	 * served before queued calls of lower priority.
+	 *
+	 * @param configuration
+	 *            Folder choosing configuration, must not be null
+	 * @param callback
+	 *            Folder choosing asynchronous callback, must not be null
+	 * @param priority
+	 *            Priority of the call, higher first
+	 * @return a handle to cancel the call
+	 */
+	public ChooserHandle chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, int priority) {
+		return chooseFolder(configuration, callback, priority, new ChooserHandle());
+	}
+
+	/**
+	 * Same as {@link #chooseFolder(NativeFolderChooserConfiguration, NativeFolderChooserCallback, int)}, under control
+	 * of given handle (and its timeout, if any), as
+	 * {@link NativeFileChooserUtils#chooseFolder(NativeFileChooser, NativeFolderChooserConfiguration, NativeFolderChooserCallback, ChooserHandle)}
+	 * does: callback is called exactly once, with the result or on
+	 * cancellation of the handle.
+	 *
+	 * @param configuration
+	 *            Folder choosing configuration, must not be null
+	 * @param callback
+	 *            Folder choosing asynchronous callback, must not be null
+	 * @param priority
+	 *            Priority of the call, higher first
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, int priority, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		submit(Kind.FOLDER, configuration, NativeFileChooserUtils.guard(callback, handle), priority, handle);
+		return handle;
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+		submit(Kind.FOLDER, configuration, callback, DEFAULT_PRIORITY, handle);
+	}
+
+	@Override
+	public void warmUp() {
+		chooser.warmUp();
+	}
+
+	@Override
+	public void warmUp(Array<FileHandle> directories) {
+		chooser.warmUp(directories);
+	}
+
+	/**
+	 * @return the number of calls waiting for their turn
+	 */
+	public int getQueued() {
+		return queued.get();
+	}
+
+	private void submit(Kind kind, NativeChooserConfiguration configuration, NativeChooserCallback callback, int priority, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		// Same as the dialog being shown?
+		Request pending = current;
+		if (pending != null && pending.matches(kind, configuration) && pending.attach(callback)) {
+			pending.detachOn(handle, callback);
+			return;
+		}
+
+		// Same as a queued one?
+		for (Request request : queue) {
+			if (request.matches(kind, configuration) && request.attach(callback)) {
+				request.detachOn(handle, callback);
+				return;
+			}
+		}
+
+		if (queued.incrementAndGet() > maxQueued) {
+			queued.decrementAndGet();
+			callback.onError(new RejectedExecutionException("Too many pending chooser calls"));
+			return;
+		}
+
+		final Request request = new Request(kind, configuration, callback, priority, sequence.incrementAndGet());
+		request.detachOn(handle, callback);
+		queue.add(request);
+
+		long timeout = queueTimeout;
+		if (timeout > 0L)
+			request.expireAfter(timeout);
+
+		drain();
+	}
+
+	private void drain() {
+		// Synchronous choosers complete from within the loop, do not recurse
+		if (draining.get() != null)
+			return;
+		draining.set(Boolean.TRUE);
+		try {
+			while (!queue.isEmpty() && running.compareAndSet(false, true)) {
+				Request next = queue.pollFirst();
+				if (next == null) {
+					running.set(false);
+					continue;
+				}
+				queued.decrementAndGet();
+				next.dequeued();
+				current = next;
+				if (next.isDone()) {
+					// Given up on while leaving the queue
+					current = null;
+					running.set(false);
+					continue;
+				}
+				try {
+					next.start();
+				} catch (RuntimeException ex) {
+					next.fail(ex);
+				}
+			}
+		} finally {
+			draining.remove();
+		}
+	}
+
+	private void finished(Request request) {
+		if (current == request) {
+			current = null;
+			running.set(false);
+			drain();
+		}
+	}
+
+	private void abandoned(Request request) {
+		if (queue.remove(request)) {
+			queued.decrementAndGet();
+			request.dequeued();
+		} else if (current == request) {
+			request.handle.cancel();
+			current = null;
+			running.set(false);
+			// Cancellation may come from the timer thread, open next dialog from the rendering
+			// thread (or from a thread of its own without application)
+			NativeFileChooserUtils.post(new Runnable() {
+				@Override
+				public void run() {
+					drain();
+				}
+			});
+		}
+	}
+
+	private static boolean same(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private enum Kind {
+		FILE, FILES, FOLDER
+	}
+
+	/*
+	 * Queue timeout of a request, letting go of it once cancelled: the timer
+	 * thread may still hold the task until it was due.
+	 */
+	private final class Expiry extends TimerTask {
+
+		private final long timeout;
+		private volatile Request request;
+
+		Expiry(Request request, long timeout) {
+			this.request = request;
+			this.timeout = timeout;
+		}
+
+		@Override
+		public void run() {
+			final Request expired = request;
+			if (expired != null && queue.remove(expired)) {
+				queued.decrementAndGet();
+				// Callbacks never run on the timer thread
+				NativeFileChooserUtils.post(new Runnable() {
+					@Override
+					public void run() {
+						expired.fail(new TimeoutException("Chooser call waited for more than " + timeout + " ms"));
+					}
+				});
+			}
+		}
+
+		@Override
+		public boolean cancel() {
+			request = null;
+			return super.cancel();
+		}
+	}
+
+	private final class Request implements Comparable<Request> {
+
+		final Kind kind;
+		final NativeChooserConfiguration configuration;
+		final int priority;
+		final long order;
+
+		// Handed over to cancellable choosers
+		final ChooserHandle handle = new ChooserHandle();
+
+		private final List<NativeChooserCallback> callbacks = new ArrayList<>(1);
+		private boolean done;
+
+		private Expiry expiry;
+		private boolean dequeued;
+
+		Request(Kind kind, NativeChooserConfiguration configuration, NativeChooserCallback callback, int priority, long order) {
+			this.kind = kind;
+			this.configuration = configuration;
+			this.priority = priority;
+			this.order = order;
+			callbacks.add(callback);
+		}
+
+		boolean matches(Kind otherKind, NativeChooserConfiguration other) {
+			if (kind != otherKind)
+				return false;
+			if (configuration == other)
+				return true;
+			if (!same(configuration.title, other.title) || !same(configuration.directory, other.directory)
+					|| configuration.metrics != other.metrics)
+				return false;
+			if (configuration instanceof NativeFileChooserConfiguration) {
+				NativeFileChooserConfiguration a = (NativeFileChooserConfiguration) configuration;
+				NativeFileChooserConfiguration b = (NativeFileChooserConfiguration) other;
+				return same(a.mimeFilter, b.mimeFilter) && a.nameFilter == b.nameFilter && a.intent == b.intent
+						&& a.maxFiles == b.maxFiles && a.maxFileBytes == b.maxFileBytes && a.maxTotalBytes == b.maxTotalBytes;
+			}
+			return true;
+		}
+
+		synchronized boolean attach(NativeChooserCallback callback) {
+			if (done)
+				return false;
+			callbacks.add(callback);
+			return true;
+		}
+
+		void detachOn(ChooserHandle outer, final NativeChooserCallback callback) {
+			if (outer == null)
+				return;
+			outer.addCancellationListener(new Runnable() {
+				@Override
+				public void run() {
+					detach(callback);
+				}
+			});
+		}
+
+		private void detach(NativeChooserCallback callback) {
+			synchronized (this) {
+				if (done || !callbacks.remove(callback) || !callbacks.isEmpty())
+					return;
+				// Nobody waits for this one anymore
+				done = true;
+			}
+			abandoned(this);
+		}
+
+		synchronized void expireAfter(long timeout) {
+			if (dequeued)
+				return;
+			expiry = new Expiry(this, timeout);
+			NativeFileChooserUtils.timer().schedule(expiry, timeout);
+		}
+
+		synchronized void dequeued() {
+			dequeued = true;
+			if (expiry != null) {
+				// Cancelled tasks stay in the timer queue until purged
+				expiry.cancel();
+				expiry = null;
+				NativeFileChooserUtils.timer().purge();
+			}
+		}
+
+		synchronized boolean isDone() {
+			return done;
+		}
+
+		private synchronized List<NativeChooserCallback> complete() {
+			if (done)
+				return null;
+			done = true;
+			return callbacks;
+		}
+
+		void start() {
+			switch (kind) {
+			case FILE:
+				NativeFileChooserCallback fileCallback = new NativeFileChooserCallback() {
+					@Override
+					public void onFileChosen(FileHandle file) {
+						List<NativeChooserCallback> targets = complete();
+						if (targets == null)
+							return;
+						try {
+							for (NativeChooserCallback target : targets)
+								((NativeFileChooserCallback) target).onFileChosen(file);
+						} finally {
+							finished(Request.this);
+						}
+					}
+
+					@Override
+					public void onCancellation() {
+						cancel();
+					}
+
+					@Override
+					public void onError(Exception exception) {
+						fail(exception);
+					}
+				};
+				if (chooser instanceof NativeCancellableChooser)
+					((NativeCancellableChooser) chooser).chooseFile((NativeFileChooserConfiguration) configuration, fileCallback, handle);
+				else
+					chooser.chooseFile((NativeFileChooserConfiguration) configuration, fileCallback);
+				break;
+			case FILES:
+				NativeFilesChooserCallback filesCallback = new NativeFilesChooserCallback() {
+					@Override
+					public void onFilesChosen(Array<FileHandle> files) {
+						List<NativeChooserCallback> targets = complete();
+						if (targets == null) {
+							ChooserPools.free(files);
+							return;
+						}
+						try {
+							for (int i = 0; i < targets.size(); i++) {
+								// Everyone gets their own array, to keep or free at will
+								Array<FileHandle> result = files;
+								if (i < targets.size() - 1) {
+									result = ChooserPools.obtainArray();
+									result.addAll(files);
+								}
+								((NativeFilesChooserCallback) targets.get(i)).onFilesChosen(result);
+							}
+						} finally {
+							finished(Request.this);
+						}
+					}
+
+					@Override
+					public void onCancellation() {
+						cancel();
+					}
+
+					@Override
+					public void onError(Exception exception) {
+						fail(exception);
+					}
+				};
+				if (chooser instanceof NativeCancellableChooser)
+					((NativeCancellableChooser) chooser).chooseFiles((NativeFileChooserConfiguration) configuration, filesCallback, handle);
+				else
+					chooser.chooseFiles((NativeFileChooserConfiguration) configuration, filesCallback);
+				break;
+			case FOLDER:
+				NativeFolderChooserCallback folderCallback = new NativeFolderChooserCallback() {
+					@Override
+					public void onFolderChosen(FileHandle folder) {
+						List<NativeChooserCallback> targets = complete();
+						if (targets == null)
+							return;
+						try {
+							for (NativeChooserCallback target : targets)
+								((NativeFolderChooserCallback) target).onFolderChosen(folder);
+						} finally {
+							finished(Request.this);
+						}
+					}
+
+					@Override
+					public void onCancellation() {
+						cancel();
+					}
+
+					@Override
+					public void onError(Exception exception) {
+						fail(exception);
+					}
+				};
+				if (chooser instanceof NativeCancellableChooser)
+					((NativeCancellableChooser) chooser).chooseFolder((NativeFolderChooserConfiguration) configuration, folderCallback, handle);
+				else
+					chooser.chooseFolder((NativeFolderChooserConfiguration) configuration, folderCallback);
+				break;
+			}
+		}
+
+		void cancel() {
+			List<NativeChooserCallback> targets = complete();
+			if (targets == null)
+				return;
+			try {
+				for (NativeChooserCallback target : targets)
+					target.onCancellation();
+			} finally {
+				finished(this);
+			}
+		}
+
+		void fail(Exception exception) {
+			List<NativeChooserCallback> targets = complete();
+			if (targets == null)
+				return;
+			try {
+				for (NativeChooserCallback target : targets)
+					target.onError(exception);
+			} finally {
+				finished(this);
+			}
+		}
+
+		@Override
+		public int compareTo(Request other) {
+			if (priority != other.priority)
+				return priority > other.priority ? -1 : 1;
+			return order < other.order ? -1 : order == other.order ? 0 : 1;
+		}
+	}
+}
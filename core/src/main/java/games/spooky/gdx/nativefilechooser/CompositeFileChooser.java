@@ -0,0 +1,479 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link NativeFileChooser} trying several backends in turn, for platforms
+ * where no backend works well everywhere (eg. native dialogs failing on some
+ * Linux desktops).
+ *
+ * <p>
+ * Each backend gets its dialog open latency (as reported through
+ * {@link ChooserMetrics#onDialogOpened(long)}) and its error rate recorded.
+ * Calls go to the best backend so far, the one without too many errors
+ * opening its dialog the fastest, then to the others in the given order
+ * whenever a backend fails (error callback or exception). Backends failing
+ * most of the time are tried last. Cancellation by the user is a success.
+ *
+ * <p>
+ * Errors which another backend would not fix are not failures of the
+ * backend, they go straight to the callback: invalid or unsupported
+ * configurations ({@link IllegalArgumentException}) and errors past the
+ * dialog, such as {@link SelectionLimitException}s or failed copies
+ * ({@link IOException}). Folder calls are the exception: not every backend
+ * chooses folders (AWT reports an {@link IllegalArgumentException}), so
+ * another one is tried. Exceptions thrown by the given callback are not
+ * caught.
+ *
+ * <p>
+ * Statistics are kept across sessions in libGDX {@link Preferences} (see
+ * {@link #setPreferencesName(String)}), so that players get the quickest
+ * working dialog of their system from the first call on. Backends are told
+ * apart by their position and class. Changes are written in batches, see
+ * {@link #flush()}.
+ *
+ * @author thorthur
+ *
+ */
+public class CompositeFileChooser implements NativeFileChooser, Disposable {
+
+	/**
+	 * Default name of the preferences statistics are kept in.
+	 */
+	public static final String DEFAULT_PREFERENCES_NAME = "gdx-nativefilechooser";
+
+	// Counts are halved past this, so that backends can redeem themselves
+	private static final int HISTORY = 20;
+
+	// Weight of the latest latency in its moving average
+	private static final float LATENCY_WEIGHT = 0.3f;
+
+	// Batch changes of calls coming in a row
+	private static final long WRITE_DELAY = 2000L;
+
+	private final Backend[] backends;
+
+	private String preferencesName = DEFAULT_PREFERENCES_NAME;
+	private Preferences preferences;
+	private boolean loaded;
+	private boolean dirty;
+	private TimerTask write;
+
+	/**
+	 * Initialize a new {@code CompositeFileChooser} around given backends, in
+	 * order of preference when nothing is known about them yet.
+	 *
+	 * @param choosers
+	 *            Backend choosers, at least one, none null
+	 */
+	public CompositeFileChooser(NativeFileChooser... choosers) {
+		super();
+		NativeFileChooserUtils.checkNotNull(choosers, "choosers");
+		if (choosers.length == 0)
+			throw new IllegalArgumentException("At least one chooser is required");
+		backends = new Backend[choosers.length];
+		for (int i = 0; i < choosers.length; i++) {
+			NativeFileChooserUtils.checkNotNull(choosers[i], "choosers[" + i + "]");
+			backends[i] = new Backend(choosers[i], i);
+		}
+	}
+
+	/**
+	 * Set the name of the libGDX preferences statistics are kept in, null to
+	 * keep them for the session only. Set it before the first call.
+	 *
+	 * @param preferencesName
+	 *            Name of the preferences
+	 * @return this chooser, for chaining
+	 */
+	public synchronized CompositeFileChooser setPreferencesName(String preferencesName) {
+		this.preferencesName = preferencesName;
+		return this;
+	}
+
+	/**
+	 * @return the backend calls go to first
+	 */
+	public NativeFileChooser getPreferred() {
+		return order()[0].chooser;
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		new Call(Kind.FILE, configuration, callback).next();
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		new Call(Kind.FILES, configuration, callback).next();
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		new Call(Kind.FOLDER, configuration, callback).next();
+	}
+
+	/**
+	 * Write pending statistics right away.
+	 */
+	public synchronized void flush() {
+		if (write != null) {
+			write.cancel();
+			write = null;
+		}
+		if (preferences == null || !dirty)
+			return;
+		for (Backend backend : backends) {
+			preferences.putInteger(backend.key + ".successes", backend.successes);
+			preferences.putInteger(backend.key + ".errors", backend.errors);
+			preferences.putFloat(backend.key + ".latency", backend.latency);
+		}
+		dirty = false;
+		preferences.flush();
+	}
+
+	/**
+	 * Write pending statistics. The chooser remains usable.
+	 */
+	@Override
+	public void dispose() {
+		flush();
+	}
+
+	@Override
+	public void warmUp() {
+		// The others are only a fallback
+		order()[0].chooser.warmUp();
+	}
+
+	@Override
+	public void warmUp(Array<FileHandle> directories) {
+		order()[0].chooser.warmUp(directories);
+	}
+
+	private synchronized Backend[] order() {
+		load();
+
+		// Fastest backend without too many errors first
+		Backend best = null;
+		for (Backend backend : backends) {
+			if (backend.isHealthy() && backend.latency >= 0f && (best == null || backend.latency < best.latency))
+				best = backend;
+		}
+
+		List<Backend> order = new ArrayList<>(backends.length);
+		if (best != null)
+			order.add(best);
+		for (Backend backend : backends) {
+			if (backend != best && backend.isHealthy())
+				order.add(backend);
+		}
+		for (Backend backend : backends) {
+			if (!backend.isHealthy())
+				order.add(backend);
+		}
+		return order.toArray(new Backend[order.size()]);
+	}
+
+	private void load() {
+		if (loaded)
+			return;
+		loaded = true;
+		if (preferencesName == null || Gdx.app == null)
+			return;
+		preferences = Gdx.app.getPreferences(preferencesName);
+		for (Backend backend : backends) {
+			backend.successes = preferences.getInteger(backend.key + ".successes", 0);
+			backend.errors = preferences.getInteger(backend.key + ".errors", 0);
+			backend.latency = preferences.getFloat(backend.key + ".latency", -1f);
+		}
+	}
+
+	private synchronized void record(Backend backend, boolean success, float latency) {
+		if (success)
+			backend.successes++;
+		else
+			backend.errors++;
+		if (backend.successes + backend.errors > HISTORY) {
+			backend.successes /= 2;
+			backend.errors /= 2;
+		}
+		if (latency >= 0f)
+			backend.latency = backend.latency < 0f ? latency : backend.latency + LATENCY_WEIGHT * (latency - backend.latency);
+
+		dirty = true;
+		scheduleWrite();
+	}
+
+	private void scheduleWrite() {
+		if (write != null || preferences == null)
+			return;
+		write = new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		};
+		NativeFileChooserUtils.timer().schedule(write, WRITE_DELAY);
+	}
+
+	/*
+	 * Tell whether given error comes from the backend itself, rather than
+	 * from the call (invalid configuration) or from what happened once the
+	 * dialog was closed (selection limits, copies). Backends unable to choose
+	 * folders say so with an IllegalArgumentException.
+	 */
+	private static boolean isBackendFailure(Kind kind, Throwable error) {
+		if (error instanceof IllegalArgumentException)
+			return kind == Kind.FOLDER;
+		return !(error instanceof IOException);
+	}
+
+	private static NativeChooserConfiguration copy(NativeChooserConfiguration configuration, ChooserMetrics metrics) {
+		NativeChooserConfiguration copy;
+		if (configuration instanceof NativeFileChooserConfiguration)
+			copy = NativeFileChooserUtils.copy((NativeFileChooserConfiguration) configuration);
+		else
+			copy = NativeFileChooserUtils.copy((NativeFolderChooserConfiguration) configuration);
+		copy.metrics = metrics;
+		return copy;
+	}
+
+	private enum Kind {
+		FILE, FILES, FOLDER
+	}
+
+	private static final class Backend {
+		final NativeFileChooser chooser;
+		final String key;
+
+		// Guarded by the composite
+		int successes;
+		int errors;
+		float latency = -1f; // Milliseconds, negative if unknown
+
+		// Reused as long as calls come with the same metrics, so that backends can cache filters
+		volatile Recorder recorder;
+
+		Backend(NativeFileChooser chooser, int position) {
+			this.chooser = chooser;
+			this.key = position + "." + chooser.getClass().getName();
+		}
+
+		boolean isHealthy() {
+			return errors <= successes;
+		}
+
+		Recorder recorder(ChooserMetrics metrics) {
+			Recorder result = recorder;
+			if (result == null || result.forward != metrics)
+				recorder = result = new Recorder(metrics);
+			return result;
+		}
+	}
+
+	/*
+	 * Metrics forwarding to the caller's own, keeping the latest dialog
+	 * latency.
+	 */
+	private static final class Recorder implements ChooserMetrics {
+		final ChooserMetrics forward;
+		volatile long lastLatency = -1L;
+
+		Recorder(ChooserMetrics forward) {
+			this.forward = forward;
+		}
+
+		@Override
+		public void onDialogOpened(long latency) {
+			lastLatency = latency;
+			if (forward != null)
+				forward.onDialogOpened(latency);
+		}
+
+		@Override
+		public void onDialogClosed(long duration) {
+			if (forward != null)
+				forward.onDialogClosed(duration);
+		}
+
+		@Override
+		public void onFilterEvaluated(long duration) {
+			if (forward != null)
+				forward.onFilterEvaluated(duration);
+		}
+
+		@Override
+		public void onMimeProbed(long duration) {
+			if (forward != null)
+				forward.onMimeProbed(duration);
+		}
+
+		@Override
+		public void onStreamCopied(long bytes, long duration) {
+			if (forward != null)
+				forward.onStreamCopied(bytes, duration);
+		}
+	}
+
+	private final class Call {
+
+		private final Kind kind;
+		private final NativeChooserConfiguration configuration;
+		private final NativeChooserCallback callback;
+		private final Backend[] order;
+
+		private int index = -1;
+
+		Call(Kind kind, NativeChooserConfiguration configuration, NativeChooserCallback callback) {
+			this.kind = kind;
+			this.configuration = configuration;
+			this.callback = callback;
+			this.order = order();
+		}
+
+		void next() {
+			index++;
+			final Backend backend = order[index];
+			final Recorder recorder = backend.recorder(configuration.metrics);
+			recorder.lastLatency = -1L;
+			NativeChooserConfiguration attempt = copy(configuration, recorder);
+			final AtomicBoolean done = new AtomicBoolean();
+
+			try {
+				switch (kind) {
+				case FILE:
+					backend.chooser.chooseFile((NativeFileChooserConfiguration) attempt, new NativeFileChooserCallback() {
+						@Override
+						public void onFileChosen(FileHandle file) {
+							if (succeeded(done, backend, recorder))
+								((NativeFileChooserCallback) callback).onFileChosen(file);
+						}
+
+						@Override
+						public void onCancellation() {
+							if (succeeded(done, backend, recorder))
+								callback.onCancellation();
+						}
+
+						@Override
+						public void onError(Exception exception) {
+							failed(done, backend, recorder, exception);
+						}
+					});
+					break;
+				case FILES:
+					backend.chooser.chooseFiles((NativeFileChooserConfiguration) attempt, new NativeFilesChooserCallback() {
+						@Override
+						public void onFilesChosen(Array<FileHandle> files) {
+							if (succeeded(done, backend, recorder))
+								((NativeFilesChooserCallback) callback).onFilesChosen(files);
+						}
+
+						@Override
+						public void onCancellation() {
+							if (succeeded(done, backend, recorder))
+								callback.onCancellation();
+						}
+
+						@Override
+						public void onError(Exception exception) {
+							failed(done, backend, recorder, exception);
+						}
+					});
+					break;
+				case FOLDER:
+					backend.chooser.chooseFolder((NativeFolderChooserConfiguration) attempt, new NativeFolderChooserCallback() {
+						@Override
+						public void onFolderChosen(FileHandle folder) {
+							if (succeeded(done, backend, recorder))
+								((NativeFolderChooserCallback) callback).onFolderChosen(folder);
+						}
+
+						@Override
+						public void onCancellation() {
+							if (succeeded(done, backend, recorder))
+								callback.onCancellation();
+						}
+
+						@Override
+						public void onError(Exception exception) {
+							failed(done, backend, recorder, exception);
+						}
+					});
+					break;
+				}
+			} catch (RuntimeException | LinkageError ex) {
+				// Thrown once the caller's callback got the result: that
+				// callback's own, or a later backend's, not this one's
+				if (done.get())
+					throw ex;
+				// Broken backend (missing natives...), same as an error
+				failed(done, backend, recorder, ex instanceof Exception ? (Exception) ex : new IllegalStateException(ex));
+			}
+		}
+
+		private boolean succeeded(AtomicBoolean done, Backend backend, Recorder recorder) {
+			if (!done.compareAndSet(false, true))
+				return false;
+			long latency = recorder.lastLatency;
+			record(backend, true, latency < 0L ? -1f : latency / 1000000f);
+			return true;
+		}
+
+		private void failed(AtomicBoolean done, Backend backend, Recorder recorder, Exception exception) {
+			if (!isBackendFailure(kind, exception)) {
+				// The backend did its job, another one would fail the same way
+				if (succeeded(done, backend, recorder))
+					callback.onError(exception);
+				return;
+			}
+			if (!done.compareAndSet(false, true))
+				return;
+			record(backend, false, -1f);
+			if (index + 1 < order.length)
+				next();
+			else
+				callback.onError(exception);
+		}
+	}
+}
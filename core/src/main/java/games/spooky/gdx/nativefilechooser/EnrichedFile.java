@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * A file along with its attributes and, if asked for, the digest of its
+ * content, as computed by {@link FileEnricher}.
+ *
+ * @see FileEnricher
+ *
+ * @author thorthur
+ *
+ */
+public final class EnrichedFile {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * The file itself.
+	 */
+	public final FileHandle file;
+
+	/**
+	 * The size of the file, in bytes.
+	 */
+	public final long size;
+
+	/**
+	 * The last modification time of the file, in milliseconds since the epoch.
+	 */
+	public final long lastModified;
+
+	/**
+	 * The digest of the file content, or null if none was asked for.
+	 */
+	public final byte[] digest;
+
+	public EnrichedFile(FileHandle file, long size, long lastModified, byte[] digest) {
+		super();
+		this.file = file;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.digest = digest;
+	}
+
+	/**
+	 * @return the digest of the file content as a lowercase hexadecimal
+	 *         string, or null if none was asked for
+	 */
+	public String digestHex() {
+		if (digest == null)
+			return null;
+		char[] chars = new char[digest.length * 2];
+		for (int i = 0; i < digest.length; i++) {
+			chars[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	@Override
+	public String toString() {
+		return file + " (" + size + " bytes" + (digest == null ? "" : ", " + digestHex()) + ")";
+	}
+}
@@ -0,0 +1,387 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Post-selection enrichment of chosen files: attributes and content digests
+ * are computed in parallel on a bounded pool of background threads, before
+ * results are handed over to a {@link FileEnrichmentCallback} on the
+ * rendering thread. Enrichments can be given up on through their
+ * {@link ChooserHandle}, stopping digests on the way.
+ *
+ * @see #enrich(Array, FileEnrichmentConfiguration, FileEnrichmentCallback)
+ * @see #chooseAndEnrich(NativeFileChooser, NativeFileChooserConfiguration, FileEnrichmentConfiguration, FileEnrichmentCallback)
+ *
+ * @author thorthur
+ *
+ */
+public class FileEnricher implements Disposable {
+
+	private final ExecutorService executor;
+	private final boolean ownExecutor;
+
+	// Shared by tasks rather than kept per thread, virtual threads being one per task
+	private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Initialize a new {@code FileEnricher} with its own pool of daemon
+	 * threads, as many as there are processors, or more of them and virtual
+	 * on Java 21+. Call {@link #dispose()} to release them.
+	 */
+	public FileEnricher() {
+		this(NativeFileChooserUtils.newDaemonThreadPool("FileEnricher", BackgroundThreads.ioParallelism()), true);
+	}
+
+	/**
+	 * Initialize a new {@code FileEnricher} hashing files on given executor.
+	 * The executor is left alone by {@link #dispose()}.
+	 *
+	 * @param executor
+	 *            Executor for hashing, must not be null
+	 */
+	public FileEnricher(ExecutorService executor) {
+		this(executor, false);
+	}
+
+	private FileEnricher(ExecutorService executor, boolean ownExecutor) {
+		super();
+		NativeFileChooserUtils.checkNotNull(executor, "executor");
+		this.executor = executor;
+		this.ownExecutor = ownExecutor;
+	}
+
+	/**
+	 * Enrich given files. This operation is asynchronous.
+	 *
+	 * @param files
+	 *            Files to enrich, must not be null
+	 * @param configuration
+	 *            Enrichment configuration, must not be null
+	 * @param callback
+	 *            Enrichment asynchronous callback, must not be null
+	 * @return a handle to cancel the enrichment
+	 */
+	public ChooserHandle enrich(Array<FileHandle> files, FileEnrichmentConfiguration configuration, FileEnrichmentCallback callback) {
+		return enrich(files, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Enrich given files under control of given handle. This operation is
+	 * asynchronous.
+	 *
+	 * @param files
+	 *            Files to enrich, must not be null
+	 * @param configuration
+	 *            Enrichment configuration, must not be null
+	 * @param callback
+	 *            Enrichment asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the enrichment, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle enrich(Array<FileHandle> files, FileEnrichmentConfiguration configuration, FileEnrichmentCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(files, "files");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		start(files, configuration, callback, handle);
+		return handle;
+	}
+
+	private void start(Array<FileHandle> files, FileEnrichmentConfiguration configuration, FileEnrichmentCallback callback, ChooserHandle handle) {
+		// Fail early on unknown algorithms
+		if (configuration.digestAlgorithm != null) {
+			try {
+				createDigest(configuration.digestAlgorithm);
+			} catch (NoSuchAlgorithmException ex) {
+				if (handle.complete())
+					callback.onError(ex);
+				return;
+			}
+		}
+
+		new Enrichment(files, configuration, callback, handle).start();
+	}
+
+	/**
+	 * Let the user choose files with given {@link NativeFileChooser}, then
+	 * enrich them before calling back. Cancellation and errors of the chooser
+	 * are forwarded to the callback.
+	 *
+	 * @param chooser
+	 *            Chooser for the files, must not be null
+	 * @param fileConfiguration
+	 *            File choosing configuration, must not be null
+	 * @param configuration
+	 *            Enrichment configuration, must not be null
+	 * @param callback
+	 *            Enrichment asynchronous callback, must not be null
+	 * @return a handle to cancel both choice and enrichment
+	 */
+	public ChooserHandle chooseAndEnrich(NativeFileChooser chooser, NativeFileChooserConfiguration fileConfiguration,
+			FileEnrichmentConfiguration configuration, FileEnrichmentCallback callback) {
+		return chooseAndEnrich(chooser, fileConfiguration, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Same as
+	 * {@link #chooseAndEnrich(NativeFileChooser, NativeFileChooserConfiguration, FileEnrichmentConfiguration, FileEnrichmentCallback)},
+	 * under control of given handle (and its timeout, if any).
+	 *
+	 * @param chooser
+	 *            Chooser for the files, must not be null
+	 * @param fileConfiguration
+	 *            File choosing configuration, must not be null
+	 * @param configuration
+	 *            Enrichment configuration, must not be null
+	 * @param callback
+	 *            Enrichment asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of both choice and enrichment, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle chooseAndEnrich(NativeFileChooser chooser, NativeFileChooserConfiguration fileConfiguration,
+			final FileEnrichmentConfiguration configuration, final FileEnrichmentCallback callback, final ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		final ChooserHandle choice = new ChooserHandle();
+		handle.addCancellationListener(new Runnable() {
+			@Override
+			public void run() {
+				choice.cancel();
+			}
+		});
+
+		NativeFileChooserUtils.chooseFiles(chooser, fileConfiguration, new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				start(files, configuration, callback, handle);
+			}
+
+			@Override
+			public void onCancellation() {
+				// Cancellation of the handle itself is notified already
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		}, choice);
+		return handle;
+	}
+
+	@Override
+	public void dispose() {
+		if (ownExecutor)
+			executor.shutdownNow();
+	}
+
+	private EnrichedFile enrich(FileHandle handle, FileEnrichmentConfiguration configuration, AtomicBoolean stop) throws IOException, NoSuchAlgorithmException {
+		File file = handle.file();
+		long size = file.length();
+		long lastModified = file.lastModified();
+		if (configuration.digestAlgorithm == null)
+			return new EnrichedFile(handle, size, lastModified, null);
+
+		Digest digest = createDigest(configuration.digestAlgorithm);
+		ByteBuffer buffer = buffer(configuration.bufferSize);
+		try {
+			FileInputStream input = new FileInputStream(file);
+			try {
+				FileChannel channel = input.getChannel();
+				for (int n = channel.read(buffer); n >= 0; n = channel.read(buffer)) {
+					if (stop.get())
+						throw new CancellationException();
+					digest.update(buffer.array(), buffer.arrayOffset(), buffer.position());
+					buffer.clear();
+				}
+			} finally {
+				input.close();
+			}
+		} finally {
+			buffers.offer(buffer);
+		}
+		return new EnrichedFile(handle, size, lastModified, digest.digest());
+	}
+
+	private ByteBuffer buffer(int size) {
+		// As many buffers as files hashed at once, whatever the number of files
+		size = Math.max(size, 4096);
+		ByteBuffer buffer = buffers.poll();
+		if (buffer == null || buffer.capacity() < size)
+			buffer = ByteBuffer.allocate(size);
+		buffer.clear();
+		return buffer;
+	}
+
+	private static Digest createDigest(String algorithm) throws NoSuchAlgorithmException {
+		if (FileEnrichmentConfiguration.CRC32.equalsIgnoreCase(algorithm)) {
+			final CRC32 crc = new CRC32();
+			return new Digest() {
+				@Override
+				public void update(byte[] bytes, int offset, int length) {
+					crc.update(bytes, offset, length);
+				}
+
+				@Override
+				public byte[] digest() {
+					long value = crc.getValue();
+					return new byte[] { (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value };
+				}
+			};
+		}
+
+		final MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+		return new Digest() {
+			@Override
+			public void update(byte[] bytes, int offset, int length) {
+				messageDigest.update(bytes, offset, length);
+			}
+
+			@Override
+			public byte[] digest() {
+				return messageDigest.digest();
+			}
+		};
+	}
+
+	private interface Digest {
+		void update(byte[] bytes, int offset, int length);
+
+		byte[] digest();
+	}
+
+	private final class Enrichment {
+
+		private final FileHandle[] files;
+		private final EnrichedFile[] results;
+		private final FileEnrichmentConfiguration configuration;
+		private final FileEnrichmentCallback callback;
+		private final ChooserHandle handle;
+
+		private final AtomicInteger pending;
+		private final AtomicBoolean finished = new AtomicBoolean();
+
+		Enrichment(Array<FileHandle> files, FileEnrichmentConfiguration configuration, FileEnrichmentCallback callback, ChooserHandle handle) {
+			// Callers may reuse their array once we return
+			this.files = files.toArray(FileHandle.class);
+			this.results = new EnrichedFile[files.size];
+			this.configuration = configuration;
+			this.callback = callback;
+			this.handle = handle;
+			this.pending = new AtomicInteger(files.size);
+		}
+
+		void start() {
+			handle.addCancellationListener(new Runnable() {
+				@Override
+				public void run() {
+					// Stop hashing, callback is notified by the handle
+					finished.set(true);
+				}
+			});
+			if (files.length == 0) {
+				complete();
+				return;
+			}
+			for (int i = 0; i < files.length; i++) {
+				final int index = i;
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							if (finished.get())
+								return;
+							try {
+								results[index] = enrich(files[index], configuration, finished);
+							} catch (Exception ex) {
+								fail(ex);
+								return;
+							}
+							if (pending.decrementAndGet() == 0)
+								complete();
+						}
+					});
+				} catch (Exception ex) {
+					fail(ex);
+					return;
+				}
+			}
+		}
+
+		private void complete() {
+			if (finished.compareAndSet(false, true) && handle.complete()) {
+				final Array<EnrichedFile> enriched = new Array<>(results);
+				NativeFileChooserUtils.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onFilesEnriched(enriched);
+					}
+				});
+			}
+		}
+
+		private void fail(final Exception exception) {
+			if (finished.compareAndSet(false, true) && handle.complete()) {
+				NativeFileChooserUtils.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onError(exception);
+					}
+				});
+			}
+		}
+	}
+}
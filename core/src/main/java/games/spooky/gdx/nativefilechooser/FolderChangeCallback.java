@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Callback interface for live changes of a watched folder, as provided by
+ * desktop backends' {@code FolderWatcher}.
+ *
+ * <p>
+ * Bursts of file system events are coalesced, so that each call describes the
+ * net effect of the burst. Methods are called on the rendering thread of the
+ * libGDX application.
+ *
+ * @author thorthur
+ *
+ */
+public interface FolderChangeCallback {
+
+	/**
+	 * Handle a batch of changes in the watched folder or its subfolders.
+	 * Arrays are never null but may be empty, and are yours to keep.
+	 *
+	 * @param added
+	 *            Files created since last batch (including the content of
+	 *            created folders)
+	 * @param modified
+	 *            Files modified since last batch
+	 * @param deleted
+	 *            Files or folders deleted since last batch
+	 */
+	void onFilesChanged(Array<FileHandle> added, Array<FileHandle> modified, Array<FileHandle> deleted);
+
+	/**
+	 * Handle a full rescan of the watched folder, which happens when too many
+	 * changes occurred for them to be tracked one by one. Given files
+	 * supersede any previously known content.
+	 *
+	 * @param files
+	 *            All files currently in the watched folder and its subfolders
+	 */
+	void onFolderRescanned(Array<FileHandle> files);
+
+	/**
+	 * Handle exception thrown while watching the folder. Watching stops.
+	 *
+	 * @param exception
+	 *            Exception thrown while watching
+	 */
+	void onError(Exception exception);
+
+}
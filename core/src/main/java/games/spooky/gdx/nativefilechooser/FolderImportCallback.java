@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * The {@link FolderImporter} callback interface. Imported files are streamed
+ * by batches as the walk goes.
+ *
+ * <p>
+ * Methods are called on the rendering thread of the libGDX application.
+ *
+ * @see FolderImporter
+ *
+ * @author thorthur
+ *
+ */
+public interface FolderImportCallback extends NativeChooserCallback {
+
+	/**
+	 * Handle a batch of imported files. Files of a batch all come from the
+	 * same folder, batches come in no particular order.
+	 *
+	 * @param files
+	 *            Imported files, the array is yours to keep
+	 */
+	void onFilesImported(Array<FileHandle> files);
+
+	/**
+	 * Handle the end of the import, after the last batch of files.
+	 *
+	 * @param count
+	 *            Total number of files imported
+	 */
+	void onImportCompleted(int count);
+
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * The configuration class for a call to
+ * {@link FolderImporter#importFolder(com.badlogic.gdx.files.FileHandle, FolderImportConfiguration, FolderImportCallback)}
+ * .
+ *
+ * <p>
+ * {@link #mimeFilter} and {@link #nameFilter} apply to every file met during
+ * the walk, folders are not filtered. MIME types are probed as desktop
+ * choosers do (see
+ * {@link NativeFileChooserUtils#probeMimeType(java.io.File, ChooserMetrics)}),
+ * but unlike choosers, which accept them, files of unknown type do not match
+ * a MIME filter. Probe durations are
+ * reported to {@link #metrics}. {@link #directory}, {@link #title},
+ * {@link #intent} and selection limits are ignored, {@link #maxCount} bounds
+ * the import.
+ *
+ * <p>
+ * Any instance of this is to be considered a plain-old Java object (POJO) and
+ * manipulated at will, code in this very library will never modify the content
+ * of such instance.
+ *
+ * @see FolderImporter
+ * @see FolderImportCallback
+ *
+ * @author thorthur
+ *
+ */
+public class FolderImportConfiguration extends NativeFileChooserConfiguration {
+
+	/**
+	 * Maximum depth of the walk, 1 meaning only files directly in the folder.
+	 */
+	public int maxDepth = Integer.MAX_VALUE;
+
+	/**
+	 * Maximum number of files to import. The walk stops once reached.
+	 */
+	public int maxCount = Integer.MAX_VALUE;
+
+	/**
+	 * What to do with symbolic links. Defaults to
+	 * {@link SymbolicLinkPolicy#INCLUDE}.
+	 */
+	public SymbolicLinkPolicy symbolicLinks = SymbolicLinkPolicy.INCLUDE;
+
+}
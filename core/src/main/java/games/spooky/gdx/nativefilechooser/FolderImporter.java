@@ -0,0 +1,389 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Recursive import of the content of a folder, typically one chosen through
+ * {@link NativeFileChooser#chooseFolder(NativeFolderChooserConfiguration, NativeFolderChooserCallback)}.
+ *
+ * <p>
+ * Folders are walked in parallel on a pool of background threads, filters of
+ * the {@link FolderImportConfiguration} being applied along the way, and
+ * matching files are streamed by batches to a {@link FolderImportCallback} on
+ * the rendering thread. Imports can be given up on through their
+ * {@link ChooserHandle}, stopping walks on the way.
+ *
+ * @see #importFolder(FileHandle, FolderImportConfiguration, FolderImportCallback)
+ * @see #chooseAndImport(NativeFileChooser, NativeFolderChooserConfiguration, FolderImportConfiguration, FolderImportCallback)
+ *
+ * @author thorthur
+ *
+ */
+public class FolderImporter implements Disposable {
+
+	private final ExecutorService executor;
+	private final boolean ownExecutor;
+
+	/**
+	 * Initialize a new {@code FolderImporter} with its own pool of daemon
+	 * threads, as many as there are processors, or more of them and virtual
+	 * on Java 21+. Call {@link #dispose()} to release them.
+	 */
+	public FolderImporter() {
+		this(NativeFileChooserUtils.newDaemonThreadPool("FolderImporter", BackgroundThreads.ioParallelism()), true);
+	}
+
+	/**
+	 * Initialize a new {@code FolderImporter} walking folders on given
+	 * executor. The executor is left alone by {@link #dispose()}.
+	 *
+	 * @param executor
+	 *            Executor for folder walks, must not be null
+	 */
+	public FolderImporter(ExecutorService executor) {
+		this(executor, false);
+	}
+
+	private FolderImporter(ExecutorService executor, boolean ownExecutor) {
+		super();
+		NativeFileChooserUtils.checkNotNull(executor, "executor");
+		this.executor = executor;
+		this.ownExecutor = ownExecutor;
+	}
+
+	/**
+	 * Walk given folder and its subfolders, importing files matching given
+	 * configuration. This operation is asynchronous.
+	 *
+	 * @param folder
+	 *            Folder to import, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @return a handle to cancel the import
+	 */
+	public ChooserHandle importFolder(FileHandle folder, FolderImportConfiguration configuration, FolderImportCallback callback) {
+		return importFolder(folder, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Walk given folder and its subfolders under control of given handle.
+	 * This operation is asynchronous.
+	 *
+	 * @param folder
+	 *            Folder to import, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the import, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle importFolder(FileHandle folder, FolderImportConfiguration configuration, FolderImportCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(folder, "folder");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		new Walk(configuration, callback, handle).start(folder.file());
+		return handle;
+	}
+
+	/**
+	 * Let the user choose a folder with given {@link NativeFileChooser}, then
+	 * import it. Cancellation and errors of the chooser are forwarded to the
+	 * callback.
+	 *
+	 * @param chooser
+	 *            Chooser for the folder, must not be null
+	 * @param folderConfiguration
+	 *            Folder choosing configuration, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @return a handle to cancel both choice and import
+	 */
+	public ChooserHandle chooseAndImport(NativeFileChooser chooser, NativeFolderChooserConfiguration folderConfiguration,
+			FolderImportConfiguration configuration, FolderImportCallback callback) {
+		return chooseAndImport(chooser, folderConfiguration, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Same as
+	 * {@link #chooseAndImport(NativeFileChooser, NativeFolderChooserConfiguration, FolderImportConfiguration, FolderImportCallback)},
+	 * under control of given handle (and its timeout, if any).
+	 *
+	 * @param chooser
+	 *            Chooser for the folder, must not be null
+	 * @param folderConfiguration
+	 *            Folder choosing configuration, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of both choice and import, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle chooseAndImport(NativeFileChooser chooser, NativeFolderChooserConfiguration folderConfiguration,
+			final FolderImportConfiguration configuration, final FolderImportCallback callback, final ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		final ChooserHandle choice = new ChooserHandle();
+		handle.addCancellationListener(new Runnable() {
+			@Override
+			public void run() {
+				choice.cancel();
+			}
+		});
+
+		NativeFileChooserUtils.chooseFolder(chooser, folderConfiguration, new NativeFolderChooserCallback() {
+			@Override
+			public void onFolderChosen(FileHandle folder) {
+				new Walk(configuration, callback, handle).start(folder.file());
+			}
+
+			@Override
+			public void onCancellation() {
+				// Cancellation of the handle itself is notified already
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		}, choice);
+		return handle;
+	}
+
+	@Override
+	public void dispose() {
+		if (ownExecutor)
+			executor.shutdownNow();
+	}
+
+	static FilenameFilter createFilter(FolderImportConfiguration configuration) {
+		final Pattern mimePattern = configuration.mimeFilter == null ? null : NativeFileChooserUtils.mimePattern(configuration.mimeFilter);
+		final FilenameFilter nameFilter = configuration.nameFilter;
+		final ChooserMetrics metrics = configuration.metrics;
+		if (mimePattern == null && nameFilter == null)
+			return null;
+
+		return new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				// Cheap name filter first, probing may read the file
+				if (nameFilter != null && !nameFilter.accept(dir, name))
+					return false;
+				if (mimePattern == null)
+					return true;
+				try {
+					// Unlike choosers, files of unknown type do not match: an import takes
+					// whole folders in, a user does not review every file
+					String mime = NativeFileChooserUtils.probeMimeType(new File(dir, name), metrics);
+					return mime != null && mimePattern.matcher(mime).matches();
+				} catch (IOException ex) {
+					return false;
+				}
+			}
+		};
+	}
+
+	private static boolean isSymbolicLink(File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent == null)
+			return false;
+		File candidate = new File(parent.getCanonicalFile(), file.getName());
+		return !candidate.getCanonicalFile().equals(candidate.getAbsoluteFile());
+	}
+
+	private final class Walk {
+
+		private final FolderImportConfiguration configuration;
+		private final FolderImportCallback callback;
+		private final ChooserHandle handle;
+		private final FilenameFilter filter;
+
+		private final AtomicInteger pending = new AtomicInteger();
+		private final AtomicInteger count = new AtomicInteger();
+		private final AtomicBoolean finished = new AtomicBoolean();
+		// Set once maxCount files are imported, the walk then winds down
+		private final AtomicBoolean full = new AtomicBoolean();
+		private final Set<String> visited = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		Walk(FolderImportConfiguration configuration, FolderImportCallback callback, ChooserHandle handle) {
+			this.configuration = configuration;
+			this.callback = callback;
+			this.handle = handle;
+			this.filter = createFilter(configuration);
+		}
+
+		void start(File root) {
+			handle.addCancellationListener(new Runnable() {
+				@Override
+				public void run() {
+					// Stop walking, callback is notified by the handle
+					finished.set(true);
+				}
+			});
+			try {
+				visited.add(root.getCanonicalPath());
+			} catch (IOException ex) {
+				fail(ex);
+				return;
+			}
+			submit(root, 1);
+		}
+
+		private void submit(final File directory, final int depth) {
+			if (full.get())
+				return;
+			pending.incrementAndGet();
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							visit(directory, depth);
+						} catch (Exception ex) {
+							fail(ex);
+						} finally {
+							if (pending.decrementAndGet() == 0)
+								complete();
+						}
+					}
+				});
+			} catch (Exception ex) {
+				pending.decrementAndGet();
+				fail(ex);
+			}
+		}
+
+		private void visit(File directory, int depth) throws IOException {
+			if (finished.get() || full.get())
+				return;
+
+			File[] children = directory.listFiles();
+			if (children == null)
+				return; // Unreadable, skip it
+
+			SymbolicLinkPolicy links = configuration.symbolicLinks == null ? SymbolicLinkPolicy.INCLUDE : configuration.symbolicLinks;
+			Array<FileHandle> files = new Array<>();
+			for (File child : children) {
+				if (finished.get())
+					return;
+				if (full.get())
+					break; // Deliver what was counted already
+
+				if (child.isDirectory()) {
+					if (depth >= configuration.maxDepth)
+						continue;
+					if (links != SymbolicLinkPolicy.FOLLOW && isSymbolicLink(child))
+						continue;
+					if (visited.add(child.getCanonicalPath()))
+						submit(child, depth + 1);
+				} else if (filter == null || filter.accept(directory, child.getName())) {
+					if (links == SymbolicLinkPolicy.SKIP && isSymbolicLink(child))
+						continue;
+					int imported = count.incrementAndGet();
+					if (imported > configuration.maxCount) {
+						// Enough, stop everything
+						count.decrementAndGet();
+						full.set(true);
+						break;
+					}
+					files.add(new FileHandle(child));
+					if (imported == configuration.maxCount)
+						full.set(true);
+				}
+			}
+
+			if (files.size > 0)
+				deliver(files);
+		}
+
+		private void deliver(final Array<FileHandle> files) {
+			if (finished.get())
+				return;
+			NativeFileChooserUtils.post(new Runnable() {
+				@Override
+				public void run() {
+					if (!handle.isCancelled())
+						callback.onFilesImported(files);
+				}
+			});
+		}
+
+		private void complete() {
+			if (finished.compareAndSet(false, true) && handle.complete()) {
+				final int total = count.get();
+				NativeFileChooserUtils.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onImportCompleted(total);
+					}
+				});
+			}
+		}
+
+		private void fail(final Exception exception) {
+			if (finished.compareAndSet(false, true) && handle.complete()) {
+				NativeFileChooserUtils.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onError(exception);
+					}
+				});
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * {@link NativeFileChooser} proxy resolving its actual backend on first use.
+ * Optional capabilities of the backend ({@link NativeCancellableChooser},
+ * {@link NativeSelectionChooser}, {@link NativeFoldersChooser},
+ * {@link NativePathSetChooser}) are forwarded when it has them, emulated
+ * otherwise.
+ *
+ * @see NativeFileChooserLoader
+ */
+final class LazyFileChooser implements NativeCancellableChooser, NativeSelectionChooser, NativeFoldersChooser, NativePathSetChooser {
+
+	private final ClassLoader classLoader;
+	private final String preferredName;
+
+	private volatile NativeFileChooser delegate;
+
+	LazyFileChooser(ClassLoader classLoader, String preferredName) {
+		this.classLoader = classLoader;
+		this.preferredName = preferredName;
+	}
+
+	NativeFileChooser delegate() {
+		NativeFileChooser result = delegate;
+		if (result == null) {
+			synchronized (this) {
+				result = delegate;
+				if (result == null)
+					delegate = result = NativeFileChooserLoader.create(classLoader, preferredName);
+			}
+		}
+		return result;
+	}
+
+	private NativeFileChooser delegate(NativeChooserCallback callback) {
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		try {
+			return delegate();
+		} catch (IllegalStateException ex) {
+			callback.onError(ex);
+			return null;
+		}
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser != null)
+			chooser.chooseFile(configuration, callback);
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFile(configuration, callback, handle);
+		else if (chooser != null)
+			chooser.chooseFile(configuration, callback);
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser != null)
+			chooser.chooseFiles(configuration, callback);
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFiles(configuration, callback, handle);
+		else if (chooser != null)
+			chooser.chooseFiles(configuration, callback);
+	}
+
+	@Override
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser != null)
+			NativeFileChooserUtils.chooseEntries(chooser, configuration, callback);
+	}
+
+	@Override
+	public void choosePaths(NativeFileChooserConfiguration configuration, NativePathSetCallback callback) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser != null)
+			NativeFileChooserUtils.choosePaths(chooser, configuration, callback);
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser != null)
+			chooser.chooseFolder(configuration, callback);
+	}
+
+	@Override
+	public void chooseFolders(NativeFolderChooserConfiguration configuration, NativeFoldersChooserCallback callback) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser != null)
+			NativeFileChooserUtils.chooseFolders(chooser, configuration, callback);
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooser chooser = delegate(callback);
+		if (chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFolder(configuration, callback, handle);
+		else if (chooser != null)
+			chooser.chooseFolder(configuration, callback);
+	}
+
+	@Override
+	public void warmUp() {
+		if (delegate != null) {
+			delegate.warmUp();
+			return;
+		}
+		// Load the backend itself in the background, then let it warm up
+		NativeFileChooserUtils.warmUpInBackground("NativeFileChooserLoader", new Runnable() {
+			@Override
+			public void run() {
+				delegate().warmUp();
+			}
+		});
+	}
+
+	@Override
+	public void warmUp(Array<FileHandle> directories) {
+		if (delegate != null) {
+			delegate.warmUp(directories);
+			return;
+		}
+		final Array<FileHandle> copy = new Array<>(directories);
+		NativeFileChooserUtils.warmUpInBackground("NativeFileChooserLoader", new Runnable() {
+			@Override
+			public void run() {
+				delegate().warmUp(copy);
+			}
+		});
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * Optional interface of {@link NativeFileChooser} implementations able to
+ * stop their work when the call is cancelled through a {@link ChooserHandle}:
+ * closing their dialog if possible, interrupting file copies or folder
+ * enumerations.
+ *
+ * <p>
+ * Do not call these methods directly, use
+ * {@link NativeFileChooserUtils#chooseFile(NativeFileChooser, NativeFileChooserConfiguration, NativeFileChooserCallback)}
+ * and its siblings instead, which work with any chooser and take care of
+ * calling back exactly once.
+ *
+ * @see ChooserHandle
+ *
+ * @author thorthur
+ *
+ */
+public interface NativeCancellableChooser extends NativeFileChooser {
+
+	/**
+	 * Same as
+	 * {@link NativeFileChooser#chooseFile(NativeFileChooserConfiguration, NativeFileChooserCallback)},
+	 * stopping as soon as given handle is cancelled.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            File choosing asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 */
+	void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, ChooserHandle handle);
+
+	/**
+	 * Same as
+	 * {@link NativeFileChooser#chooseFiles(NativeFileChooserConfiguration, NativeFilesChooserCallback)},
+	 * stopping as soon as given handle is cancelled.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            Files choosing asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 */
+	void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, ChooserHandle handle);
+
+	/**
+	 * Same as
+	 * {@link NativeFileChooser#chooseFolder(NativeFolderChooserConfiguration, NativeFolderChooserCallback)},
+	 * stopping as soon as given handle is cancelled.
+	 *
+	 * @param configuration
+	 *            Folder choosing configuration, must not be null
+	 * @param callback
+	 *            Folder choosing asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 */
+	void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, ChooserHandle handle);
+
+}
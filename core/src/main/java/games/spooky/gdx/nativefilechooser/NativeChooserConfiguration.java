@@ -53,4 +53,13 @@ public abstract class NativeChooserConfiguration {
 	 */
 	public String title;
 
+	/**
+	 * Listener for performance metrics of the file chooser call, like dialog
+	 * latency or filtering cost.
+	 *
+	 * <p>
+	 * If null (default value), no metrics are measured at all.
+	 */
+	public ChooserMetrics metrics;
+
 }
@@ -23,6 +23,9 @@
  */
 package games.spooky.gdx.nativefilechooser;
 
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
 /**
  * The {@code NativeFileChooser} interface. Put this one into your core project,
  * let it sink through via the initialization code in your platform-specific
@@ -111,4 +114,32 @@ public interface NativeFileChooser {
 	 */
 	void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback);
 
+	/**
+	 * Get ready for the first dialog by initializing expensive machinery
+	 * (toolkits, native libraries, MIME databases) ahead of time, typically
+	 * during a loading screen. This method returns immediately, the work being
+	 * done on a background thread, and may safely be called more than once.
+	 *
+	 * <p>
+	 * The default implementation does nothing.
+	 */
+	default void warmUp() {
+	}
+
+	/**
+	 * Same as {@link #warmUp()}, also getting ready to open dialogs in given
+	 * directories, typically recently used ones (see
+	 * {@link RecentLocations#recent()}): listing them, probing their files
+	 * for MIME types, depending on implementations.
+	 *
+	 * <p>
+	 * The default implementation calls {@link #warmUp()}.
+	 *
+	 * @param directories
+	 *            Directories to get ready for, must not be null
+	 */
+	default void warmUp(Array<FileHandle> directories) {
+		warmUp();
+	}
+
 }
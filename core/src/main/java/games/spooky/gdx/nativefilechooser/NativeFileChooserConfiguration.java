@@ -90,4 +90,32 @@ public class NativeFileChooserConfiguration extends NativeChooserConfiguration {
 	 */
 	public NativeFileChooserIntent intent;
 
+	/**
+	 * Maximum number of chosen files, zero (default) for no limit.
+	 *
+	 * <p>
+	 * Selection limits are enforced by choosers as soon as they know the
+	 * selection, before copying or reading anything: going beyond any of them
+	 * fails the call with a {@link SelectionLimitException}. They do not apply
+	 * to the {@link NativeFileChooserIntent#SAVE} intent.
+	 *
+	 * @see SelectionLimits
+	 */
+	public int maxFiles;
+
+	/**
+	 * Maximum size of each chosen file in bytes, zero (default) for no limit.
+	 *
+	 * @see #maxFiles
+	 */
+	public long maxFileBytes;
+
+	/**
+	 * Maximum size of all chosen files together in bytes, zero (default) for
+	 * no limit.
+	 *
+	 * @see #maxFiles
+	 */
+	public long maxTotalBytes;
+
 }
@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.Gdx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Discovery of {@link NativeFileChooser} backends on the class path, through
+ * the {@link NativeFileChooserProvider} service provider interface.
+ *
+ * <p>
+ * Instead of creating a backend chooser in the launcher, which loads its
+ * whole toolkit at startup, get a lightweight proxy from {@link #load()}:
+ * the backend is only looked up, loaded and linked on the first call of the
+ * proxy (or on {@link NativeFileChooser#warmUp()}, on a background thread).
+ * Sessions that never open a dialog never load any chooser code.
+ *
+ * <p>
+ * If no backend is available, calls of the proxy fail with an
+ * {@link IllegalStateException} passed to the callback.
+ *
+ * @author thorthur
+ *
+ */
+public final class NativeFileChooserLoader {
+
+	private NativeFileChooserLoader() {
+	}
+
+	/**
+	 * Get a chooser backed by the available provider of highest priority,
+	 * found with the context class loader of the calling thread.
+	 *
+	 * @return a lazy chooser
+	 */
+	public static NativeFileChooser load() {
+		return load(null);
+	}
+
+	/**
+	 * Get a chooser backed by the provider of given name if available, by the
+	 * available provider of highest priority otherwise.
+	 *
+	 * @param preferredName
+	 *            Name of the preferred provider (eg. "Swing"), may be null
+	 * @return a lazy chooser
+	 */
+	public static NativeFileChooser load(String preferredName) {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if (classLoader == null)
+			classLoader = NativeFileChooserLoader.class.getClassLoader();
+		return new LazyFileChooser(classLoader, preferredName);
+	}
+
+	/**
+	 * Discover providers and create a chooser with the first one able to.
+	 */
+	static NativeFileChooser create(ClassLoader classLoader, final String preferredName) {
+		List<NativeFileChooserProvider> providers = new ArrayList<>();
+		Iterator<NativeFileChooserProvider> iterator = ServiceLoader.load(NativeFileChooserProvider.class, classLoader).iterator();
+		ServiceConfigurationError error = null;
+		while (true) {
+			try {
+				if (!iterator.hasNext())
+					break;
+				providers.add(iterator.next());
+				error = null;
+			} catch (ServiceConfigurationError ex) {
+				if (error != null) {
+					// Failing again, the iterator may be stuck on it: keep what was found
+					if (Gdx.app != null)
+						Gdx.app.error(NativeFileChooserLoader.class.getSimpleName(), "Giving up on provider discovery", ex);
+					break;
+				}
+				// Broken registration, try the others
+				error = ex;
+			}
+		}
+
+		Collections.sort(providers, new Comparator<NativeFileChooserProvider>() {
+			@Override
+			public int compare(NativeFileChooserProvider a, NativeFileChooserProvider b) {
+				boolean preferA = a.getName().equalsIgnoreCase(preferredName);
+				boolean preferB = b.getName().equalsIgnoreCase(preferredName);
+				if (preferA != preferB)
+					return preferA ? -1 : 1;
+				return a.getPriority() > b.getPriority() ? -1 : a.getPriority() == b.getPriority() ? 0 : 1;
+			}
+		});
+
+		Throwable failure = error;
+		for (NativeFileChooserProvider provider : providers) {
+			try {
+				if (provider.isAvailable())
+					return provider.create();
+			} catch (RuntimeException | LinkageError ex) {
+				// Missing classes or natives, next!
+				failure = ex;
+			}
+		}
+		throw new IllegalStateException("No NativeFileChooser backend available, " + providers.size() + " found", failure);
+	}
+}
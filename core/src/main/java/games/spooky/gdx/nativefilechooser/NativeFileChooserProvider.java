@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * Service provider interface of {@link NativeFileChooser} backends,
+ * discovered by {@link NativeFileChooserLoader} through
+ * {@link java.util.ServiceLoader}.
+ *
+ * <p>
+ * Backend modules register their providers in
+ * {@code META-INF/services/games.spooky.gdx.nativefilechooser.NativeFileChooserProvider}.
+ * Providers are instantiated during discovery: they must be public, have a
+ * public no-argument constructor and stay lightweight, only touching backend
+ * classes in {@link #create()}.
+ *
+ * @author thorthur
+ *
+ */
+public interface NativeFileChooserProvider {
+
+	/**
+	 * @return a short name for the backend (eg. "Swing"), to ask for it
+	 *         explicitly
+	 */
+	String getName();
+
+	/**
+	 * @return priority of the backend among available ones, higher first
+	 */
+	int getPriority();
+
+	/**
+	 * Tell whether the backend can work in the current environment. This
+	 * method is called right before {@link #create()}, on first use of the
+	 * chooser.
+	 *
+	 * @return true if the backend may be created
+	 */
+	boolean isAvailable();
+
+	/**
+	 * Create the actual chooser, loading backend classes (and natives) on the
+	 * way. Throwing an exception or a {@link LinkageError} lets the next
+	 * available provider have a go.
+	 *
+	 * @return a new chooser, never null
+	 */
+	NativeFileChooser create();
+
+}
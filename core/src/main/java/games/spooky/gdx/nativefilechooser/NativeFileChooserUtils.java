@@ -23,6 +23,23 @@
  */
 package games.spooky.gdx.nativefilechooser;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.util.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
@@ -33,6 +50,14 @@ import java.util.regex.Pattern;
  */
 public final class NativeFileChooserUtils {
 
+	private static final int MIME_PATTERN_CACHE_SIZE = 32;
+
+	private static final ConcurrentMap<String, Pattern> mimePatterns = new ConcurrentHashMap<>();
+
+	private static Timer timer;
+
+	private static ExecutorService poster;
+
 	private NativeFileChooserUtils() {
 	}
 
@@ -47,6 +72,573 @@ public final class NativeFileChooserUtils {
 	}
 
 	public static Pattern mimePattern(String mimeType) {
-		return Pattern.compile(mimeType.replaceAll("/", "\\\\/").replace("*", ".*"));
+		// Applications keep asking for the same few filters
+		Pattern pattern = mimePatterns.get(mimeType);
+		if (pattern == null) {
+			pattern = Pattern.compile(mimeType.replaceAll("/", "\\\\/").replace("*", ".*"));
+			if (mimePatterns.size() >= MIME_PATTERN_CACHE_SIZE)
+				mimePatterns.clear();
+			mimePatterns.put(mimeType, pattern);
+		}
+		return pattern;
+	}
+
+	/**
+	 * Probe the MIME type of given file, as desktop choosers do when filtering
+	 * on {@link NativeFileChooserConfiguration#mimeFilter}. The platform's
+	 * file type detectors are asked first, then the type is guessed from the
+	 * file name.
+	 *
+	 * @param file
+	 *            File to probe
+	 * @param metrics
+	 *            Metrics told about the probe duration, or null
+	 * @return the MIME type, or null if unknown
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static String probeMimeType(File file, ChooserMetrics metrics) throws IOException {
+		long start = metrics == null ? 0L : System.nanoTime();
+		String mime;
+		try {
+			mime = Files.probeContentType(file.toPath());
+		} catch (LinkageError ex) {
+			// No java.nio.file (Android before 8)
+			mime = null;
+		}
+		if (mime == null)
+			mime = URLConnection.guessContentTypeFromName(file.getName());
+		if (metrics != null)
+			metrics.onMimeProbed(System.nanoTime() - start);
+		return mime;
+	}
+
+	/**
+	 * Copy whatever remains in given input to given output, closing none of
+	 * them.
+	 *
+	 * @param input
+	 *            Stream to read
+	 * @param output
+	 *            Stream to write
+	 * @return the number of bytes copied
+	 * @throws IOException
+	 *             if reading or writing failed
+	 */
+	public static long copyStream(InputStream input, OutputStream output) throws IOException {
+		return copyStream(input, output, null);
+	}
+
+	/**
+	 * Copy whatever remains in given input to given output, closing none of
+	 * them, until given handle is cancelled.
+	 *
+	 * @param input
+	 *            Stream to read
+	 * @param output
+	 *            Stream to write
+	 * @param handle
+	 *            Handle checked between two chunks, or null
+	 * @return the number of bytes copied
+	 * @throws IOException
+	 *             if reading or writing failed
+	 * @throws java.util.concurrent.CancellationException
+	 *             once given handle is cancelled
+	 */
+	public static long copyStream(InputStream input, OutputStream output, ChooserHandle handle) throws IOException {
+		byte[] buffer = new byte[2048];
+		long total = 0L;
+		for (int n = input.read(buffer); n >= 0; n = input.read(buffer)) {
+			if (handle != null)
+				handle.checkCancelled();
+			output.write(buffer, 0, n);
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * Create a bounded pool of daemon threads, so that background work never
+	 * keeps the application alive. Threads are virtual on Java 21+.
+	 *
+	 * @param name
+	 *            Prefix of thread names
+	 * @param threads
+	 *            Maximum number of tasks running at once
+	 * @return the pool, to be shut down when done
+	 */
+	public static ExecutorService newDaemonThreadPool(String name, int threads) {
+		return BackgroundThreads.newPool(name, threads);
+	}
+
+	/**
+	 * Create a daemon thread for long-running background work. The thread is
+	 * virtual on Java 21+.
+	 *
+	 * @param name
+	 *            Name of the thread
+	 * @param runnable
+	 *            Work of the thread
+	 * @return the thread, not started yet
+	 */
+	public static Thread newDaemonThread(String name, Runnable runnable) {
+		return BackgroundThreads.newThread(name, runnable);
+	}
+
+	/**
+	 * Run given warm-up work on a low priority daemon thread, so that it
+	 * neither competes with loading nor keeps the application alive. Failures
+	 * are ignored, actual calls report them anyway.
+	 *
+	 * @param name
+	 *            Prefix of the thread name
+	 * @param warmUp
+	 *            Work to run
+	 */
+	public static void warmUpInBackground(String name, final Runnable warmUp) {
+		Thread thread = BackgroundThreads.newThread(name + "-warmUp", new Runnable() {
+			@Override
+			public void run() {
+				try {
+					warmUp.run();
+				} catch (Exception ignored) {
+				} catch (LinkageError ignored) {
+					// Missing natives, same thing
+				}
+			}
+		});
+		// Ignored by virtual threads, which do not compete with the rendering thread anyway
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Choose files as {@link SelectionEntry} instances, natively if given
+	 * chooser is a {@link NativeSelectionChooser}, by wrapping chosen
+	 * {@link FileHandle}s otherwise.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            File chooser configuration
+	 * @param callback
+	 *            File chooser selection callback, must not be null
+	 */
+	public static void chooseEntries(NativeFileChooser chooser, NativeFileChooserConfiguration configuration, final NativeSelectionCallback callback) {
+		checkNotNull(chooser, "chooser");
+
+		if (chooser instanceof NativeSelectionChooser) {
+			((NativeSelectionChooser) chooser).chooseEntries(configuration, callback);
+			return;
+		}
+
+		checkNotNull(callback, "callback");
+		chooser.chooseFiles(configuration, new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				Array<SelectionEntry> entries = ChooserPools.obtainArray();
+				for (FileHandle file : files)
+					entries.add(new SelectionEntry(file, null, SelectionEntry.UNKNOWN, SelectionEntry.UNKNOWN, null));
+				callback.onEntriesChosen(entries);
+			}
+
+			@Override
+			public void onCancellation() {
+				callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				callback.onError(exception);
+			}
+		});
+	}
+
+	/**
+	 * Choose files as a {@link PathSet}, natively if given chooser is a
+	 * {@link NativePathSetChooser}, by packing chosen {@link FileHandle}s
+	 * otherwise.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            File chooser configuration
+	 * @param callback
+	 *            File chooser path set callback, must not be null
+	 */
+	public static void choosePaths(NativeFileChooser chooser, NativeFileChooserConfiguration configuration, final NativePathSetCallback callback) {
+		checkNotNull(chooser, "chooser");
+
+		if (chooser instanceof NativePathSetChooser) {
+			((NativePathSetChooser) chooser).choosePaths(configuration, callback);
+			return;
+		}
+
+		checkNotNull(callback, "callback");
+		chooser.chooseFiles(configuration, new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				PathSet paths = new PathSet(files.size);
+				for (FileHandle file : files)
+					paths.add(file.path());
+				ChooserPools.free(files);
+				callback.onPathsChosen(paths);
+			}
+
+			@Override
+			public void onCancellation() {
+				callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				callback.onError(exception);
+			}
+		});
+	}
+
+	/**
+	 * Choose folders, several at once if given chooser is a
+	 * {@link NativeFoldersChooser}, a single one otherwise.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            Folder chooser configuration
+	 * @param callback
+	 *            Folder chooser callback, must not be null
+	 */
+	public static void chooseFolders(NativeFileChooser chooser, NativeFolderChooserConfiguration configuration, final NativeFoldersChooserCallback callback) {
+		checkNotNull(chooser, "chooser");
+
+		if (chooser instanceof NativeFoldersChooser) {
+			((NativeFoldersChooser) chooser).chooseFolders(configuration, callback);
+			return;
+		}
+
+		checkNotNull(callback, "callback");
+		chooser.chooseFolder(configuration, new NativeFolderChooserCallback() {
+			@Override
+			public void onFolderChosen(FileHandle folder) {
+				callback.onFolderChosen(folder);
+				callback.onFoldersChosen(1);
+			}
+
+			@Override
+			public void onCancellation() {
+				callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				callback.onError(exception);
+			}
+		});
+	}
+
+	/**
+	 * Choose a file, getting a handle to cancel the call.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            File chooser configuration
+	 * @param callback
+	 *            File chooser callback, must not be null
+	 * @return the handle of the call
+	 * @see #chooseFile(NativeFileChooser, NativeFileChooserConfiguration,
+	 *      NativeFileChooserCallback, ChooserHandle)
+	 */
+	public static ChooserHandle chooseFile(NativeFileChooser chooser, NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		return chooseFile(chooser, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Choose a file under control of given handle, which may carry a timeout
+	 * already (desktop choosers return once the dialog is closed only).
+	 *
+	 * <p>
+	 * Callback is called exactly once: with the result, or on cancellation of
+	 * the handle, whichever comes first. Choosers implementing
+	 * {@link NativeCancellableChooser} also stop their work on cancellation,
+	 * results of others are just dropped.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            File chooser configuration
+	 * @param callback
+	 *            File chooser callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 * @return given handle
+	 */
+	public static ChooserHandle chooseFile(NativeFileChooser chooser, NativeFileChooserConfiguration configuration, final NativeFileChooserCallback callback, final ChooserHandle handle) {
+		checkNotNull(chooser, "chooser");
+		checkNotNull(callback, "callback");
+		checkNotNull(handle, "handle");
+
+		notifyCancellation(handle, callback);
+		NativeFileChooserCallback guarded = guard(callback, handle);
+
+		if (chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFile(configuration, guarded, handle);
+		else
+			chooser.chooseFile(configuration, guarded);
+		return handle;
+	}
+
+	/**
+	 * Choose files, getting a handle to cancel the call.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            File chooser configuration
+	 * @param callback
+	 *            Files chooser callback, must not be null
+	 * @return the handle of the call
+	 * @see #chooseFiles(NativeFileChooser, NativeFileChooserConfiguration,
+	 *      NativeFilesChooserCallback, ChooserHandle)
+	 */
+	public static ChooserHandle chooseFiles(NativeFileChooser chooser, NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		return chooseFiles(chooser, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Choose files under control of given handle, same as
+	 * {@link #chooseFile(NativeFileChooser, NativeFileChooserConfiguration, NativeFileChooserCallback, ChooserHandle)}.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            File chooser configuration
+	 * @param callback
+	 *            Files chooser callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 * @return given handle
+	 */
+	public static ChooserHandle chooseFiles(NativeFileChooser chooser, NativeFileChooserConfiguration configuration, final NativeFilesChooserCallback callback, final ChooserHandle handle) {
+		checkNotNull(chooser, "chooser");
+		checkNotNull(callback, "callback");
+		checkNotNull(handle, "handle");
+
+		notifyCancellation(handle, callback);
+		NativeFilesChooserCallback guarded = guard(callback, handle);
+
+		if (chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFiles(configuration, guarded, handle);
+		else
+			chooser.chooseFiles(configuration, guarded);
+		return handle;
+	}
+
+	/**
+	 * Choose a folder, getting a handle to cancel the call.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            Folder chooser configuration
+	 * @param callback
+	 *            Folder chooser callback, must not be null
+	 * @return the handle of the call
+	 * @see #chooseFolder(NativeFileChooser, NativeFolderChooserConfiguration,
+	 *      NativeFolderChooserCallback, ChooserHandle)
+	 */
+	public static ChooserHandle chooseFolder(NativeFileChooser chooser, NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		return chooseFolder(chooser, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Choose a folder under control of given handle, same as
+	 * {@link #chooseFile(NativeFileChooser, NativeFileChooserConfiguration, NativeFileChooserCallback, ChooserHandle)}.
+	 *
+	 * @param chooser
+	 *            Chooser to use, must not be null
+	 * @param configuration
+	 *            Folder chooser configuration
+	 * @param callback
+	 *            Folder chooser callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 * @return given handle
+	 */
+	public static ChooserHandle chooseFolder(NativeFileChooser chooser, NativeFolderChooserConfiguration configuration, final NativeFolderChooserCallback callback, final ChooserHandle handle) {
+		checkNotNull(chooser, "chooser");
+		checkNotNull(callback, "callback");
+		checkNotNull(handle, "handle");
+
+		notifyCancellation(handle, callback);
+		NativeFolderChooserCallback guarded = guard(callback, handle);
+
+		if (chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFolder(configuration, guarded, handle);
+		else
+			chooser.chooseFolder(configuration, guarded);
+		return handle;
+	}
+
+	/**
+	 * Tell given callback, on the rendering thread, once given handle is
+	 * cancelled: {@link NativeChooserCallback#onCancellation()}, or
+	 * {@link NativeChooserCallback#onError(Exception)} with a
+	 * {@link TimeoutException} if its timeout expired.
+	 *
+	 * @param handle
+	 *            Handle to watch
+	 * @param callback
+	 *            Callback to tell
+	 */
+	public static void notifyCancellation(final ChooserHandle handle, final NativeChooserCallback callback) {
+		handle.addCancellationListener(new Runnable() {
+			@Override
+			public void run() {
+				post(new Runnable() {
+					@Override
+					public void run() {
+						if (handle.isTimedOut())
+							callback.onError(new TimeoutException("Chooser call timed out after " + handle.getTimeout() + " ms"));
+						else
+							callback.onCancellation();
+					}
+				});
+			}
+		});
+	}
+
+	/*
+	 * Callbacks forwarding to given ones only while given handle is not done,
+	 * completing it: callers get called back exactly once, whether by the
+	 * chooser or on cancellation.
+	 */
+	static NativeFileChooserCallback guard(final NativeFileChooserCallback callback, final ChooserHandle handle) {
+		return new NativeFileChooserCallback() {
+			@Override
+			public void onFileChosen(FileHandle file) {
+				if (handle.complete())
+					callback.onFileChosen(file);
+			}
+
+			@Override
+			public void onCancellation() {
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		};
+	}
+
+	static NativeFilesChooserCallback guard(final NativeFilesChooserCallback callback, final ChooserHandle handle) {
+		return new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				if (handle.complete())
+					callback.onFilesChosen(files);
+				else
+					ChooserPools.free(files);
+			}
+
+			@Override
+			public void onCancellation() {
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		};
+	}
+
+	static NativeFolderChooserCallback guard(final NativeFolderChooserCallback callback, final ChooserHandle handle) {
+		return new NativeFolderChooserCallback() {
+			@Override
+			public void onFolderChosen(FileHandle folder) {
+				if (handle.complete())
+					callback.onFolderChosen(folder);
+			}
+
+			@Override
+			public void onCancellation() {
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		};
+	}
+
+	/*
+	 * Copy of given configuration, for decorators adjusting it on behalf of
+	 * the caller without touching the caller's own.
+	 */
+	static NativeFileChooserConfiguration copy(NativeFileChooserConfiguration configuration) {
+		NativeFileChooserConfiguration copy = new NativeFileChooserConfiguration();
+		copyBase(configuration, copy);
+		copy.mimeFilter = configuration.mimeFilter;
+		copy.nameFilter = configuration.nameFilter;
+		copy.intent = configuration.intent;
+		copy.maxFiles = configuration.maxFiles;
+		copy.maxFileBytes = configuration.maxFileBytes;
+		copy.maxTotalBytes = configuration.maxTotalBytes;
+		return copy;
+	}
+
+	static NativeFolderChooserConfiguration copy(NativeFolderChooserConfiguration configuration) {
+		NativeFolderChooserConfiguration copy = new NativeFolderChooserConfiguration();
+		copyBase(configuration, copy);
+		return copy;
+	}
+
+	private static void copyBase(NativeChooserConfiguration source, NativeChooserConfiguration target) {
+		target.directory = source.directory;
+		target.title = source.title;
+		target.metrics = source.metrics;
+	}
+
+	/*
+	 * Run given runnable on the rendering thread. Without application (tests,
+	 * tools), on a daemon thread of its own, never on the calling thread: that
+	 * may be the shared timer thread, which must not run callbacks or dialogs.
+	 */
+	static void post(Runnable runnable) {
+		if (Gdx.app == null)
+			poster().execute(runnable);
+		else
+			Gdx.app.postRunnable(runnable);
+	}
+
+	private static synchronized ExecutorService poster() {
+		if (poster == null) {
+			poster = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					return BackgroundThreads.newThread("NativeFileChooser-post", runnable);
+				}
+			});
+		}
+		return poster;
+	}
+
+	/*
+	 * Shared daemon timer for timeouts.
+	 */
+	static synchronized Timer timer() {
+		if (timer == null)
+			timer = new Timer("NativeFileChooser-timer", true);
+		return timer;
 	}
 }
@@ -43,7 +43,8 @@ public interface NativeFilesChooserCallback extends NativeChooserCallback {
 	 * Handle the user-chosen {@link FileHandle}s.
 	 *
 	 * @param files
-	 *            FileHandle instances chosen by user
+	 *            FileHandle instances chosen by user, the array may be given
+	 *            back to {@link ChooserPools#free(Array)} once done
 	 */
 	void onFilesChosen(Array<FileHandle> files);
 
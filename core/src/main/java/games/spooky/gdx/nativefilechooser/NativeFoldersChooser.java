@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * Optional interface of {@link NativeFileChooser} implementations able to let
+ * the user choose several folders at once.
+ *
+ * <p>
+ * Use
+ * {@link NativeFileChooserUtils#chooseFolders(NativeFileChooser, NativeFolderChooserConfiguration, NativeFoldersChooserCallback)}
+ * to choose folders with any chooser, whether it implements this interface or
+ * not.
+ *
+ * @see NativeFoldersChooserCallback
+ *
+ * @author thorthur
+ *
+ */
+public interface NativeFoldersChooser {
+
+	/**
+	 * Launch a native UI in order to find multiple folders and let you handle
+	 * the results, folder by folder as they are decoded.
+	 *
+	 * @param configuration
+	 *            Folder choosing configuration, must not be null
+	 * @param callback
+	 *            Folders choosing asynchronous callback, must not be null
+	 */
+	void chooseFolders(NativeFolderChooserConfiguration configuration, NativeFoldersChooserCallback callback);
+
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * The {@code NativeFoldersChooser} callback interface. Chosen folders are
+ * streamed one by one to {@link #onFolderChosen(com.badlogic.gdx.files.FileHandle)},
+ * so that work on the first ones can start before the others are known, then
+ * {@link #onFoldersChosen(int)} closes the choice.
+ *
+ * <p>
+ * {@link #onError(Exception)} may come after a few folders were handed over
+ * already, instead of {@link #onFoldersChosen(int)}.
+ *
+ * @see NativeFoldersChooser#chooseFolders(NativeFolderChooserConfiguration, NativeFoldersChooserCallback)
+ *
+ * @author thorthur
+ *
+ */
+public interface NativeFoldersChooserCallback extends NativeFolderChooserCallback {
+
+	/**
+	 * Handle the end of the choice, after the last chosen folder.
+	 *
+	 * @param count
+	 *            Number of folders chosen by user
+	 */
+	void onFoldersChosen(int count);
+
+}
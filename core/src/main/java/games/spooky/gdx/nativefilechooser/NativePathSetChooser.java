@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+/**
+ * Optional interface of {@link NativeFileChooser} implementations able to hand
+ * over chosen files as a compact {@link PathSet}, filled straight from what
+ * the native dialog gives, for very large selections.
+ *
+ * <p>
+ * Use
+ * {@link NativeFileChooserUtils#choosePaths(NativeFileChooser, NativeFileChooserConfiguration, NativePathSetCallback)}
+ * to get paths from any chooser, whether it implements this interface or not.
+ *
+ * @see PathSet
+ * @see NativePathSetCallback
+ *
+ * @author thorthur
+ *
+ */
+public interface NativePathSetChooser {
+
+	/**
+	 * Launch a native UI in order to find multiple files and let you handle
+	 * the results, like
+	 * {@link NativeFileChooser#chooseFiles(NativeFileChooserConfiguration, NativeFilesChooserCallback)}
+	 * does, without creating any object per file.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            Paths choosing asynchronous callback, must not be null
+	 */
+	void choosePaths(NativeFileChooserConfiguration configuration, NativePathSetCallback callback);
+
+}
@@ -0,0 +1,399 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Compact, columnar storage of chosen paths, for very large selections: all
+ * paths are kept UTF-8 encoded in a single byte array, delimited by a single
+ * offset table, instead of one {@code String}, {@code File} and
+ * {@link FileHandle} per path.
+ *
+ * <p>
+ * Paths are addressed by index, from 0 to {@link #size()} excluded. Nothing
+ * is created per path unless asked for: {@link #get(int)} and
+ * {@link #file(int)} create objects on demand, {@link #view(int)} creates a
+ * small buffer without copying the bytes, {@link #appendTo(int, StringBuilder)}
+ * and {@link #binarySearch(String)} create nothing.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @see NativePathSetChooser
+ *
+ * @author thorthur
+ *
+ */
+public final class PathSet {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// Paths of a selection are a few dozen bytes long
+	private static final int BYTES_PER_PATH = 64;
+
+	private byte[] bytes;
+	private int[] offsets;
+	private int size;
+	private boolean sorted = true;
+
+	/**
+	 * Initialize a new, empty {@code PathSet}.
+	 */
+	public PathSet() {
+		this(16);
+	}
+
+	/**
+	 * Initialize a new, empty {@code PathSet} sized for given number of paths,
+	 * so that filling it does not grow anything in most cases.
+	 *
+	 * @param capacity
+	 *            Expected number of paths
+	 */
+	public PathSet(int capacity) {
+		super();
+		capacity = Math.max(capacity, 1);
+		this.bytes = new byte[capacity * BYTES_PER_PATH];
+		this.offsets = new int[capacity + 1];
+	}
+
+	/**
+	 * @return the number of paths
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if there is no path
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Remove all paths, keeping storage for reuse.
+	 */
+	public void clear() {
+		size = 0;
+		sorted = true;
+	}
+
+	/**
+	 * Make room for given number of additional paths.
+	 *
+	 * @param additional
+	 *            Number of paths about to be added
+	 */
+	public void ensureCapacity(int additional) {
+		ensureCapacity(additional, additional * BYTES_PER_PATH);
+	}
+
+	private void ensureCapacity(int additionalPaths, int additionalBytes) {
+		if (size + additionalPaths + 1 > offsets.length) {
+			int[] grown = new int[Math.max(size + additionalPaths + 1, offsets.length + (offsets.length >> 1))];
+			System.arraycopy(offsets, 0, grown, 0, size + 1);
+			offsets = grown;
+		}
+		int end = offsets[size];
+		if (end + additionalBytes > bytes.length) {
+			byte[] grown = new byte[Math.max(end + additionalBytes, bytes.length + (bytes.length >> 1))];
+			System.arraycopy(bytes, 0, grown, 0, end);
+			bytes = grown;
+		}
+	}
+
+	/**
+	 * Add a path.
+	 *
+	 * @param path
+	 *            Path to add, must not be null
+	 */
+	public void add(String path) {
+		NativeFileChooserUtils.checkNotNull(path, "path");
+		int length = path.length();
+		// Worst case, three bytes per char
+		ensureCapacity(1, length * 3);
+		int position = offsets[size];
+		for (int i = 0; i < length; i++) {
+			char c = path.charAt(i);
+			if (c < 0x80) {
+				bytes[position++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[position++] = (byte) (0xC0 | (c >> 6));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(path.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, path.charAt(++i));
+				bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				bytes[position++] = '?'; // Lone surrogate, as String.getBytes does
+			} else {
+				bytes[position++] = (byte) (0xE0 | (c >> 12));
+				bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		added(position);
+	}
+
+	/**
+	 * Add a path from its UTF-8 bytes, such as native memory handed over by a
+	 * chooser, without decoding it.
+	 *
+	 * @param utf8
+	 *            Remaining bytes of given buffer, consumed, must not be null
+	 */
+	public void add(ByteBuffer utf8) {
+		NativeFileChooserUtils.checkNotNull(utf8, "utf8");
+		int length = utf8.remaining();
+		ensureCapacity(1, length);
+		int position = offsets[size];
+		utf8.get(bytes, position, length);
+		added(position + length);
+	}
+
+	/**
+	 * Add a path from its UTF-8 bytes.
+	 *
+	 * @param utf8
+	 *            Bytes of the path, must not be null
+	 * @param offset
+	 *            Offset of the path in given array
+	 * @param length
+	 *            Length of the path in bytes
+	 */
+	public void add(byte[] utf8, int offset, int length) {
+		NativeFileChooserUtils.checkNotNull(utf8, "utf8");
+		ensureCapacity(1, length);
+		int position = offsets[size];
+		System.arraycopy(utf8, offset, bytes, position, length);
+		added(position + length);
+	}
+
+	private void added(int end) {
+		offsets[++size] = end;
+		// Selections often come sorted already, which makes sort() free
+		if (sorted && size > 1)
+			sorted = compare(size - 2, bytes, offsets[size - 1], end - offsets[size - 1]) <= 0;
+	}
+
+	/**
+	 * @param index
+	 *            Index of the path
+	 * @return the length in bytes of the UTF-8 encoded path
+	 */
+	public int byteLength(int index) {
+		checkIndex(index);
+		return offsets[index + 1] - offsets[index];
+	}
+
+	/**
+	 * Decode a path. This creates a new {@code String}.
+	 *
+	 * @param index
+	 *            Index of the path
+	 * @return the path
+	 */
+	public String get(int index) {
+		checkIndex(index);
+		return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], UTF_8);
+	}
+
+	/**
+	 * Create a {@link FileHandle} for a path.
+	 *
+	 * @param index
+	 *            Index of the path
+	 * @return a new file handle
+	 */
+	public FileHandle file(int index) {
+		return new FileHandle(get(index));
+	}
+
+	/**
+	 * Decode a path into given builder, without any intermediate object.
+	 *
+	 * @param index
+	 *            Index of the path
+	 * @param builder
+	 *            Builder to append to, must not be null
+	 * @return given builder
+	 */
+	public StringBuilder appendTo(int index, StringBuilder builder) {
+		checkIndex(index);
+		int end = offsets[index + 1];
+		for (int i = offsets[index]; i < end; ) {
+			int b = bytes[i++] & 0xFF;
+			if (b < 0x80) {
+				builder.append((char) b);
+			} else if (b < 0xE0 && i < end) {
+				builder.append((char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F)));
+			} else if (b < 0xF0 && i + 1 < end) {
+				builder.append((char) (((b & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F)));
+			} else if (i + 2 < end) {
+				builder.appendCodePoint(((b & 0x07) << 18) | ((bytes[i++] & 0x3F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+			} else {
+				builder.append('\uFFFD');
+				i = end;
+			}
+		}
+		return builder;
+	}
+
+	/**
+	 * Get a read-only view of the UTF-8 bytes of a path, backed by this set:
+	 * only valid until the set is modified. Each call creates a new buffer,
+	 * the bytes themselves are not copied.
+	 *
+	 * @param index
+	 *            Index of the path
+	 * @return a read-only buffer over the path
+	 */
+	public ByteBuffer view(int index) {
+		checkIndex(index);
+		return ByteBuffer.wrap(bytes, offsets[index], offsets[index + 1] - offsets[index]).slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Sort paths by code point order, for {@link #binarySearch(String)}. Does
+	 * nothing if paths were added in order already.
+	 */
+	public void sort() {
+		if (sorted)
+			return;
+
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++)
+			order[i] = i;
+		mergeSort(order, new int[size], 0, size);
+
+		byte[] sortedBytes = new byte[bytes.length];
+		int[] sortedOffsets = new int[offsets.length];
+		int position = 0;
+		for (int i = 0; i < size; i++) {
+			int start = offsets[order[i]];
+			int length = offsets[order[i] + 1] - start;
+			System.arraycopy(bytes, start, sortedBytes, position, length);
+			position += length;
+			sortedOffsets[i + 1] = position;
+		}
+		bytes = sortedBytes;
+		offsets = sortedOffsets;
+		sorted = true;
+	}
+
+	private void mergeSort(int[] order, int[] buffer, int from, int to) {
+		if (to - from < 2)
+			return;
+		int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, from, middle);
+		mergeSort(order, buffer, middle, to);
+		if (compare(order[middle - 1], order[middle]) <= 0)
+			return; // Halves in order already
+		System.arraycopy(order, from, buffer, from, to - from);
+		for (int i = from, left = from, right = middle; i < to; i++) {
+			if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0))
+				order[i] = buffer[left++];
+			else
+				order[i] = buffer[right++];
+		}
+	}
+
+	/**
+	 * Find a path in this set, once sorted.
+	 *
+	 * @param path
+	 *            Path to look for, must not be null
+	 * @return the index of the path if found, (-(insertion point) - 1)
+	 *         otherwise, as {@link java.util.Arrays#binarySearch(int[], int)}
+	 *         does
+	 * @throws IllegalStateException
+	 *             if paths are not sorted
+	 * @see #sort()
+	 */
+	public int binarySearch(String path) {
+		NativeFileChooserUtils.checkNotNull(path, "path");
+		if (!sorted)
+			throw new IllegalStateException("Paths must be sorted first");
+
+		byte[] key = path.getBytes(UTF_8);
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(middle, key, 0, key.length);
+			if (comparison < 0)
+				low = middle + 1;
+			else if (comparison > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Create {@link FileHandle}s for all paths, for code expecting them.
+	 *
+	 * @param files
+	 *            Array to add file handles to, must not be null
+	 * @return given array
+	 */
+	public Array<FileHandle> toFiles(Array<FileHandle> files) {
+		files.ensureCapacity(size);
+		for (int i = 0; i < size; i++)
+			files.add(file(i));
+		return files;
+	}
+
+	private int compare(int first, int second) {
+		return compare(first, bytes, offsets[second], offsets[second + 1] - offsets[second]);
+	}
+
+	// Unsigned byte order of UTF-8 is code point order
+	private int compare(int index, byte[] other, int otherStart, int otherLength) {
+		int start = offsets[index];
+		int length = offsets[index + 1] - start;
+		int common = Math.min(length, otherLength);
+		for (int i = 0; i < common; i++) {
+			int difference = (bytes[start + i] & 0xFF) - (other[otherStart + i] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+		return length - otherLength;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimerTask;
+
+/**
+ * Most recently used locations, kept by purpose (eg. "save", "import-audio"):
+ * the folders where files were last chosen for the same purpose.
+ *
+ * <p>
+ * Wrap a chooser with {@link #chooser(String, NativeFileChooser)} to have
+ * {@link NativeChooserConfiguration#directory} filled with the last location
+ * of its purpose when left null, and locations recorded on every choice.
+ *
+ * <p>
+ * Locations are kept across sessions in libGDX {@link Preferences}. Writes
+ * are batched and done in the background a little after the last change,
+ * never on the rendering thread; call {@link #dispose()} on exit to write
+ * pending changes. Locations of all purposes also form a ring of recent
+ * folders, which choosers can get ready for through
+ * {@link #warmUp(NativeFileChooser)}.
+ *
+ * @author thorthur
+ *
+ */
+public class RecentLocations implements Disposable {
+
+	/**
+	 * Default name of the preferences locations are kept in.
+	 */
+	public static final String DEFAULT_PREFERENCES_NAME = "gdx-nativefilechooser-recent";
+
+	/**
+	 * Default number of locations kept per purpose, and in the ring of recent
+	 * folders.
+	 */
+	public static final int DEFAULT_CAPACITY = 8;
+
+	private static final String PURPOSE_PREFIX = "purpose.";
+	private static final String RING = "recent";
+	private static final String SEPARATOR = "\n";
+
+	// Batch changes coming in bursts (multiple choices, several purposes)
+	private static final long WRITE_DELAY = 2000L;
+
+	private final String preferencesName;
+
+	private final Map<String, Array<String>> purposes = new HashMap<>();
+	private final Array<String> ring = new Array<>();
+	private final Array<String> dirty = new Array<>();
+
+	private int capacity = DEFAULT_CAPACITY;
+	private Preferences preferences;
+	private boolean loaded;
+	private TimerTask write;
+
+	/**
+	 * Initialize a new {@code RecentLocations} kept in the default
+	 * preferences.
+	 */
+	public RecentLocations() {
+		this(DEFAULT_PREFERENCES_NAME);
+	}
+
+	/**
+	 * Initialize a new {@code RecentLocations} kept in given preferences.
+	 *
+	 * @param preferencesName
+	 *            Name of the preferences, null to keep locations for the
+	 *            session only
+	 */
+	public RecentLocations(String preferencesName) {
+		super();
+		this.preferencesName = preferencesName;
+	}
+
+	/**
+	 * Set the number of locations kept per purpose, and in the ring of recent
+	 * folders.
+	 *
+	 * @param capacity
+	 *            Number of locations, at least 1
+	 * @return this instance, for chaining
+	 */
+	public synchronized RecentLocations setCapacity(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1");
+		this.capacity = capacity;
+		return this;
+	}
+
+	/**
+	 * @return the number of locations kept per purpose
+	 */
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Get the last location of given purpose.
+	 *
+	 * @param purpose
+	 *            Purpose id, must not be null
+	 * @return the last location, or null if none
+	 */
+	public synchronized FileHandle last(String purpose) {
+		NativeFileChooserUtils.checkNotNull(purpose, "purpose");
+		Array<String> locations = locations(purpose, false);
+		return locations == null || locations.size == 0 ? null : toHandle(locations.first());
+	}
+
+	/**
+	 * Get the locations of given purpose.
+	 *
+	 * @param purpose
+	 *            Purpose id, must not be null
+	 * @return a new array of locations, most recent first
+	 */
+	public synchronized Array<FileHandle> recent(String purpose) {
+		NativeFileChooserUtils.checkNotNull(purpose, "purpose");
+		return toHandles(locations(purpose, false));
+	}
+
+	/**
+	 * Get the ring of recent folders, all purposes together.
+	 *
+	 * @return a new array of locations, most recent first
+	 */
+	public synchronized Array<FileHandle> recent() {
+		load();
+		return toHandles(ring);
+	}
+
+	/**
+	 * Record given location as the last one of given purpose.
+	 *
+	 * @param purpose
+	 *            Purpose id, must not be null
+	 * @param location
+	 *            Folder, must not be null
+	 */
+	public synchronized void record(String purpose, FileHandle location) {
+		NativeFileChooserUtils.checkNotNull(purpose, "purpose");
+		NativeFileChooserUtils.checkNotNull(location, "location");
+		String path = location.file().getAbsolutePath();
+		Array<String> locations = locations(purpose, true);
+		if (locations.size > 0 && locations.first().equals(path))
+			return; // Nothing new, nothing to write
+
+		moveFirst(locations, path);
+		moveFirst(ring, path);
+		if (!dirty.contains(purpose, false))
+			dirty.add(purpose);
+		scheduleWrite();
+	}
+
+	/**
+	 * Record the folder of given chosen file as the last location of given
+	 * purpose.
+	 *
+	 * @param purpose
+	 *            Purpose id, must not be null
+	 * @param file
+	 *            Chosen file, must not be null
+	 */
+	public void recordFile(String purpose, FileHandle file) {
+		NativeFileChooserUtils.checkNotNull(file, "file");
+		File parent = file.file().getAbsoluteFile().getParentFile();
+		if (parent != null)
+			record(purpose, new FileHandle(parent));
+	}
+
+	/**
+	 * Set starting directory of given configuration to the last location of
+	 * given purpose, unless it is set already.
+	 *
+	 * @param purpose
+	 *            Purpose id, must not be null
+	 * @param configuration
+	 *            Configuration to fill, must not be null
+	 */
+	public void configure(String purpose, NativeChooserConfiguration configuration) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		if (configuration.directory == null)
+			configuration.directory = last(purpose);
+	}
+
+	/**
+	 * Wrap given chooser so that calls made through it start from the last
+	 * location of given purpose, if their configuration does not tell
+	 * otherwise, and record chosen locations.
+	 *
+	 * @param purpose
+	 *            Purpose id, must not be null
+	 * @param chooser
+	 *            Chooser to wrap, must not be null
+	 * @return the wrapping chooser
+	 */
+	public NativeFileChooser chooser(String purpose, NativeFileChooser chooser) {
+		NativeFileChooserUtils.checkNotNull(purpose, "purpose");
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		return new RecentLocationsChooser(this, purpose, chooser);
+	}
+
+	/**
+	 * Get given chooser ready for the ring of recent folders, see
+	 * {@link NativeFileChooser#warmUp(Array)}.
+	 *
+	 * @param chooser
+	 *            Chooser to warm up, must not be null
+	 */
+	public void warmUp(NativeFileChooser chooser) {
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		chooser.warmUp(recent());
+	}
+
+	/**
+	 * Write pending changes right away.
+	 */
+	public synchronized void flush() {
+		if (write != null) {
+			write.cancel();
+			write = null;
+		}
+		if (preferences == null || dirty.size == 0) {
+			dirty.clear();
+			return;
+		}
+		for (String purpose : dirty)
+			preferences.putString(PURPOSE_PREFIX + purpose, join(purposes.get(purpose)));
+		preferences.putString(RING, join(ring));
+		dirty.clear();
+		preferences.flush();
+	}
+
+	/**
+	 * Write pending changes. Locations remain available.
+	 */
+	@Override
+	public void dispose() {
+		flush();
+	}
+
+	private void scheduleWrite() {
+		if (write != null || preferences == null)
+			return;
+		write = new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		};
+		NativeFileChooserUtils.timer().schedule(write, WRITE_DELAY);
+	}
+
+	private Array<String> locations(String purpose, boolean create) {
+		load();
+		Array<String> locations = purposes.get(purpose);
+		if (locations == null) {
+			String stored = preferences == null ? null : preferences.getString(PURPOSE_PREFIX + purpose, null);
+			if (stored == null && !create)
+				return null;
+			locations = split(stored);
+			purposes.put(purpose, locations);
+		}
+		return locations;
+	}
+
+	private void load() {
+		if (loaded)
+			return;
+		loaded = true;
+		if (preferencesName == null || Gdx.app == null)
+			return;
+		preferences = Gdx.app.getPreferences(preferencesName);
+		ring.addAll(split(preferences.getString(RING, null)));
+	}
+
+	private void moveFirst(Array<String> locations, String path) {
+		locations.removeValue(path, false);
+		locations.insert(0, path);
+		if (locations.size > capacity)
+			locations.truncate(capacity);
+	}
+
+	private static Array<String> split(String stored) {
+		Array<String> locations = new Array<>();
+		if (stored != null) {
+			for (String path : stored.split(SEPARATOR)) {
+				if (!path.isEmpty())
+					locations.add(path);
+			}
+		}
+		return locations;
+	}
+
+	private static String join(Array<String> locations) {
+		StringBuilder builder = new StringBuilder();
+		for (String path : locations) {
+			if (builder.length() > 0)
+				builder.append(SEPARATOR);
+			builder.append(path);
+		}
+		return builder.toString();
+	}
+
+	private static FileHandle toHandle(String path) {
+		return new FileHandle(new File(path));
+	}
+
+	private static Array<FileHandle> toHandles(Array<String> locations) {
+		Array<FileHandle> handles = new Array<>();
+		if (locations != null) {
+			for (String path : locations)
+				handles.add(toHandle(path));
+		}
+		return handles;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+/*
+ * Chooser starting from and recording the recent locations of a purpose, see
+ * RecentLocations#chooser.
+ */
+final class RecentLocationsChooser implements NativeCancellableChooser {
+
+	private final RecentLocations locations;
+	private final String purpose;
+	private final NativeFileChooser chooser;
+
+	RecentLocationsChooser(RecentLocations locations, String purpose, NativeFileChooser chooser) {
+		this.locations = locations;
+		this.purpose = purpose;
+		this.chooser = chooser;
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		chooseFile(configuration, callback, null);
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, final NativeFileChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		// The caller's configuration is theirs, start from the recent location on a copy
+		NativeFileChooserConfiguration configured = configure(configuration);
+		NativeFileChooserCallback recording = new NativeFileChooserCallback() {
+			@Override
+			public void onFileChosen(FileHandle file) {
+				if (file != null)
+					locations.recordFile(purpose, file);
+				callback.onFileChosen(file);
+			}
+
+			@Override
+			public void onCancellation() {
+				callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				callback.onError(exception);
+			}
+		};
+		if (handle != null && chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFile(configured, recording, handle);
+		else
+			chooser.chooseFile(configured, recording);
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		chooseFiles(configuration, callback, null);
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, final NativeFilesChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserConfiguration configured = configure(configuration);
+		NativeFilesChooserCallback recording = new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				if (files != null && files.size > 0)
+					locations.recordFile(purpose, files.first());
+				callback.onFilesChosen(files);
+			}
+
+			@Override
+			public void onCancellation() {
+				callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				callback.onError(exception);
+			}
+		};
+		if (handle != null && chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFiles(configured, recording, handle);
+		else
+			chooser.chooseFiles(configured, recording);
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		chooseFolder(configuration, callback, null);
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, final NativeFolderChooserCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFolderChooserConfiguration configured = configure(configuration);
+		NativeFolderChooserCallback recording = new NativeFolderChooserCallback() {
+			@Override
+			public void onFolderChosen(FileHandle folder) {
+				if (folder != null)
+					locations.record(purpose, folder);
+				callback.onFolderChosen(folder);
+			}
+
+			@Override
+			public void onCancellation() {
+				callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				callback.onError(exception);
+			}
+		};
+		if (handle != null && chooser instanceof NativeCancellableChooser)
+			((NativeCancellableChooser) chooser).chooseFolder(configured, recording, handle);
+		else
+			chooser.chooseFolder(configured, recording);
+	}
+
+	private NativeFileChooserConfiguration configure(NativeFileChooserConfiguration configuration) {
+		NativeFileChooserConfiguration copy = NativeFileChooserUtils.copy(configuration);
+		locations.configure(purpose, copy);
+		return copy;
+	}
+
+	private NativeFolderChooserConfiguration configure(NativeFolderChooserConfiguration configuration) {
+		NativeFolderChooserConfiguration copy = NativeFileChooserUtils.copy(configuration);
+		locations.configure(purpose, copy);
+		return copy;
+	}
+
+	@Override
+	public void warmUp() {
+		chooser.warmUp(locations.recent(purpose));
+	}
+
+	@Override
+	public void warmUp(Array<FileHandle> directories) {
+		chooser.warmUp(directories);
+	}
+}
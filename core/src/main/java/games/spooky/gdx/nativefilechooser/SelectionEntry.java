@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A lightweight chosen file: its path and whatever attributes the chooser
+ * already knew, the {@link FileHandle} itself being only created on demand.
+ *
+ * <p>
+ * Attributes unknown to the chooser are read from the file system on first
+ * access, then cached. Entries whose content first has to be fetched, such as
+ * Android documents, only fetch it on first call to {@link #file()}.
+ * Instances are not thread-safe.
+ *
+ * @see NativeSelectionChooser
+ * @see NativeSelectionCallback
+ *
+ * @author thorthur
+ *
+ */
+public final class SelectionEntry {
+
+	/**
+	 * Value of unknown size or modification time.
+	 */
+	public static final long UNKNOWN = -1L;
+
+	private final String path;
+	private final String mimeType;
+	private final Loader loader;
+	private String name;
+	private long size;
+	private long lastModified;
+	private FileHandle file;
+
+	/**
+	 * Initialize a new {@code SelectionEntry} with nothing known but its path.
+	 *
+	 * @param path
+	 *            Absolute path of the file, must not be null
+	 */
+	public SelectionEntry(String path) {
+		this(path, null, UNKNOWN, UNKNOWN, null);
+	}
+
+	/**
+	 * Initialize a new {@code SelectionEntry} with known attributes.
+	 *
+	 * @param path
+	 *            Absolute path of the file, must not be null
+	 * @param name
+	 *            Display name of the file, or null to use the last segment of
+	 *            its path
+	 * @param size
+	 *            Size of the file in bytes, or {@link #UNKNOWN}
+	 * @param lastModified
+	 *            Last modification time of the file in milliseconds since the
+	 *            epoch, or {@link #UNKNOWN}
+	 * @param mimeType
+	 *            MIME type of the file, or null if unknown
+	 */
+	public SelectionEntry(String path, String name, long size, long lastModified, String mimeType) {
+		this(path, name, size, lastModified, mimeType, null);
+	}
+
+	/**
+	 * Initialize a new {@code SelectionEntry} with known attributes, whose
+	 * {@link FileHandle} is made by given loader on first access.
+	 *
+	 * @param path
+	 *            Path or URI of the file, must not be null
+	 * @param name
+	 *            Display name of the file, or null to use the last segment of
+	 *            its path
+	 * @param size
+	 *            Size of the file in bytes, or {@link #UNKNOWN}
+	 * @param lastModified
+	 *            Last modification time of the file in milliseconds since the
+	 *            epoch, or {@link #UNKNOWN}
+	 * @param mimeType
+	 *            MIME type of the file, or null if unknown
+	 * @param loader
+	 *            Maker of the file, or null for a plain {@link FileHandle} of
+	 *            given path
+	 */
+	public SelectionEntry(String path, String name, long size, long lastModified, String mimeType, Loader loader) {
+		super();
+		NativeFileChooserUtils.checkNotNull(path, "path");
+		this.path = path;
+		this.name = name;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.mimeType = mimeType;
+		this.loader = loader;
+	}
+
+	/**
+	 * Initialize a new {@code SelectionEntry} around an already existing
+	 * {@link FileHandle}, with known attributes.
+	 *
+	 * @param file
+	 *            The file, must not be null
+	 * @param name
+	 *            Display name of the file, or null to use its actual name
+	 * @param size
+	 *            Size of the file in bytes, or {@link #UNKNOWN}
+	 * @param lastModified
+	 *            Last modification time of the file in milliseconds since the
+	 *            epoch, or {@link #UNKNOWN}
+	 * @param mimeType
+	 *            MIME type of the file, or null if unknown
+	 */
+	public SelectionEntry(FileHandle file, String name, long size, long lastModified, String mimeType) {
+		this(file.file().getPath(), name, size, lastModified, mimeType);
+		this.file = file;
+	}
+
+	/**
+	 * @return the path of the file
+	 */
+	public String path() {
+		return path;
+	}
+
+	/**
+	 * @return the display name of the file, which on Android may differ from
+	 *         the name of its local copy
+	 */
+	public String name() {
+		if (name == null) {
+			int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar));
+			name = path.substring(separator + 1);
+		}
+		return name;
+	}
+
+	/**
+	 * @return the MIME type of the file as told by the chooser, or null if
+	 *         unknown
+	 */
+	public String mimeType() {
+		return mimeType;
+	}
+
+	/**
+	 * @return the size of the file in bytes, read from the file system only if
+	 *         the chooser did not know it
+	 */
+	public long length() {
+		if (size == UNKNOWN)
+			size = file().length();
+		return size;
+	}
+
+	/**
+	 * @return the last modification time of the file in milliseconds since
+	 *         the epoch, read from the file system only if the chooser did not
+	 *         know it
+	 */
+	public long lastModified() {
+		if (lastModified == UNKNOWN)
+			lastModified = file().lastModified();
+		return lastModified;
+	}
+
+	/**
+	 * @return the {@link FileHandle} of the file, created (or fetched) on
+	 *         first call
+	 * @throws GdxRuntimeException
+	 *             if the file could not be fetched
+	 */
+	public FileHandle file() {
+		if (file == null) {
+			if (loader == null) {
+				file = new FileHandle(path);
+			} else {
+				try {
+					file = loader.load(this);
+				} catch (IOException ex) {
+					throw new GdxRuntimeException("Unable to load " + path, ex);
+				}
+			}
+		}
+		return file;
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+
+	/**
+	 * Maker of the {@link FileHandle} of an entry, called once on first
+	 * {@link SelectionEntry#file()} call.
+	 */
+	public interface Loader {
+		/**
+		 * @param entry
+		 *            Entry whose file is asked for
+		 * @return the file of given entry
+		 * @throws IOException
+		 *             if the file could not be made
+		 */
+		FileHandle load(SelectionEntry entry) throws IOException;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import java.io.IOException;
+
+/**
+ * Error of a call whose selection went beyond the limits of its
+ * {@link NativeFileChooserConfiguration} ({@code maxFiles},
+ * {@code maxFileBytes}, {@code maxTotalBytes}).
+ *
+ * <p>
+ * Choosers stop as soon as a limit is crossed, and tell how far they went:
+ * {@link #getAccepted()} holds the files of the selection within limits the
+ * chooser already had at hand (Android copies included, which then belong to
+ * the caller), in order of selection.
+ *
+ * @see SelectionLimits
+ *
+ * @author thorthur
+ *
+ */
+public class SelectionLimitException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The limits a selection can go beyond.
+	 */
+	public enum Limit {
+		/**
+		 * {@link NativeFileChooserConfiguration#maxFiles}
+		 */
+		FILES,
+		/**
+		 * {@link NativeFileChooserConfiguration#maxFileBytes}
+		 */
+		FILE_BYTES,
+		/**
+		 * {@link NativeFileChooserConfiguration#maxTotalBytes}
+		 */
+		TOTAL_BYTES
+	}
+
+	private final Limit limit;
+	private final long maximum;
+	private final long actual;
+	private final int index;
+	private final transient Array<FileHandle> accepted;
+
+	/**
+	 * Initialize a new {@code SelectionLimitException}.
+	 *
+	 * @param limit
+	 *            Limit gone beyond, must not be null
+	 * @param maximum
+	 *            Value of the limit
+	 * @param actual
+	 *            Value reached (number of files, or bytes)
+	 * @param index
+	 *            Index in the selection of the file crossing the limit
+	 * @param accepted
+	 *            Files within limits at hand, must not be null
+	 */
+	public SelectionLimitException(Limit limit, long maximum, long actual, int index, Array<FileHandle> accepted) {
+		super("Selection goes beyond " + limit + " limit: " + actual + " > " + maximum);
+		NativeFileChooserUtils.checkNotNull(limit, "limit");
+		NativeFileChooserUtils.checkNotNull(accepted, "accepted");
+		this.limit = limit;
+		this.maximum = maximum;
+		this.actual = actual;
+		this.index = index;
+		this.accepted = accepted;
+	}
+
+	/**
+	 * @return the limit gone beyond
+	 */
+	public Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the value of the limit
+	 */
+	public long getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * @return the value reached: number of files for {@link Limit#FILES},
+	 *         bytes otherwise
+	 */
+	public long getActual() {
+		return actual;
+	}
+
+	/**
+	 * @return the index in the selection of the file crossing the limit, ie.
+	 *         the number of files within limits (zero when the number of
+	 *         files is checked up front)
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the files within limits the chooser had at hand, possibly fewer
+	 *         than {@link #getIndex()} if it stopped before getting them
+	 */
+	public Array<FileHandle> getAccepted() {
+		return accepted;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Enforcement of the selection limits of a
+ * {@link NativeFileChooserConfiguration}, for {@link NativeFileChooser}
+ * implementations.
+ *
+ * <p>
+ * Feed the selection as soon as it is known: its number of files first if
+ * known, then its files one by one with their sizes, before doing anything
+ * expensive with them. The first file going beyond a limit fails with a
+ * {@link SelectionLimitException}. Instances are not thread-safe.
+ *
+ * @author thorthur
+ *
+ */
+public final class SelectionLimits {
+
+	private final int maxFiles;
+	private final long maxFileBytes;
+	private final long maxTotalBytes;
+
+	private final Array<FileHandle> accepted = new Array<>();
+	private int files;
+	private long totalBytes;
+
+	/**
+	 * Initialize new {@code SelectionLimits} for given configuration.
+	 *
+	 * @param configuration
+	 *            Configuration of the call, must not be null
+	 */
+	public SelectionLimits(NativeFileChooserConfiguration configuration) {
+		super();
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		boolean save = configuration.intent == NativeFileChooserIntent.SAVE;
+		this.maxFiles = save ? 0 : configuration.maxFiles;
+		this.maxFileBytes = save ? 0L : configuration.maxFileBytes;
+		this.maxTotalBytes = save ? 0L : configuration.maxTotalBytes;
+	}
+
+	/**
+	 * Tell whether given configuration has selection limits, so that choosers
+	 * do not look for file sizes for nothing.
+	 *
+	 * @param configuration
+	 *            Configuration of the call, must not be null
+	 * @return true if any limit applies
+	 */
+	public static boolean isLimited(NativeFileChooserConfiguration configuration) {
+		return configuration.intent != NativeFileChooserIntent.SAVE
+				&& (configuration.maxFiles > 0 || configuration.maxFileBytes > 0L || configuration.maxTotalBytes > 0L);
+	}
+
+	/**
+	 * Check a whole selection of files against limits of given configuration,
+	 * sizes being read from the file system.
+	 *
+	 * @param configuration
+	 *            Configuration of the call, must not be null
+	 * @param selection
+	 *            Chosen files, must not be null
+	 * @throws SelectionLimitException
+	 *             if the selection goes beyond a limit
+	 */
+	public static void check(NativeFileChooserConfiguration configuration, Array<FileHandle> selection) throws SelectionLimitException {
+		NativeFileChooserUtils.checkNotNull(selection, "selection");
+		if (!isLimited(configuration))
+			return;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.checkCount(selection.size);
+		for (int i = 0; i < selection.size; i++) {
+			FileHandle file = selection.get(i);
+			limits.add(file, limits.sizeLimited() ? file.length() : SelectionEntry.UNKNOWN);
+		}
+	}
+
+	/**
+	 * Check the number of files of the selection, before going through them.
+	 *
+	 * @param count
+	 *            Number of chosen files
+	 * @throws SelectionLimitException
+	 *             if there are too many of them
+	 */
+	public void checkCount(int count) throws SelectionLimitException {
+		if (maxFiles > 0 && count > maxFiles)
+			throw new SelectionLimitException(SelectionLimitException.Limit.FILES, maxFiles, count, 0, new Array<FileHandle>());
+	}
+
+	/**
+	 * Tell whether limits are on sizes, ie. whether {@link #add(FileHandle, long)}
+	 * needs actual sizes.
+	 *
+	 * @return true if file or total size is limited
+	 */
+	public boolean sizeLimited() {
+		return maxFileBytes > 0L || maxTotalBytes > 0L;
+	}
+
+	/**
+	 * Add next file of the selection.
+	 *
+	 * @param file
+	 *            Chosen file, or null if not at hand yet
+	 * @param bytes
+	 *            Size of the file, or {@link SelectionEntry#UNKNOWN} for
+	 *            size limits not to be checked
+	 * @throws SelectionLimitException
+	 *             if the file goes beyond a limit
+	 */
+	public void add(FileHandle file, long bytes) throws SelectionLimitException {
+		if (maxFiles > 0 && files + 1 > maxFiles)
+			throw failure(SelectionLimitException.Limit.FILES, maxFiles, files + 1);
+		if (bytes >= 0L) {
+			if (maxFileBytes > 0L && bytes > maxFileBytes)
+				throw failure(SelectionLimitException.Limit.FILE_BYTES, maxFileBytes, bytes);
+			if (maxTotalBytes > 0L && totalBytes + bytes > maxTotalBytes)
+				throw failure(SelectionLimitException.Limit.TOTAL_BYTES, maxTotalBytes, totalBytes + bytes);
+			totalBytes += bytes;
+		}
+		files++;
+		if (file != null)
+			accepted.add(file);
+	}
+
+	private SelectionLimitException failure(SelectionLimitException.Limit limit, long maximum, long actual) {
+		return new SelectionLimitException(limit, maximum, actual, files, new Array<>(accepted));
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/*
+ * Steady-state allocations of pooled result arrays and cached MIME patterns.
+ * Whole chooser calls allocate their dialog, handle and file handles, they are
+ * not covered.
+ */
+public class AllocationTest {
+
+	private static final int CALLS = 100000;
+
+	// Bytes allocated per call in steady state, measurement overhead included
+	private static final double BUDGET = 1.0;
+
+	private final FileHandle[] handles = new FileHandle[16];
+
+	{
+		for (int i = 0; i < handles.length; i++)
+			handles[i] = new FileHandle("file" + i + ".ogg");
+	}
+
+	@Test
+	public void measurementSeesAllocations() {
+		assertTrue(bytesPerCall(new Runnable() {
+			@Override
+			public void run() {
+				Array<FileHandle> files = new Array<>();
+				for (FileHandle handle : handles)
+					files.add(handle);
+			}
+		}) > 16.0);
+	}
+
+	@Test
+	public void pooledArraysAllocateNothing() {
+		double bytes = bytesPerCall(new Runnable() {
+			@Override
+			public void run() {
+				Array<FileHandle> files = ChooserPools.obtainArray();
+				for (FileHandle handle : handles)
+					files.add(handle);
+				ChooserPools.free(files);
+			}
+		});
+		assertTrue(bytes + " bytes per call", bytes < BUDGET);
+	}
+
+	@Test
+	public void pooledArraysLetGoOfLargeSelections() {
+		Array<FileHandle> files = ChooserPools.obtainArray();
+		for (int i = 0; i < 100000; i++)
+			files.add(handles[i % handles.length]);
+		ChooserPools.free(files);
+
+		// Pooled arrays are untyped, items is an Object[]
+		Array<?> reused = ChooserPools.obtainArray();
+		assertSame(files, reused);
+		assertTrue(reused.items.length + " items kept", reused.items.length <= ChooserPools.MAX_POOLED_CAPACITY);
+		ChooserPools.free(reused);
+	}
+
+	@Test
+	public void mimePatternsAllocateNothing() {
+		assertSame(NativeFileChooserUtils.mimePattern("audio/*"), NativeFileChooserUtils.mimePattern("audio/*"));
+		double bytes = bytesPerCall(new Runnable() {
+			@Override
+			public void run() {
+				NativeFileChooserUtils.mimePattern("audio/*");
+			}
+		});
+		assertTrue(bytes + " bytes per call", bytes < BUDGET);
+	}
+
+	private static double bytesPerCall(Runnable call) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		long thread = Thread.currentThread().getId();
+		for (int i = 0; i < CALLS; i++)
+			call.run(); // Fill pools and caches
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < CALLS; i++)
+			call.run();
+		return (threads.getThreadAllocatedBytes(thread) - before) / (double) CALLS;
+	}
+}
@@ -0,0 +1,338 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChooserSchedulerTest {
+
+	// Answers right away, from within the call
+	private final NativeFileChooser chooser = new NativeFileChooser() {
+		@Override
+		public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+			callback.onFileChosen(new FileHandle("chosen"));
+		}
+
+		@Override
+		public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+			callback.onFilesChosen(ChooserPools.<FileHandle>obtainArray());
+		}
+
+		@Override
+		public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+			callback.onFolderChosen(new FileHandle("chosen"));
+		}
+	};
+
+	@Test
+	public void servedCallsDoNotLingerInTheTimer() throws InterruptedException {
+		ChooserScheduler scheduler = new ChooserScheduler(chooser).setQueueTimeout(3600000L);
+		AtomicInteger chosen = new AtomicInteger();
+
+		WeakReference<NativeFileChooserCallback> callback = choose(scheduler, chosen);
+		assertEquals(1, chosen.get());
+
+		for (int i = 0; i < 10 && callback.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10L);
+		}
+		assertNull(callback.get());
+	}
+
+	@Test
+	public void identicalCallsShareOneDialog() throws InterruptedException {
+		Dialogs dialogs = new Dialogs();
+		ChooserScheduler scheduler = new ChooserScheduler(dialogs);
+		Recorder shown = new Recorder();
+		Recorder shownAgain = new Recorder();
+		Recorder queued = new Recorder();
+		Recorder queuedAgain = new Recorder();
+
+		// Equal configurations, not the same instances
+		scheduler.chooseFile(configuration("Shown"), shown);
+		scheduler.chooseFile(configuration("Shown"), shownAgain);
+		scheduler.chooseFile(configuration("Queued"), queued);
+		scheduler.chooseFile(configuration("Queued"), queuedAgain);
+		assertEquals(1, scheduler.getQueued());
+
+		dialogs.next().onFileChosen(new FileHandle("chosen"));
+		assertEquals("file chosen", shown.next());
+		assertEquals("file chosen", shownAgain.next());
+
+		dialogs.next().onCancellation();
+		assertEquals("cancellation", queued.next());
+		assertEquals("cancellation", queuedAgain.next());
+
+		assertEquals("Shown", dialogs.titles.poll());
+		assertEquals("Queued", dialogs.titles.poll());
+		assertNull(dialogs.titles.poll());
+	}
+
+	@Test
+	public void mergedCallsShareErrors() throws InterruptedException {
+		Dialogs dialogs = new Dialogs();
+		ChooserScheduler scheduler = new ChooserScheduler(dialogs);
+		Recorder first = new Recorder();
+		Recorder second = new Recorder();
+
+		scheduler.chooseFile(configuration("Failing"), first);
+		scheduler.chooseFile(configuration("Failing"), second);
+
+		dialogs.next().onError(new IllegalStateException("Failed"));
+		assertEquals("error IllegalStateException", first.next());
+		assertEquals("error IllegalStateException", second.next());
+		assertNull(dialogs.opened.poll());
+	}
+
+	@Test
+	public void higherPrioritiesFirstThenInOrderOfArrival() throws InterruptedException {
+		Dialogs dialogs = new Dialogs();
+		ChooserScheduler scheduler = new ChooserScheduler(dialogs);
+		Recorder callback = new Recorder();
+
+		scheduler.chooseFile(configuration("Shown"), callback);
+		scheduler.chooseFile(configuration("Low 1"), callback, ChooserScheduler.DEFAULT_PRIORITY);
+		scheduler.chooseFile(configuration("Lower"), callback, -1);
+		scheduler.chooseFile(configuration("Low 2"), callback, ChooserScheduler.DEFAULT_PRIORITY);
+		scheduler.chooseFile(configuration("High 1"), callback, 5);
+		scheduler.chooseFile(configuration("Low 3"), callback);
+		scheduler.chooseFile(configuration("High 2"), callback, 5);
+		assertEquals(6, scheduler.getQueued());
+
+		String[] expected = { "Shown", "High 1", "High 2", "Low 1", "Low 2", "Low 3", "Lower" };
+		for (String title : expected) {
+			NativeFileChooserCallback dialog = dialogs.next();
+			assertEquals(title, dialogs.titles.poll());
+			dialog.onCancellation();
+		}
+		assertEquals(0, scheduler.getQueued());
+	}
+
+	@Test
+	public void waitingCallsTimeOut() throws InterruptedException {
+		NativeFileChooser pending = new NativeFileChooser() {
+			@Override
+			public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+				// Never closed
+			}
+
+			@Override
+			public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+			}
+
+			@Override
+			public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+			}
+		};
+		ChooserScheduler scheduler = new ChooserScheduler(pending).setQueueTimeout(50L);
+		final BlockingQueue<Exception> errors = new ArrayBlockingQueue<>(2);
+		NativeFileChooserCallback callback = new NativeFileChooserCallback() {
+			@Override
+			public void onFileChosen(FileHandle file) {
+			}
+
+			@Override
+			public void onCancellation() {
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				errors.add(exception);
+			}
+		};
+
+		NativeFileChooserConfiguration shown = new NativeFileChooserConfiguration();
+		shown.title = "Shown";
+		scheduler.chooseFile(shown, callback);
+		scheduler.chooseFile(new NativeFileChooserConfiguration(), callback);
+
+		assertTrue(errors.poll(5L, TimeUnit.SECONDS) instanceof TimeoutException);
+		assertEquals(0, scheduler.getQueued());
+	}
+
+	@Test
+	public void timedOutCallsFailOffTheTimerThread() throws InterruptedException {
+		ChooserScheduler scheduler = new ChooserScheduler(new Dialogs()).setQueueTimeout(50L);
+		Recorder shown = new Recorder();
+		Recorder waiting = new Recorder();
+
+		scheduler.chooseFile(configuration("Shown"), shown);
+		scheduler.chooseFile(configuration("Waiting"), waiting);
+
+		assertEquals("error TimeoutException", waiting.next());
+		assertFalse(waiting.thread, waiting.thread.contains("timer"));
+		assertNull(shown.outcomes.poll());
+	}
+
+	@Test
+	public void timedOutDialogsHandOverOffTheTimerThread() throws InterruptedException {
+		// First dialog is never closed, the others are answered right away
+		final AtomicInteger calls = new AtomicInteger();
+		NativeFileChooser stuckOnce = new NativeFileChooser() {
+			@Override
+			public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+				if (calls.incrementAndGet() > 1)
+					callback.onFileChosen(new FileHandle("chosen"));
+			}
+
+			@Override
+			public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+			}
+
+			@Override
+			public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+			}
+		};
+		ChooserScheduler scheduler = new ChooserScheduler(stuckOnce);
+		final BlockingQueue<String> threads = new ArrayBlockingQueue<>(2);
+		NativeFileChooserCallback callback = new NativeFileChooserCallback() {
+			@Override
+			public void onFileChosen(FileHandle file) {
+				threads.add(Thread.currentThread().getName());
+			}
+
+			@Override
+			public void onCancellation() {
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				threads.add(Thread.currentThread().getName());
+			}
+		};
+
+		NativeFileChooserConfiguration stuck = new NativeFileChooserConfiguration();
+		stuck.title = "Stuck";
+		ChooserHandle handle = scheduler.chooseFile(stuck, callback, ChooserScheduler.DEFAULT_PRIORITY, new ChooserHandle().setTimeout(50L));
+		scheduler.chooseFile(new NativeFileChooserConfiguration(), callback, ChooserScheduler.DEFAULT_PRIORITY);
+
+		for (int i = 0; i < 2; i++) {
+			String thread = threads.poll(5L, TimeUnit.SECONDS);
+			assertNotNull(thread);
+			assertFalse(thread, thread.contains("timer"));
+		}
+		assertTrue(handle.isTimedOut());
+		assertEquals(2, calls.get());
+	}
+
+	private static WeakReference<NativeFileChooserCallback> choose(ChooserScheduler scheduler, final AtomicInteger chosen) {
+		NativeFileChooserCallback callback = new NativeFileChooserCallback() {
+			@Override
+			public void onFileChosen(FileHandle file) {
+				chosen.incrementAndGet();
+			}
+
+			@Override
+			public void onCancellation() {
+			}
+
+			@Override
+			public void onError(Exception exception) {
+			}
+		};
+		scheduler.chooseFile(new NativeFileChooserConfiguration(), callback);
+		return new WeakReference<>(callback);
+	}
+
+	private static NativeFileChooserConfiguration configuration(String title) {
+		NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+		configuration.title = title;
+		return configuration;
+	}
+
+	/*
+	 * Chooser whose dialogs stay open until the test closes them, in order.
+	 */
+	private static class Dialogs implements NativeFileChooser {
+
+		final BlockingQueue<NativeFileChooserCallback> opened = new ArrayBlockingQueue<>(16);
+		final BlockingQueue<String> titles = new ArrayBlockingQueue<>(16);
+
+		@Override
+		public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+			titles.add(configuration.title);
+			opened.add(callback);
+		}
+
+		@Override
+		public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		}
+
+		@Override
+		public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		}
+
+		NativeFileChooserCallback next() throws InterruptedException {
+			NativeFileChooserCallback callback = opened.poll(5L, TimeUnit.SECONDS);
+			assertNotNull(callback);
+			return callback;
+		}
+	}
+
+	private static class Recorder implements NativeFileChooserCallback {
+
+		final BlockingQueue<String> outcomes = new ArrayBlockingQueue<>(16);
+		volatile String thread;
+
+		@Override
+		public void onFileChosen(FileHandle file) {
+			record("file " + file.name());
+		}
+
+		@Override
+		public void onCancellation() {
+			record("cancellation");
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			record("error " + exception.getClass().getSimpleName());
+		}
+
+		private void record(String outcome) {
+			thread = Thread.currentThread().getName();
+			outcomes.add(outcome);
+		}
+
+		String next() throws InterruptedException {
+			return outcomes.poll(5L, TimeUnit.SECONDS);
+		}
+	}
+}
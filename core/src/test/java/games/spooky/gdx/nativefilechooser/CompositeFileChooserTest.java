@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompositeFileChooserTest {
+
+	private final List<Object> results = new ArrayList<>();
+
+	private final NativeFileChooserCallback callback = new NativeFileChooserCallback() {
+		@Override
+		public void onFileChosen(FileHandle file) {
+			results.add(file);
+		}
+
+		@Override
+		public void onCancellation() {
+			results.add("cancelled");
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			results.add(exception);
+		}
+	};
+
+	@Test
+	public void backendFailuresFallBack() {
+		FileHandle chosen = new FileHandle("chosen");
+		Backend broken = new Backend(new IllegalStateException("No dialog"));
+		Backend working = new Backend(chosen);
+
+		new CompositeFileChooser(broken, working).chooseFile(new NativeFileChooserConfiguration(), callback);
+
+		assertEquals(1, broken.calls);
+		assertEquals(1, working.calls);
+		assertEquals(1, results.size());
+		assertSame(chosen, results.get(0));
+	}
+
+	@Test
+	public void callFailuresGoStraightToTheCallback() {
+		Exception[] errors = { new IOException("Copy failed"),
+				new SelectionLimitException(SelectionLimitException.Limit.FILES, 1, 2, 1, new Array<FileHandle>()),
+				new IllegalArgumentException("SAVE intent is not supported") };
+		for (Exception error : errors) {
+			results.clear();
+			Backend failing = new Backend(error);
+			Backend other = new Backend(new FileHandle("chosen"));
+
+			new CompositeFileChooser(failing, other).chooseFile(new NativeFileChooserConfiguration(), callback);
+
+			assertEquals(0, other.calls);
+			assertEquals(1, results.size());
+			assertSame(error, results.get(0));
+		}
+	}
+
+	@Test
+	public void foldersFallBackOnUnsupportedOperations() {
+		FileHandle chosen = new FileHandle("chosen");
+		Backend noFolders = new Backend(new IllegalArgumentException("Choosing folder is not implemented"));
+		Backend working = new Backend(chosen);
+
+		new CompositeFileChooser(noFolders, working).chooseFolder(new NativeFolderChooserConfiguration(), new NativeFolderChooserCallback() {
+			@Override
+			public void onFolderChosen(FileHandle folder) {
+				results.add(folder);
+			}
+
+			@Override
+			public void onCancellation() {
+				results.add("cancelled");
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				results.add(exception);
+			}
+		});
+
+		assertEquals(1, working.calls);
+		assertEquals(1, results.size());
+		assertSame(chosen, results.get(0));
+	}
+
+	@Test
+	public void callbackExceptionsAreRethrown() {
+		IllegalStateException thrown = new IllegalStateException("Game bug");
+		Backend first = new Backend(new FileHandle("chosen"));
+		Backend second = new Backend(new FileHandle("other"));
+		try {
+			new CompositeFileChooser(first, second).chooseFile(new NativeFileChooserConfiguration(), new NativeFileChooserCallback() {
+				@Override
+				public void onFileChosen(FileHandle file) {
+					throw thrown;
+				}
+
+				@Override
+				public void onCancellation() {
+				}
+
+				@Override
+				public void onError(Exception exception) {
+					results.add(exception);
+				}
+			});
+			fail("Callback exception swallowed");
+		} catch (IllegalStateException ex) {
+			assertSame(thrown, ex);
+		}
+
+		assertEquals(0, second.calls);
+		assertTrue(results.isEmpty());
+	}
+
+	@Test
+	public void instancesOfTheSameClassKeepTheirOwnStatistics() {
+		Backend broken = new Backend(new IllegalStateException("No dialog"));
+		Backend working = new Backend(new FileHandle("chosen"));
+		CompositeFileChooser chooser = new CompositeFileChooser(broken, working);
+
+		chooser.chooseFile(new NativeFileChooserConfiguration(), callback);
+
+		assertSame(working, chooser.getPreferred());
+	}
+
+	// Answers every call the same way, right away
+	private static final class Backend implements NativeFileChooser {
+		private final Object answer;
+		int calls;
+
+		Backend(Object answer) {
+			this.answer = answer;
+		}
+
+		@Override
+		public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+			calls++;
+			if (answer instanceof Exception)
+				callback.onError((Exception) answer);
+			else
+				callback.onFileChosen((FileHandle) answer);
+		}
+
+		@Override
+		public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+			calls++;
+			if (answer instanceof Exception)
+				callback.onError((Exception) answer);
+			else
+				callback.onFolderChosen((FileHandle) answer);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class FileEnricherTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final FileEnricher enricher = new FileEnricher(executor);
+
+	private final BlockingQueue<Object> outcomes = new ArrayBlockingQueue<>(4);
+
+	private final FileEnrichmentCallback callback = new FileEnrichmentCallback() {
+		@Override
+		public void onFilesEnriched(Array<EnrichedFile> files) {
+			outcomes.add(files);
+		}
+
+		@Override
+		public void onCancellation() {
+			outcomes.add("cancellation");
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			outcomes.add(exception);
+		}
+	};
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void parallelDigestsMatchSequentialOnes() throws Exception {
+		// Files of various sizes, most of them bigger than the buffer
+		Array<FileHandle> files = createFiles(32, 20000);
+		FileEnrichmentConfiguration configuration = new FileEnrichmentConfiguration();
+		configuration.digestAlgorithm = "SHA-256";
+		configuration.bufferSize = 4096;
+
+		Array<EnrichedFile> enriched = enrich(files, configuration);
+		assertEquals(files.size, enriched.size);
+		for (int i = 0; i < files.size; i++) {
+			EnrichedFile file = enriched.get(i);
+			assertSame(files.get(i), file.file);
+			assertEquals(files.get(i).length(), file.size);
+			assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(files.get(i).readBytes()), file.digest);
+		}
+	}
+
+	@Test
+	public void crc32IsBigEndian() throws Exception {
+		Array<FileHandle> files = createFiles(8, 10000);
+		FileEnrichmentConfiguration configuration = new FileEnrichmentConfiguration();
+		configuration.digestAlgorithm = FileEnrichmentConfiguration.CRC32;
+
+		Array<EnrichedFile> enriched = enrich(files, configuration);
+		for (int i = 0; i < files.size; i++) {
+			CRC32 crc = new CRC32();
+			crc.update(files.get(i).readBytes());
+			assertEquals(String.format("%08x", crc.getValue()), enriched.get(i).digestHex());
+		}
+	}
+
+	@Test
+	public void attributesOnlyWithoutAlgorithm() throws Exception {
+		Array<FileHandle> files = createFiles(3, 100);
+		Array<EnrichedFile> enriched = enrich(files, new FileEnrichmentConfiguration());
+		for (int i = 0; i < files.size; i++) {
+			assertEquals(files.get(i).length(), enriched.get(i).size);
+			assertEquals(files.get(i).lastModified(), enriched.get(i).lastModified);
+			assertNull(enriched.get(i).digest);
+		}
+	}
+
+	@Test
+	public void noFilesNoWork() throws Exception {
+		assertEquals(0, enrich(new Array<FileHandle>(), new FileEnrichmentConfiguration()).size);
+	}
+
+	@Test
+	public void unknownAlgorithmFailsEarly() throws Exception {
+		FileEnrichmentConfiguration configuration = new FileEnrichmentConfiguration();
+		configuration.digestAlgorithm = "No such digest";
+		enricher.enrich(createFiles(1, 10), configuration, callback);
+		assertTrue(outcomes.poll(5L, TimeUnit.SECONDS) instanceof NoSuchAlgorithmException);
+	}
+
+	@Test
+	public void unreadableFileFailsTheWholeEnrichment() throws Exception {
+		Array<FileHandle> files = createFiles(4, 1000);
+		files.add(new FileHandle(new File(folder.getRoot(), "missing")));
+		FileEnrichmentConfiguration configuration = new FileEnrichmentConfiguration();
+		configuration.digestAlgorithm = "MD5";
+
+		enricher.enrich(files, configuration, callback);
+		assertTrue(outcomes.poll(5L, TimeUnit.SECONDS) instanceof FileNotFoundException);
+		assertNull(outcomes.poll(100L, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void cancelledEnrichmentIsNotDelivered() throws Exception {
+		// Keep every thread busy until the enrichment is cancelled
+		final CountDownLatch release = new CountDownLatch(1);
+		for (int i = 0; i < 4; i++) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						release.await();
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		FileEnrichmentConfiguration configuration = new FileEnrichmentConfiguration();
+		configuration.digestAlgorithm = "MD5";
+
+		ChooserHandle handle = enricher.enrich(createFiles(8, 1000), configuration, callback);
+		handle.cancel();
+		release.countDown();
+		assertEquals("cancellation", outcomes.poll(5L, TimeUnit.SECONDS));
+		assertNull(outcomes.poll(100L, TimeUnit.MILLISECONDS));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Array<EnrichedFile> enrich(Array<FileHandle> files, FileEnrichmentConfiguration configuration) throws InterruptedException {
+		enricher.enrich(files, configuration, callback);
+		Object outcome = outcomes.poll(5L, TimeUnit.SECONDS);
+		if (!(outcome instanceof Array))
+			throw new AssertionError("Unexpected outcome: " + outcome);
+		return (Array<EnrichedFile>) outcome;
+	}
+
+	private Array<FileHandle> createFiles(int count, int maxBytes) throws IOException {
+		Random random = new Random(count);
+		Array<FileHandle> files = new Array<>();
+		for (int i = 0; i < count; i++) {
+			byte[] bytes = new byte[random.nextInt(maxBytes + 1)];
+			random.nextBytes(bytes);
+			File file = folder.newFile("file" + i);
+			Files.write(file.toPath(), bytes);
+			files.add(new FileHandle(file));
+		}
+		return files;
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FolderImporterTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final ExecutorService thread = Executors.newSingleThreadExecutor();
+	private final AtomicInteger tasks = new AtomicInteger();
+
+	@After
+	public void shutdown() {
+		thread.shutdownNow();
+	}
+
+	@Test
+	public void walkStopsOnceMaxCountIsReached() throws Exception {
+		// One file next to deep, empty trees
+		new File(folder.newFolder("first"), "file").createNewFile();
+		for (int i = 0; i < 50; i++)
+			folder.newFolder("directory" + i, "a", "b", "c");
+
+		FolderImportConfiguration configuration = new FolderImportConfiguration();
+		configuration.maxCount = 1;
+		final AtomicInteger imported = new AtomicInteger();
+		final AtomicInteger total = new AtomicInteger(-1);
+		final CountDownLatch done = new CountDownLatch(1);
+
+		new FolderImporter(countingExecutor()).importFolder(new FileHandle(folder.getRoot()), configuration, new FolderImportCallback() {
+			@Override
+			public void onFilesImported(Array<FileHandle> files) {
+				imported.addAndGet(files.size);
+			}
+
+			@Override
+			public void onImportCompleted(int count) {
+				total.set(count);
+				done.countDown();
+			}
+
+			@Override
+			public void onCancellation() {
+				done.countDown();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				done.countDown();
+			}
+		});
+
+		assertTrue(done.await(10L, TimeUnit.SECONDS));
+		assertEquals(1, total.get());
+		assertEquals(1, imported.get());
+		// Root, first level and at most one level more: 202 directories otherwise
+		assertTrue("Walked " + tasks.get() + " directories", tasks.get() <= 102);
+	}
+
+	@Test
+	public void filesOfUnknownTypeDoNotMatchMimeFilter() throws Exception {
+		folder.newFile("image.png");
+		folder.newFile("sound.ogg");
+		folder.newFile("notes.txt");
+		folder.newFile("data.unknown-type");
+		new File(folder.newFolder("sub"), "other.png").createNewFile();
+
+		FolderImportConfiguration configuration = new FolderImportConfiguration();
+		configuration.mimeFilter = "image/*";
+		final Set<String> imported = Collections.synchronizedSet(new TreeSet<String>());
+		final CountDownLatch done = new CountDownLatch(1);
+
+		new FolderImporter(countingExecutor()).importFolder(new FileHandle(folder.getRoot()), configuration, new FolderImportCallback() {
+			@Override
+			public void onFilesImported(Array<FileHandle> files) {
+				for (FileHandle file : files)
+					imported.add(file.name());
+			}
+
+			@Override
+			public void onImportCompleted(int count) {
+				done.countDown();
+			}
+
+			@Override
+			public void onCancellation() {
+				done.countDown();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				done.countDown();
+			}
+		});
+
+		assertTrue(done.await(10L, TimeUnit.SECONDS));
+		assertEquals(new TreeSet<>(Arrays.asList("image.png", "other.png")), imported);
+	}
+
+	@Test
+	public void callbacksLeaveWalkingThreads() throws Exception {
+		folder.newFile("file");
+		final String walker = thread.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				return Thread.currentThread().getName();
+			}
+		}).get();
+		final Set<String> threads = Collections.synchronizedSet(new TreeSet<String>());
+		final CountDownLatch done = new CountDownLatch(1);
+
+		new FolderImporter(countingExecutor()).importFolder(new FileHandle(folder.getRoot()), new FolderImportConfiguration(), new FolderImportCallback() {
+			@Override
+			public void onFilesImported(Array<FileHandle> files) {
+				threads.add(Thread.currentThread().getName());
+			}
+
+			@Override
+			public void onImportCompleted(int count) {
+				threads.add(Thread.currentThread().getName());
+				done.countDown();
+			}
+
+			@Override
+			public void onCancellation() {
+				done.countDown();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				done.countDown();
+			}
+		});
+
+		assertTrue(done.await(10L, TimeUnit.SECONDS));
+		assertEquals(1, threads.size());
+		assertFalse(threads.contains(walker));
+	}
+
+	private ExecutorService countingExecutor() {
+		return new AbstractExecutorService() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.incrementAndGet();
+				thread.execute(command);
+			}
+
+			@Override
+			public void shutdown() {
+				thread.shutdown();
+			}
+
+			@Override
+			public List<Runnable> shutdownNow() {
+				return thread.shutdownNow();
+			}
+
+			@Override
+			public boolean isShutdown() {
+				return thread.isShutdown();
+			}
+
+			@Override
+			public boolean isTerminated() {
+				return thread.isTerminated();
+			}
+
+			@Override
+			public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+				return thread.awaitTermination(timeout, unit);
+			}
+		};
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class PathSetTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// ASCII, 2-byte (é), 3-byte (€, 日本) and 4-byte (emoji, surrogate pair) sequences
+	private static final String[] paths = { "/home/player/save.dat", "/home/joueur/été.txt", "C:\\Users\\日本\\€uro",
+			"/tmp/\uD83C\uDFAE/game", "", "/\u07FF\u0800\uFFFF" };
+
+	@Test
+	public void pathsRoundTrip() {
+		PathSet set = new PathSet(1);
+		for (String path : paths)
+			set.add(path);
+
+		assertEquals(paths.length, set.size());
+		for (int i = 0; i < paths.length; i++) {
+			byte[] expected = paths[i].getBytes(UTF_8);
+			assertEquals(paths[i], set.get(i));
+			assertEquals(paths[i], set.appendTo(i, new StringBuilder()).toString());
+			assertEquals(expected.length, set.byteLength(i));
+			assertEquals(ByteBuffer.wrap(expected), set.view(i));
+		}
+	}
+
+	@Test
+	public void loneSurrogatesAreReplaced() {
+		PathSet set = new PathSet();
+		set.add("a\uD83Cb\uDFAEc");
+
+		assertEquals("a?b?c", set.get(0));
+		assertEquals("a\uD83Cb\uDFAEc".getBytes(UTF_8).length, set.byteLength(0));
+	}
+
+	@Test
+	public void utf8BytesAreStoredAsIs() {
+		PathSet set = new PathSet();
+		for (String path : paths) {
+			byte[] utf8 = ("#" + path + "#").getBytes(UTF_8);
+			set.add(utf8, 1, utf8.length - 2);
+			set.add(ByteBuffer.wrap(path.getBytes(UTF_8)));
+		}
+
+		for (int i = 0; i < paths.length; i++) {
+			assertEquals(paths[i], set.get(2 * i));
+			assertEquals(paths[i], set.get(2 * i + 1));
+		}
+	}
+
+	@Test
+	public void truncatedSequencesDecodeToReplacementCharacter() {
+		PathSet set = new PathSet();
+		byte[] utf8 = "a\uD83C\uDFAE".getBytes(UTF_8);
+		set.add(utf8, 0, utf8.length - 1);
+
+		assertEquals("a\uFFFD", set.appendTo(0, new StringBuilder()).toString());
+	}
+
+	@Test
+	public void sortFollowsCodePointOrder() {
+		Random random = new Random(42L);
+		List<String> expected = new ArrayList<>();
+		PathSet set = new PathSet(4);
+		for (int i = 0; i < 1000; i++) {
+			String path = paths[random.nextInt(paths.length)] + random.nextInt(100);
+			expected.add(path);
+			set.add(path);
+		}
+		Collections.sort(expected, new Comparator<String>() {
+			@Override
+			public int compare(String first, String second) {
+				// Not String.compareTo, which is UTF-16 order
+				for (int i = 0, j = 0; i < first.length() && j < second.length(); ) {
+					int a = first.codePointAt(i);
+					int b = second.codePointAt(j);
+					if (a != b)
+						return a - b;
+					i += Character.charCount(a);
+					j += Character.charCount(b);
+				}
+				return first.codePointCount(0, first.length()) - second.codePointCount(0, second.length());
+			}
+		});
+
+		set.sort();
+
+		for (int i = 0; i < expected.size(); i++)
+			assertEquals(expected.get(i), set.get(i));
+	}
+
+	@Test
+	public void binarySearchFindsPathsAndInsertionPoints() {
+		PathSet set = new PathSet();
+		set.add("/b");
+		set.add("/d/\u00E9");
+		set.add("/d/\uD83C\uDFAE");
+		set.add("/f");
+
+		assertEquals(0, set.binarySearch("/b"));
+		assertEquals(1, set.binarySearch("/d/\u00E9"));
+		assertEquals(2, set.binarySearch("/d/\uD83C\uDFAE"));
+		assertEquals(3, set.binarySearch("/f"));
+		assertEquals(-1, set.binarySearch("/a"));
+		assertEquals(-2, set.binarySearch("/c"));
+		// U+FFFF sorts between é and the emoji in code point order
+		assertEquals(-3, set.binarySearch("/d/\uFFFF"));
+		assertEquals(-5, set.binarySearch("/g"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void binarySearchNeedsSortedPaths() {
+		PathSet set = new PathSet();
+		set.add("/b");
+		set.add("/a");
+		set.binarySearch("/a");
+	}
+
+	@Test
+	public void clearKeepsTheSetUsable() {
+		PathSet set = new PathSet();
+		set.add("/b");
+		set.add("/a");
+		set.clear();
+
+		assertTrue(set.isEmpty());
+		set.add("/c");
+		assertEquals(0, set.binarySearch("/c"));
+		assertFalse(set.isEmpty());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void indexesAreChecked() {
+		PathSet set = new PathSet();
+		set.add("/a");
+		set.get(1);
+	}
+
+	@Test
+	public void filesAreCreatedFromPaths() {
+		PathSet set = new PathSet();
+		for (String path : paths)
+			set.add(path);
+
+		Array<FileHandle> files = set.toFiles(new Array<FileHandle>());
+
+		assertEquals(paths.length, files.size);
+		for (int i = 0; i < paths.length; i++)
+			assertEquals(new FileHandle(paths[i]).path(), files.get(i).path());
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import org.junit.Test;
+
+public class RecentLocationsTest {
+
+	private NativeChooserConfiguration received;
+
+	// Records the configuration it is called with, then cancels
+	private final NativeFileChooser chooser = new NativeFileChooser() {
+		@Override
+		public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+			received = configuration;
+			callback.onCancellation();
+		}
+
+		@Override
+		public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+			received = configuration;
+			callback.onCancellation();
+		}
+
+		@Override
+		public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+			received = configuration;
+			callback.onCancellation();
+		}
+	};
+
+	private final NativeFolderChooserCallback ignored = new NativeFolderChooserCallback() {
+		@Override
+		public void onFolderChosen(FileHandle folder) {
+		}
+
+		@Override
+		public void onCancellation() {
+		}
+
+		@Override
+		public void onError(Exception exception) {
+		}
+	};
+
+	@Test
+	public void chooserConfiguresACopy() {
+		RecentLocations locations = new RecentLocations(null);
+		FileHandle last = new FileHandle("saves");
+		locations.record("saves", last);
+
+		NativeFolderChooserConfiguration configuration = new NativeFolderChooserConfiguration();
+		configuration.title = "Load";
+		locations.chooser("saves", chooser).chooseFolder(configuration, ignored);
+
+		assertNull(configuration.directory);
+		assertNotSame(configuration, received);
+		assertEquals(last.file().getAbsolutePath(), received.directory.file().getAbsolutePath());
+		assertEquals("Load", received.title);
+	}
+}
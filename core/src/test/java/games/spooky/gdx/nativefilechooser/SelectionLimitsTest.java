@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class SelectionLimitsTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+
+	private final FileHandle first = new FileHandle("first");
+	private final FileHandle second = new FileHandle("second");
+	private final FileHandle third = new FileHandle("third");
+
+	@Test
+	public void maxFilesIsInclusive() throws SelectionLimitException {
+		configuration.maxFiles = 2;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.checkCount(2);
+		limits.add(first, SelectionEntry.UNKNOWN);
+		limits.add(second, SelectionEntry.UNKNOWN);
+
+		SelectionLimitException ex = expectFailure(limits, third, SelectionEntry.UNKNOWN);
+		assertEquals(SelectionLimitException.Limit.FILES, ex.getLimit());
+		assertEquals(2L, ex.getMaximum());
+		assertEquals(3L, ex.getActual());
+		assertEquals(2, ex.getIndex());
+		assertEquals(Array.with(first, second), ex.getAccepted());
+	}
+
+	@Test
+	public void maxFilesFailsOnCountFirst() {
+		configuration.maxFiles = 2;
+		try {
+			new SelectionLimits(configuration).checkCount(3);
+			fail();
+		} catch (SelectionLimitException ex) {
+			assertEquals(SelectionLimitException.Limit.FILES, ex.getLimit());
+			assertEquals(3L, ex.getActual());
+			assertEquals(0, ex.getIndex());
+			assertEquals(0, ex.getAccepted().size);
+		}
+	}
+
+	@Test
+	public void maxFileBytesIsInclusive() throws SelectionLimitException {
+		configuration.maxFileBytes = 100L;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		assertTrue(limits.sizeLimited());
+		limits.add(first, 100L);
+		limits.add(second, 100L);
+
+		SelectionLimitException ex = expectFailure(limits, third, 101L);
+		assertEquals(SelectionLimitException.Limit.FILE_BYTES, ex.getLimit());
+		assertEquals(100L, ex.getMaximum());
+		assertEquals(101L, ex.getActual());
+		assertEquals(2, ex.getIndex());
+	}
+
+	@Test
+	public void maxTotalBytesIsInclusive() throws SelectionLimitException {
+		configuration.maxTotalBytes = 100L;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.add(first, 60L);
+		limits.add(second, 40L);
+
+		SelectionLimitException ex = expectFailure(limits, third, 1L);
+		assertEquals(SelectionLimitException.Limit.TOTAL_BYTES, ex.getLimit());
+		assertEquals(100L, ex.getMaximum());
+		assertEquals(101L, ex.getActual());
+		assertEquals(2, ex.getIndex());
+		assertEquals(Array.with(first, second), ex.getAccepted());
+	}
+
+	@Test
+	public void unknownSizesAreNotChecked() throws SelectionLimitException {
+		configuration.maxFileBytes = 1L;
+		configuration.maxTotalBytes = 1L;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.add(first, SelectionEntry.UNKNOWN);
+		limits.add(second, SelectionEntry.UNKNOWN);
+		limits.add(null, 1L);
+	}
+
+	@Test
+	public void filesNotAtHandAreCountedButNotAccepted() throws SelectionLimitException {
+		configuration.maxFiles = 1;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.add(null, SelectionEntry.UNKNOWN);
+
+		SelectionLimitException ex = expectFailure(limits, first, SelectionEntry.UNKNOWN);
+		assertEquals(1, ex.getIndex());
+		assertEquals(0, ex.getAccepted().size);
+	}
+
+	@Test
+	public void acceptedFilesAreACopy() throws SelectionLimitException {
+		configuration.maxFiles = 1;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		limits.add(first, SelectionEntry.UNKNOWN);
+		Array<FileHandle> accepted = expectFailure(limits, second, SelectionEntry.UNKNOWN).getAccepted();
+		accepted.clear();
+		assertEquals(Array.with(first), expectFailure(limits, second, SelectionEntry.UNKNOWN).getAccepted());
+	}
+
+	@Test
+	public void isLimitedByAnyLimit() {
+		assertFalse(SelectionLimits.isLimited(configuration));
+		configuration.maxFiles = 1;
+		assertTrue(SelectionLimits.isLimited(configuration));
+		configuration.maxFiles = 0;
+		configuration.maxFileBytes = 1L;
+		assertTrue(SelectionLimits.isLimited(configuration));
+		configuration.maxFileBytes = 0L;
+		configuration.maxTotalBytes = 1L;
+		assertTrue(SelectionLimits.isLimited(configuration));
+	}
+
+	@Test
+	public void savingIsNeverLimited() throws SelectionLimitException {
+		configuration.intent = NativeFileChooserIntent.SAVE;
+		configuration.maxFiles = 1;
+		configuration.maxFileBytes = 1L;
+		configuration.maxTotalBytes = 1L;
+		assertFalse(SelectionLimits.isLimited(configuration));
+
+		SelectionLimits limits = new SelectionLimits(configuration);
+		assertFalse(limits.sizeLimited());
+		limits.checkCount(2);
+		limits.add(first, 10L);
+		limits.add(second, 10L);
+	}
+
+	@Test
+	public void checkReadsSizesFromFileSystem() throws IOException {
+		Array<FileHandle> selection = Array.with(createFile("a", 10), createFile("b", 20), createFile("c", 30));
+		configuration.maxTotalBytes = 30L;
+		try {
+			SelectionLimits.check(configuration, selection);
+			fail();
+		} catch (SelectionLimitException ex) {
+			assertEquals(SelectionLimitException.Limit.TOTAL_BYTES, ex.getLimit());
+			assertEquals(2, ex.getIndex());
+			assertEquals(60L, ex.getActual());
+		}
+
+		configuration.maxTotalBytes = 60L;
+		SelectionLimits.check(configuration, selection);
+	}
+
+	private static SelectionLimitException expectFailure(SelectionLimits limits, FileHandle file, long bytes) {
+		try {
+			limits.add(file, bytes);
+		} catch (SelectionLimitException ex) {
+			return ex;
+		}
+		throw new AssertionError("Limit not enforced for " + file);
+	}
+
+	private FileHandle createFile(String name, int bytes) throws IOException {
+		File file = folder.newFile(name);
+		Files.write(file.toPath(), new byte[bytes]);
+		return new FileHandle(file);
+	}
+}
@@ -25,8 +25,7 @@ package games.spooky.gdx.nativefilechooser.demo;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
-import games.spooky.gdx.nativefilechooser.desktop.DesktopFileChooser;
-import games.spooky.gdx.nativefilechooser.desktop.SwingFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserLoader;
 
 import java.util.Arrays;
 
@@ -35,7 +34,8 @@ public class GdxNativeFileChooserDemoDesktop {
 
 		boolean swing = args != null && Arrays.asList(args).contains("--swing");
 
-		GdxNativeFileChooserDemo demo = new GdxNativeFileChooserDemo(swing ? new SwingFileChooser() : new DesktopFileChooser());
+		// Backend classes are only loaded once a dialog is asked for
+		GdxNativeFileChooserDemo demo = new GdxNativeFileChooserDemo(NativeFileChooserLoader.load(swing ? "Swing" : "AWT"));
 
 		Lwjgl3ApplicationConfiguration configuration = new Lwjgl3ApplicationConfiguration();
 		configuration.setTitle("gdx-nativefilechooser demo (desktop)");
@@ -25,13 +25,13 @@ package games.spooky.gdx.nativefilechooser.demo;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
-import games.spooky.gdx.nativefilechooser.desktop.DesktopFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserLoader;
 
 public class GdxNativeFileChooserDemoDesktopLwjgl {
 	public static void main(String[] args) {
 		Lwjgl3ApplicationConfiguration configuration = new Lwjgl3ApplicationConfiguration();
 		configuration.setTitle("gdx-nativefilechooser demo (desktop-lwjgl)");
 		configuration.setWindowedMode(1200, 800);
-		new Lwjgl3Application(new GdxNativeFileChooserDemo(new DesktopFileChooser()), configuration);
+		new Lwjgl3Application(new GdxNativeFileChooserDemo(NativeFileChooserLoader.load()), configuration);
 	}
 }
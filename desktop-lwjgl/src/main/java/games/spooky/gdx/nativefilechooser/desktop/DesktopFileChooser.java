@@ -31,6 +31,7 @@ import static org.lwjgl.util.nfd.NativeFileDialog.NFD_PathSet_EnumNext;
 import static org.lwjgl.util.nfd.NativeFileDialog.NFD_PathSet_Free;
 import static org.lwjgl.util.nfd.NativeFileDialog.NFD_PathSet_FreeEnum;
 import static org.lwjgl.util.nfd.NativeFileDialog.NFD_PathSet_FreePath;
+import static org.lwjgl.util.nfd.NativeFileDialog.NFD_PathSet_GetCount;
 import static org.lwjgl.util.nfd.NativeFileDialog.NFD_PathSet_GetEnum;
 import static org.lwjgl.util.nfd.NativeFileDialog.nNFD_FreePath;
 
@@ -48,13 +49,24 @@ import org.lwjgl.util.nfd.NFDFilterItem;
 import org.lwjgl.util.nfd.NFDPathSetEnum;
 import org.lwjgl.util.nfd.NativeFileDialog;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.IntBuffer;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.ChooserPools;
+import games.spooky.gdx.nativefilechooser.NativeChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFileChooser;
 import games.spooky.gdx.nativefilechooser.NativeFileChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
@@ -63,8 +75,23 @@ import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
 import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
 import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFoldersChooser;
+import games.spooky.gdx.nativefilechooser.NativeFoldersChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativePathSetCallback;
+import games.spooky.gdx.nativefilechooser.NativePathSetChooser;
+import games.spooky.gdx.nativefilechooser.NativeSelectionCallback;
+import games.spooky.gdx.nativefilechooser.NativeSelectionChooser;
+import games.spooky.gdx.nativefilechooser.PathSet;
+import games.spooky.gdx.nativefilechooser.SelectionEntry;
+import games.spooky.gdx.nativefilechooser.SelectionLimits;
 
-public class DesktopFileChooser implements NativeFileChooser {
+public class DesktopFileChooser implements NativeFileChooser, NativeSelectionChooser, NativeFoldersChooser, NativePathSetChooser {
+
+	private static final int FILTER_SPEC_CACHE_SIZE = 32;
+
+	private static final Map<String, Collection<FileFilter>> filterSpecs = new ConcurrentHashMap<>();
+
+	private static final AtomicBoolean warmedUp = new AtomicBoolean();
 
 	@Override
 	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
@@ -72,6 +99,9 @@ public class DesktopFileChooser implements NativeFileChooser {
         NativeFileChooserUtils.checkNotNull(configuration, "configuration");
         NativeFileChooserUtils.checkNotNull(callback, "callback");
 
+		ChooserMetrics metrics = configuration.metrics;
+		long start = metrics == null ? 0L : System.nanoTime();
+
 		NFDFilterItem.Buffer filterList = null;
 
         try (MemoryStack stack = stackPush()) {
@@ -81,15 +111,22 @@ public class DesktopFileChooser implements NativeFileChooser {
 			}
 
 			PointerBuffer path = stack.mallocPointer(1);
+			start = dialogOpened(metrics, start);
+			Object event = DesktopEvents.DIALOG.begin();
             int result = configuration.intent == NativeFileChooserIntent.SAVE ?
                     NativeFileDialog.NFD_SaveDialog(path, filterList, configuration.directory.path(), null) :
                     NativeFileDialog.NFD_OpenDialog(path, filterList, configuration.directory.path());
+			dialogClosed(metrics, start);
+			if (event != null)
+				DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title,
+						configuration.intent == NativeFileChooserIntent.SAVE ? "SAVE" : "OPEN", result == NativeFileDialog.NFD_OKAY ? 1 : 0);
 
             switch (result) {
                 case NativeFileDialog.NFD_OKAY:
                     FileHandle file = new FileHandle(path.getStringUTF8(0));
-                    callback.onFileChosen(file);
                     NFD_FreePath(path.get(0));
+                    SelectionLimits.check(configuration, Array.with(file));
+                    callback.onFileChosen(file);
                     break;
                 case NativeFileDialog.NFD_CANCEL:
                     callback.onCancellation();
@@ -111,6 +148,44 @@ public class DesktopFileChooser implements NativeFileChooser {
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
 
+		openMultiple(configuration, callback, paths -> callback.onFilesChosen(paths.toFiles(ChooserPools.obtainArray())));
+	}
+
+	@Override
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		// NFD only gives paths, leave everything else for later
+		openMultiple(configuration, callback, paths -> {
+			Array<SelectionEntry> entries = ChooserPools.obtainArray();
+			entries.ensureCapacity(paths.size());
+			for (int i = 0; i < paths.size(); i++)
+				entries.add(new SelectionEntry(paths.get(i)));
+			callback.onEntriesChosen(entries);
+		});
+	}
+
+	@Override
+	public void choosePaths(NativeFileChooserConfiguration configuration, NativePathSetCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		openMultiple(configuration, callback, callback::onPathsChosen);
+	}
+
+	/*
+	 * Open a multiple selection dialog, paths going from native memory straight
+	 * into a PathSet handed to given sink. Limits are checked path by path,
+	 * before anything else is built out of them.
+	 */
+	private void openMultiple(NativeFileChooserConfiguration configuration, NativeChooserCallback callback, Consumer<PathSet> onChosen) {
+
+		ChooserMetrics metrics = configuration.metrics;
+		long start = metrics == null ? 0L : System.nanoTime();
+
 		NFDFilterItem.Buffer filterList = null;
 
 		try (MemoryStack stack = stackPush()) {
@@ -120,29 +195,55 @@ public class DesktopFileChooser implements NativeFileChooser {
 			}
 
 			PointerBuffer path = stack.mallocPointer(1);
+			start = dialogOpened(metrics, start);
+			Object event = DesktopEvents.DIALOG.begin();
 			int result = NativeFileDialog.NFD_OpenDialogMultiple(path, filterList, configuration.directory.path());
+			dialogClosed(metrics, start);
 
 			switch (result) {
 				case NativeFileDialog.NFD_OKAY:
 					long pathSet = path.get(0);
 
+					IntBuffer count = stack.callocInt(1);
+					NFD_PathSet_GetCount(pathSet, count);
+					if (event != null)
+						DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "OPEN", count.get(0));
+
 					NFDPathSetEnum psEnum = NFDPathSetEnum.calloc(stack);
 					NFD_PathSet_GetEnum(pathSet, psEnum);
 
-					Array<FileHandle> files = new Array<>();
-					while (NFD_PathSet_EnumNext(psEnum, path) == NativeFileDialog.NFD_OKAY && path.get(0) != MemoryUtil.NULL) {
-						files.add(new FileHandle(Objects.requireNonNull(path.getStringUTF8(0))));
-						NFD_PathSet_FreePath(path.get(0));
+					// Native UTF-8 goes straight into the set, no String decoded unless sizes are limited
+					SelectionLimits limits = SelectionLimits.isLimited(configuration) ? new SelectionLimits(configuration) : null;
+					PathSet paths = new PathSet(count.get(0));
+					try {
+						if (limits != null)
+							limits.checkCount(count.get(0));
+						while (NFD_PathSet_EnumNext(psEnum, path) == NativeFileDialog.NFD_OKAY && path.get(0) != MemoryUtil.NULL) {
+							paths.add(MemoryUtil.memByteBufferNT1(path.get(0)));
+							NFD_PathSet_FreePath(path.get(0));
+							if (limits != null) {
+								if (limits.sizeLimited()) {
+									FileHandle file = paths.file(paths.size() - 1);
+									limits.add(file, file.length());
+								} else {
+									limits.add(null, SelectionEntry.UNKNOWN);
+								}
+							}
+						}
+					} finally {
+						NFD_PathSet_FreeEnum(psEnum);
+						NFD_PathSet_Free(pathSet);
 					}
-					callback.onFilesChosen(files);
-
-					NFD_PathSet_FreeEnum(psEnum);
-					NFD_PathSet_Free(pathSet);
+					onChosen.accept(paths);
 					break;
 				case NativeFileDialog.NFD_CANCEL:
+					if (event != null)
+						DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "OPEN", 0);
 					callback.onCancellation();
 					break;
 				case NativeFileDialog.NFD_ERROR:
+					if (event != null)
+						DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "OPEN", 0);
 					callback.onError(new Exception(NFD_GetError()));
 					break;
 			}
@@ -159,10 +260,18 @@ public class DesktopFileChooser implements NativeFileChooser {
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
 
+		ChooserMetrics metrics = configuration.metrics;
+		long start = metrics == null ? 0L : System.nanoTime();
+
 		try (MemoryStack stack = stackPush()) {
 
 			PointerBuffer path = stack.mallocPointer(1);
+			start = dialogOpened(metrics, start);
+			Object event = DesktopEvents.DIALOG.begin();
 			int result = NativeFileDialog.NFD_PickFolder(path, configuration.directory.path());
+			dialogClosed(metrics, start);
+			if (event != null)
+				DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "FOLDER", result == NativeFileDialog.NFD_OKAY ? 1 : 0);
 
 			switch (result) {
 				case NativeFileDialog.NFD_OKAY:
@@ -182,8 +291,151 @@ public class DesktopFileChooser implements NativeFileChooser {
 		}
 	}
 
+	@Override
+	public void chooseFolders(NativeFolderChooserConfiguration configuration, final NativeFoldersChooserCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		MethodHandle pickFolderMultiple = PickFolderMultiple.handle;
+		if (pickFolderMultiple == null) {
+			// NFD older than its multiple folder picker, one folder it is
+			chooseFolder(configuration, new NativeFolderChooserCallback() {
+				@Override
+				public void onFolderChosen(FileHandle folder) {
+					callback.onFolderChosen(folder);
+					callback.onFoldersChosen(1);
+				}
+
+				@Override
+				public void onCancellation() {
+					callback.onCancellation();
+				}
+
+				@Override
+				public void onError(Exception exception) {
+					callback.onError(exception);
+				}
+			});
+			return;
+		}
+
+		ChooserMetrics metrics = configuration.metrics;
+		long start = metrics == null ? 0L : System.nanoTime();
+
+		try (MemoryStack stack = stackPush()) {
+
+			PointerBuffer path = stack.mallocPointer(1);
+			start = dialogOpened(metrics, start);
+			Object event = DesktopEvents.DIALOG.begin();
+			int result = PickFolderMultiple.invoke(pickFolderMultiple, path, configuration.directory.path());
+			dialogClosed(metrics, start);
+
+			switch (result) {
+				case NativeFileDialog.NFD_OKAY:
+					long pathSet = path.get(0);
+
+					IntBuffer count = stack.callocInt(1);
+					NFD_PathSet_GetCount(pathSet, count);
+					if (event != null)
+						DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "FOLDER", count.get(0));
+
+					NFDPathSetEnum psEnum = NFDPathSetEnum.calloc(stack);
+					NFD_PathSet_GetEnum(pathSet, psEnum);
+
+					// Hand folders over as they are decoded, so that work on the first ones can start
+					int chosen = 0;
+					try {
+						while (NFD_PathSet_EnumNext(psEnum, path) == NativeFileDialog.NFD_OKAY && path.get(0) != MemoryUtil.NULL) {
+							String folder = Objects.requireNonNull(path.getStringUTF8(0));
+							NFD_PathSet_FreePath(path.get(0));
+							callback.onFolderChosen(new FileHandle(folder));
+							chosen++;
+						}
+					} finally {
+						NFD_PathSet_FreeEnum(psEnum);
+						NFD_PathSet_Free(pathSet);
+					}
+					callback.onFoldersChosen(chosen);
+					break;
+				case NativeFileDialog.NFD_CANCEL:
+					if (event != null)
+						DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "FOLDER", 0);
+					callback.onCancellation();
+					break;
+				case NativeFileDialog.NFD_ERROR:
+					if (event != null)
+						DesktopEvents.DIALOG.commit(event, "LWJGL", configuration.title, "FOLDER", 0);
+					callback.onError(new Exception(NFD_GetError()));
+					break;
+			}
+		} catch (Exception e) {
+			callback.onError(e);
+		}
+	}
+
+	@Override
+	public void warmUp() {
+		if (!warmedUp.compareAndSet(false, true))
+			return;
+
+		NativeFileChooserUtils.warmUpInBackground("DesktopFileChooser", () -> {
+			// Tika parses its whole MIME database on first use
+			MimeTypes.getDefaultMimeTypes().getMediaTypeRegistry().getTypes();
+
+			// Initializing the class loads NFD natives
+			try {
+				Class.forName(NativeFileDialog.class.getName(), true, DesktopFileChooser.class.getClassLoader());
+			} catch (ClassNotFoundException ignored) {
+			}
+		});
+	}
+
+	// NFD does not tell when its dialog shows up, report the time until it is requested
+	private static long dialogOpened(ChooserMetrics metrics, long start) {
+		if (metrics == null)
+			return start;
+		long now = System.nanoTime();
+		metrics.onDialogOpened(now - start);
+		return now;
+	}
+
+	private static void dialogClosed(ChooserMetrics metrics, long opened) {
+		if (metrics != null)
+			metrics.onDialogClosed(System.nanoTime() - opened);
+	}
+
 	static NFDFilterItem.Buffer createFilterList(final String mimeTypeFilter, MemoryStack stack) {
 
+		Object event = DesktopEvents.FILTER_LIST.begin();
+
+		// Resolving MIME types is costly and always gives the same answer
+		Collection<FileFilter> filters = filterSpecs.get(mimeTypeFilter);
+		if (filters == null) {
+			filters = resolveFilters(mimeTypeFilter);
+			if (filterSpecs.size() >= FILTER_SPEC_CACHE_SIZE)
+				filterSpecs.clear();
+			filterSpecs.put(mimeTypeFilter, filters);
+		}
+
+        int length = filters.size();
+		if (event != null)
+			DesktopEvents.FILTER_LIST.commit(event, mimeTypeFilter, length);
+        if (length > 0) {
+			NFDFilterItem.Buffer filterList = NFDFilterItem.malloc(length);
+            int i = 0;
+            for (FileFilter filter : filters) {
+                filterList.get(i++)
+                        .name(stack.UTF8(filter.name))
+                        .spec(stack.UTF8(filter.spec));
+            }
+			return filterList;
+        } else {
+			return null;
+		}
+    }
+
+	private static Collection<FileFilter> resolveFilters(final String mimeTypeFilter) {
 		Collection<FileFilter> filters;
 
 		try {
@@ -203,28 +455,18 @@ public class DesktopFileChooser implements NativeFileChooser {
 				}
 			}).collect(Collectors.toList());
 		}
-
-        int length = filters.size();
-        if (length > 0) {
-			NFDFilterItem.Buffer filterList = NFDFilterItem.malloc(length);
-            int i = 0;
-            for (FileFilter filter : filters) {
-                filterList.get(i++)
-                        .name(stack.UTF8(filter.name))
-                        .spec(stack.UTF8(filter.spec));
-            }
-			return filterList;
-        } else {
-			return null;
-		}
-    }
+		return filters;
+	}
 
 	static Collection<MimeType> findEligibleMimeTypes(final String mimeType) throws MimeTypeException {
+		Object event = DesktopEvents.MIME_RESOLUTION.begin();
+
 		MimeTypes allMimeTypes = MimeTypes.getDefaultMimeTypes();
 
+		Collection<MimeType> eligible;
 		if (mimeType.contains("*")) {
 			final Pattern mimePattern = NativeFileChooserUtils.mimePattern(mimeType);
-			return allMimeTypes.getMediaTypeRegistry().getTypes().stream()
+			eligible = allMimeTypes.getMediaTypeRegistry().getTypes().stream()
 					.map(MediaType::toString)
 					.filter(typeName -> mimePattern.matcher(typeName).matches())
 					.map(typeName -> {
@@ -237,7 +479,39 @@ public class DesktopFileChooser implements NativeFileChooser {
 					.filter(Objects::nonNull)
 					.collect(Collectors.toList());
 		} else {
-			return Collections.singletonList(allMimeTypes.forName(mimeType));
+			eligible = Collections.singletonList(allMimeTypes.forName(mimeType));
+		}
+
+		if (event != null)
+			DesktopEvents.MIME_RESOLUTION.commit(event, mimeType, eligible.size());
+		return eligible;
+	}
+
+	/**
+	 * NFD_PickFolderMultiple, only bound by LWJGL 3.3.4+: looked up once, null
+	 * when running against an older LWJGL.
+	 */
+	private static final class PickFolderMultiple {
+
+		static final MethodHandle handle = lookup();
+
+		private static MethodHandle lookup() {
+			try {
+				return MethodHandles.publicLookup().findStatic(NativeFileDialog.class, "NFD_PickFolderMultiple",
+						MethodType.methodType(int.class, PointerBuffer.class, CharSequence.class));
+			} catch (NoSuchMethodException | IllegalAccessException e) {
+				return null;
+			}
+		}
+
+		static int invoke(MethodHandle handle, PointerBuffer outPaths, CharSequence defaultPath) throws Exception {
+			try {
+				return (int) handle.invokeExact(outPaths, defaultPath);
+			} catch (Exception | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new Exception(t);
+			}
 		}
 	}
 
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserProvider;
+
+import org.lwjgl.util.nfd.NativeFileDialog;
+
+/**
+ * {@link NativeFileChooserProvider} of the LWJGL {@link DesktopFileChooser}.
+ * NFD natives are loaded on creation, so that platforms without them fall
+ * back to other providers.
+ *
+ * @author thorthur
+ *
+ */
+public final class DesktopFileChooserProvider implements NativeFileChooserProvider {
+
+	@Override
+	public String getName() {
+		return "LWJGL";
+	}
+
+	@Override
+	public int getPriority() {
+		return 30;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return true;
+	}
+
+	@Override
+	public NativeFileChooser create() {
+		try {
+			Class.forName(NativeFileDialog.class.getName(), true, DesktopFileChooserProvider.class.getClassLoader());
+		} catch (ClassNotFoundException ex) {
+			throw new IllegalStateException("NFD is not available", ex);
+		}
+		return new DesktopFileChooser();
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Content producer for a {@link FileSaver}, streaming whatever is to be saved
+ * into given channel. Called on a background thread.
+ *
+ * <p>
+ * Serializers expecting an {@link java.io.OutputStream} can be given
+ * {@link java.nio.channels.Channels#newOutputStream(WritableByteChannel)}.
+ *
+ * @see FileSaver
+ *
+ * @author thorthur
+ *
+ */
+public interface ChannelWriter {
+
+	/**
+	 * Write content to save. The channel is buffered, small writes are fine,
+	 * and need not be closed.
+	 *
+	 * @param channel
+	 *            Channel to the saved file
+	 * @throws IOException
+	 *             Aborts the save, leaving any previous file untouched
+	 */
+	void write(WritableByteChannel channel) throws IOException;
+
+}
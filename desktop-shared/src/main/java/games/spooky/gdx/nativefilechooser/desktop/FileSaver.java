@@ -0,0 +1,287 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import games.spooky.gdx.nativefilechooser.ChooserHandle;
+import games.spooky.gdx.nativefilechooser.NativeFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserIntent;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Streaming save: let the user choose where to save, then have a
+ * {@link ChannelWriter} write straight to that file, with no need for the
+ * whole content in memory first.
+ *
+ * <p>
+ * Content is written on a background thread through a buffered channel, into
+ * a temporary file next to the chosen one. Once the writer is done, that file
+ * is flushed to disk and atomically moved in place: the chosen file is either
+ * left as it was or replaced by the complete new content, never by a partial
+ * one, and keeps its permissions. Saves can be given up on through their
+ * {@link ChooserHandle}, stopping the writer at its next write.
+ *
+ * @see #chooseAndWrite(NativeFileChooser, NativeFileChooserConfiguration, ChannelWriter, FileWriteCallback)
+ *
+ * @author thorthur
+ *
+ */
+public final class FileSaver {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private FileSaver() {
+		super();
+	}
+
+	/**
+	 * Let the user choose a file to save to with given
+	 * {@link NativeFileChooser}, then write it with given writer before
+	 * calling back. Cancellation and errors of the chooser are forwarded to
+	 * the callback.
+	 *
+	 * @param chooser
+	 *            Chooser for the file, must not be null
+	 * @param configuration
+	 *            File choosing configuration, with the
+	 *            {@link NativeFileChooserIntent#SAVE} intent, must not be null
+	 * @param writer
+	 *            Content of the file, must not be null
+	 * @param callback
+	 *            Save asynchronous callback, must not be null
+	 * @return a handle to cancel both choice and save
+	 */
+	public static ChooserHandle chooseAndWrite(NativeFileChooser chooser, NativeFileChooserConfiguration configuration,
+			ChannelWriter writer, FileWriteCallback callback) {
+		return chooseAndWrite(chooser, configuration, writer, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Same as
+	 * {@link #chooseAndWrite(NativeFileChooser, NativeFileChooserConfiguration, ChannelWriter, FileWriteCallback)},
+	 * under control of given handle (and its timeout, if any).
+	 *
+	 * @param chooser
+	 *            Chooser for the file, must not be null
+	 * @param configuration
+	 *            File choosing configuration, with the
+	 *            {@link NativeFileChooserIntent#SAVE} intent, must not be null
+	 * @param writer
+	 *            Content of the file, must not be null
+	 * @param callback
+	 *            Save asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of both choice and save, must not be null
+	 * @return given handle
+	 */
+	public static ChooserHandle chooseAndWrite(NativeFileChooser chooser, NativeFileChooserConfiguration configuration,
+			final ChannelWriter writer, final FileWriteCallback callback, final ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(writer, "writer");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+		if (configuration.intent != NativeFileChooserIntent.SAVE)
+			throw new IllegalArgumentException("Streaming saves need the SAVE intent");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		final ChooserHandle choice = new ChooserHandle();
+		handle.addCancellationListener(new Runnable() {
+			@Override
+			public void run() {
+				choice.cancel();
+			}
+		});
+
+		NativeFileChooserUtils.chooseFile(chooser, configuration, new NativeFileChooserCallback() {
+			@Override
+			public void onFileChosen(final FileHandle file) {
+				NativeFileChooserUtils.newDaemonThread("FileSaver", new Runnable() {
+					@Override
+					public void run() {
+						save(file, writer, callback, handle);
+					}
+				}).start();
+			}
+
+			@Override
+			public void onCancellation() {
+				// Cancellation of the handle itself is notified already
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		}, choice);
+		return handle;
+	}
+
+	private static void save(final FileHandle file, ChannelWriter writer, final FileWriteCallback callback, ChooserHandle handle) {
+		boolean[] completed = { false };
+		try {
+			write(file.file(), writer, handle, completed);
+		} catch (final Exception ex) {
+			// Once completed, only the final move may fail, and must be told
+			if (completed[0] || handle.complete()) {
+				post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onError(ex);
+					}
+				});
+			}
+			return;
+		}
+		post(new Runnable() {
+			@Override
+			public void run() {
+				callback.onFileWritten(file);
+			}
+		});
+	}
+
+	private static void write(File file, ChannelWriter writer, ChooserHandle handle, boolean[] completed) throws IOException {
+		Path target = file.getAbsoluteFile().toPath();
+
+		// Same folder as the target, for the move to be a mere rename
+		Path temporary = TemporaryFiles.create(target);
+		boolean placed = false;
+		try {
+			FileChannel output = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				BufferedChannel channel = new BufferedChannel(output, handle);
+				writer.write(channel);
+				channel.close();
+				// Content on disk before the rename, or a crash could leave an empty file
+				output.force(true);
+			} finally {
+				output.close();
+			}
+
+			TemporaryFiles.keepPermissions(target, temporary);
+
+			// Past this point the save goes through, even if given up on
+			if (!handle.complete())
+				throw new CancellationException();
+			completed[0] = true;
+
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			placed = true;
+		} finally {
+			if (!placed)
+				Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static void post(Runnable runnable) {
+		if (Gdx.app == null)
+			runnable.run();
+		else
+			Gdx.app.postRunnable(runnable);
+	}
+
+	/**
+	 * Write-behind buffer in front of a file channel, so that writers need not
+	 * care about the size of their writes. Closing flushes the buffer and
+	 * leaves the file channel open.
+	 */
+	private static final class BufferedChannel implements WritableByteChannel {
+
+		private final FileChannel channel;
+		private final ChooserHandle handle;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private boolean open = true;
+
+		BufferedChannel(FileChannel channel, ChooserHandle handle) {
+			this.channel = channel;
+			this.handle = handle;
+		}
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			if (!open)
+				throw new ClosedChannelException();
+			handle.checkCancelled();
+
+			int written = source.remaining();
+			if (written >= buffer.capacity()) {
+				// Large writes go straight through, after what is buffered
+				flush();
+				while (source.hasRemaining())
+					channel.write(source);
+				return written;
+			}
+
+			if (written > buffer.remaining())
+				flush();
+			buffer.put(source);
+			return written;
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (open) {
+				flush();
+				open = false;
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A custom Java Flight Recorder event type, defined and emitted through
+ * reflection so that the desktop choosers may record events while still
+ * targeting runtimes without {@code jdk.jfr}.
+ *
+ * <p>
+ * Where Flight Recorder is not available (Java 8 before update 262, Android),
+ * or not recording this event type, {@link #begin()} returns null and nothing
+ * else happens. Callers check for null before building field values, so that
+ * nothing is allocated then.
+ *
+ * <p>
+ * Typical use:
+ *
+ * <pre>
+ * Object event = TYPE.begin();
+ * // Do the work
+ * if (event != null)
+ *     TYPE.commit(event, path.toString(), mimeType);
+ * </pre>
+ */
+final class FlightRecorderEventType {
+
+	private static final String[] category = { "libGDX", "Native File Chooser" };
+
+	private static final Method newEvent;
+	private static final Method getEventType;
+	private static final Method isEnabled;
+	private static final Method begin;
+	private static final Method end;
+	private static final Method shouldCommit;
+	private static final Method commit;
+	private static final Method set;
+	private static final Method create;
+	private static final Constructor<?> annotationElement;
+	private static final Constructor<?> valueDescriptor;
+	private static final Class<? extends Annotation> nameAnnotation;
+	private static final Class<? extends Annotation> labelAnnotation;
+	private static final Class<? extends Annotation> categoryAnnotation;
+
+	static {
+		Method[] methods = new Method[9];
+		Constructor<?>[] constructors = new Constructor<?>[2];
+		List<Class<? extends Annotation>> annotations = new ArrayList<>();
+		try {
+			Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+
+			methods[0] = eventFactoryClass.getMethod("newEvent");
+			methods[1] = eventFactoryClass.getMethod("getEventType");
+			methods[2] = eventTypeClass.getMethod("isEnabled");
+			methods[3] = eventClass.getMethod("begin");
+			methods[4] = eventClass.getMethod("end");
+			methods[5] = eventClass.getMethod("shouldCommit");
+			methods[6] = eventClass.getMethod("commit");
+			methods[7] = eventClass.getMethod("set", int.class, Object.class);
+			methods[8] = eventFactoryClass.getMethod("create", List.class, List.class);
+			constructors[0] = annotationElementClass.getConstructor(Class.class, Object.class);
+			constructors[1] = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+			annotations.add(Class.forName("jdk.jfr.Name").asSubclass(Annotation.class));
+			annotations.add(Class.forName("jdk.jfr.Label").asSubclass(Annotation.class));
+			annotations.add(Class.forName("jdk.jfr.Category").asSubclass(Annotation.class));
+		} catch (Exception | LinkageError ignored) {
+			// No Flight Recorder here
+			methods = new Method[9];
+			constructors = new Constructor<?>[2];
+			annotations.clear();
+		}
+		newEvent = methods[0];
+		getEventType = methods[1];
+		isEnabled = methods[2];
+		begin = methods[3];
+		end = methods[4];
+		shouldCommit = methods[5];
+		commit = methods[6];
+		set = methods[7];
+		create = methods[8];
+		annotationElement = constructors[0];
+		valueDescriptor = constructors[1];
+		nameAnnotation = annotations.isEmpty() ? null : annotations.get(0);
+		labelAnnotation = annotations.isEmpty() ? null : annotations.get(1);
+		categoryAnnotation = annotations.isEmpty() ? null : annotations.get(2);
+	}
+
+	private final Object factory;
+	private final Object eventType;
+
+	private FlightRecorderEventType(Object factory, Object eventType) {
+		this.factory = factory;
+		this.eventType = eventType;
+	}
+
+	/**
+	 * Define a new event type. Fields are given as pairs of type and name, eg.
+	 * {@code define("my.Event", "My Event", String.class, "path", long.class, "size")}.
+	 * Supported field types are the ones of Flight Recorder, namely primitive
+	 * types, their boxed counterparts and {@link String}.
+	 *
+	 * @param name
+	 *            Unique name of the event type
+	 * @param label
+	 *            Human-readable name of the event type
+	 * @param fields
+	 *            Field types and names, in the order expected by
+	 *            {@link #commit(Object, Object...)}
+	 * @return the event type, never null
+	 */
+	static FlightRecorderEventType define(String name, String label, Object... fields) {
+		NativeFileChooserUtils.checkNotNull(name, "name");
+		NativeFileChooserUtils.checkNotNull(label, "label");
+
+		if (create == null)
+			return new FlightRecorderEventType(null, null);
+
+		try {
+			List<Object> annotations = new ArrayList<>();
+			annotations.add(annotationElement.newInstance(nameAnnotation, name));
+			annotations.add(annotationElement.newInstance(labelAnnotation, label));
+			annotations.add(annotationElement.newInstance(categoryAnnotation, category));
+
+			List<Object> descriptors = new ArrayList<>();
+			for (int i = 0; i + 1 < fields.length; i += 2) {
+				descriptors.add(valueDescriptor.newInstance(fields[i], fields[i + 1], Collections.emptyList()));
+			}
+
+			Object factory = create.invoke(null, annotations, descriptors);
+			return new FlightRecorderEventType(factory, getEventType.invoke(factory));
+		} catch (Exception ignored) {
+			return new FlightRecorderEventType(null, null);
+		}
+	}
+
+	/**
+	 * Start timing a new event, if this event type is being recorded.
+	 *
+	 * @return the started event, or null if not recording
+	 */
+	Object begin() {
+		if (factory == null)
+			return null;
+		try {
+			if (!(Boolean) isEnabled.invoke(eventType))
+				return null;
+			Object event = newEvent.invoke(factory);
+			begin.invoke(event);
+			return event;
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+
+	/**
+	 * End timing given event and commit it with given field values.
+	 *
+	 * @param event
+	 *            Event returned by {@link #begin()}, may be null
+	 * @param values
+	 *            Field values, in definition order
+	 */
+	void commit(Object event, Object... values) {
+		if (event == null)
+			return;
+		try {
+			end.invoke(event);
+			if ((Boolean) shouldCommit.invoke(event)) {
+				for (int i = 0; i < values.length; i++) {
+					set.invoke(event, i, values[i]);
+				}
+				commit.invoke(event);
+			}
+		} catch (Exception ignored) {
+		}
+	}
+
+}
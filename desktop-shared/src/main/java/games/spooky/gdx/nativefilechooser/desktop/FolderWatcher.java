@@ -0,0 +1,368 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import games.spooky.gdx.nativefilechooser.FolderChangeCallback;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live change feed of a folder and its subfolders, typically one chosen
+ * through
+ * {@link DesktopFileChooser#chooseFolder(games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration, games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback)},
+ * backed by a {@link WatchService}.
+ *
+ * <p>
+ * Events are coalesced until the folder has been quiet for the debounce
+ * delay, then delivered as a single batch of net changes to a
+ * {@link FolderChangeCallback} on the rendering thread. The folder is only
+ * rescanned as a whole when the file system dropped events.
+ *
+ * @see #watch(FileHandle, FolderChangeCallback)
+ *
+ * @author thorthur
+ *
+ */
+public class FolderWatcher implements Disposable {
+
+	/**
+	 * Default debounce delay, in milliseconds.
+	 */
+	public static final long DEFAULT_DEBOUNCE = 200L;
+
+	private enum Change {
+		ADDED, MODIFIED, DELETED
+	}
+
+	private final Path folder;
+	private final FolderChangeCallback callback;
+	private final long debounce;
+
+	private final Map<WatchKey, Path> keys = new HashMap<>();
+	private final Map<Path, Change> changes = new LinkedHashMap<>();
+
+	private WatchService watchService;
+	private Thread thread;
+	private volatile boolean disposed;
+	private boolean overflow;
+
+	/**
+	 * Initialize a new {@code FolderWatcher} with default debounce delay. Call
+	 * {@link #start()} to begin watching.
+	 *
+	 * @param folder
+	 *            Folder to watch, must not be null
+	 * @param callback
+	 *            Change callback, must not be null
+	 */
+	public FolderWatcher(FileHandle folder, FolderChangeCallback callback) {
+		this(folder, callback, DEFAULT_DEBOUNCE);
+	}
+
+	/**
+	 * Initialize a new {@code FolderWatcher}. Call {@link #start()} to begin
+	 * watching.
+	 *
+	 * @param folder
+	 *            Folder to watch, must not be null
+	 * @param callback
+	 *            Change callback, must not be null
+	 * @param debounce
+	 *            Quiet delay before delivering changes, in milliseconds
+	 */
+	public FolderWatcher(FileHandle folder, FolderChangeCallback callback, long debounce) {
+		super();
+		NativeFileChooserUtils.checkNotNull(folder, "folder");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		this.folder = folder.file().toPath().toAbsolutePath();
+		this.callback = callback;
+		this.debounce = Math.max(1L, debounce);
+	}
+
+	/**
+	 * Start watching given folder with default debounce delay.
+	 *
+	 * @param folder
+	 *            Folder to watch, must not be null
+	 * @param callback
+	 *            Change callback, must not be null
+	 * @return the started watcher, to be disposed when done
+	 * @throws IOException
+	 *             if the folder could not be watched
+	 */
+	public static FolderWatcher watch(FileHandle folder, FolderChangeCallback callback) throws IOException {
+		FolderWatcher watcher = new FolderWatcher(folder, callback);
+		watcher.start();
+		return watcher;
+	}
+
+	/**
+	 * Register the folder and its subfolders, then start delivering changes
+	 * from a background daemon thread.
+	 *
+	 * @throws IOException
+	 *             if the folder could not be watched
+	 */
+	public synchronized void start() throws IOException {
+		if (disposed)
+			throw new IllegalStateException("FolderWatcher is disposed");
+		if (thread != null)
+			return;
+
+		watchService = folder.getFileSystem().newWatchService();
+		try {
+			registerAll(folder, null);
+		} catch (IOException ex) {
+			watchService.close();
+			throw ex;
+		}
+
+		thread = NativeFileChooserUtils.newDaemonThread("FolderWatcher", new Runnable() {
+			@Override
+			public void run() {
+				loop();
+			}
+		});
+		thread.start();
+	}
+
+	@Override
+	public synchronized void dispose() {
+		disposed = true;
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException ignored) {
+				// Nothing to do
+			}
+		}
+		if (thread != null)
+			thread.interrupt();
+	}
+
+	private void loop() {
+		long firstEvent = 0L;
+		try {
+			while (!disposed) {
+				WatchKey key;
+				if (changes.isEmpty() && !overflow) {
+					key = watchService.take();
+					firstEvent = System.currentTimeMillis();
+				} else if (System.currentTimeMillis() - firstEvent > debounce * 10L) {
+					// Never-ending burst, deliver what we have anyway
+					key = null;
+				} else {
+					key = watchService.poll(debounce, TimeUnit.MILLISECONDS);
+				}
+
+				if (key == null) {
+					flush();
+					continue;
+				}
+
+				process(key);
+			}
+		} catch (InterruptedException ex) {
+			// Disposed
+		} catch (ClosedWatchServiceException ex) {
+			// Disposed
+		} catch (Exception ex) {
+			if (!disposed)
+				fail(ex);
+		}
+	}
+
+	private void process(WatchKey key) throws IOException {
+		Path directory = keys.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			WatchEvent.Kind<?> kind = event.kind();
+			if (kind == StandardWatchEventKinds.OVERFLOW) {
+				overflow = true;
+				continue;
+			}
+			if (directory == null || overflow)
+				continue;
+
+			Path path = directory.resolve((Path) event.context());
+			if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+				if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+					// Content may have been created before registration
+					List<Path> created = new ArrayList<>();
+					registerAll(path, created);
+					for (Path file : created)
+						record(file, Change.ADDED);
+				} else {
+					record(path, Change.ADDED);
+				}
+			} else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+				if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+					record(path, Change.MODIFIED);
+			} else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+				record(path, Change.DELETED);
+			}
+		}
+		if (!key.reset())
+			keys.remove(key);
+	}
+
+	private void record(Path path, Change change) {
+		Change previous = changes.get(path);
+		if (previous == null) {
+			changes.put(path, change);
+		} else if (previous == Change.ADDED) {
+			// Added then modified is still added, added then deleted is nothing
+			if (change == Change.DELETED)
+				changes.remove(path);
+		} else if (previous == Change.DELETED) {
+			// Deleted then added again is a modification
+			if (change != Change.DELETED)
+				changes.put(path, Change.MODIFIED);
+		} else {
+			if (change == Change.DELETED)
+				changes.put(path, Change.DELETED);
+		}
+	}
+
+	private void registerAll(Path start, final List<Path> files) throws IOException {
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				keys.put(key, dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (files != null && !attrs.isDirectory())
+					files.add(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				// Vanished or unreadable, skip it
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void flush() throws IOException {
+		if (overflow) {
+			overflow = false;
+			changes.clear();
+			rescan();
+			return;
+		}
+		if (changes.isEmpty())
+			return;
+
+		final Array<FileHandle> added = new Array<>();
+		final Array<FileHandle> modified = new Array<>();
+		final Array<FileHandle> deleted = new Array<>();
+		for (Map.Entry<Path, Change> entry : changes.entrySet()) {
+			FileHandle file = new FileHandle(entry.getKey().toFile());
+			switch (entry.getValue()) {
+			case ADDED:
+				added.add(file);
+				break;
+			case MODIFIED:
+				modified.add(file);
+				break;
+			case DELETED:
+				deleted.add(file);
+				break;
+			}
+		}
+		changes.clear();
+
+		post(new Runnable() {
+			@Override
+			public void run() {
+				callback.onFilesChanged(added, modified, deleted);
+			}
+		});
+	}
+
+	private void rescan() throws IOException {
+		// Some events were lost, start over from what is actually there
+		for (WatchKey key : keys.keySet())
+			key.cancel();
+		keys.clear();
+
+		List<Path> content = new ArrayList<>();
+		registerAll(folder, content);
+		final Array<FileHandle> files = new Array<>(content.size());
+		for (Path path : content)
+			files.add(new FileHandle(path.toFile()));
+
+		post(new Runnable() {
+			@Override
+			public void run() {
+				callback.onFolderRescanned(files);
+			}
+		});
+	}
+
+	private void fail(final Exception exception) {
+		post(new Runnable() {
+			@Override
+			public void run() {
+				callback.onError(exception);
+			}
+		});
+	}
+
+	private void post(Runnable runnable) {
+		if (disposed)
+			return;
+		if (Gdx.app == null)
+			runnable.run();
+		else
+			Gdx.app.postRunnable(runnable);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Temporary files written next to their target, then moved onto it.
+ *
+ * <p>
+ * Unlike {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute...)},
+ * whose files are only accessible to their owner on POSIX systems, these get
+ * the default permissions of a new file, so that moving them in place does
+ * not change who can read the target.
+ */
+final class TemporaryFiles {
+
+	private static final Random random = new Random();
+
+	private TemporaryFiles() {
+	}
+
+	/**
+	 * Create an empty temporary file in the folder of given target.
+	 *
+	 * @param target
+	 *            File the temporary file is meant to replace
+	 * @return the temporary file
+	 * @throws IOException
+	 *             if the file could not be created
+	 */
+	static Path create(Path target) throws IOException {
+		Path folder = target.getParent();
+		String prefix = "~" + target.getFileName() + ".";
+		while (true) {
+			long suffix = random.nextLong() & Long.MAX_VALUE;
+			try {
+				return Files.createFile(folder.resolve(prefix + suffix + ".tmp"));
+			} catch (FileAlreadyExistsException ex) {
+				// Try another name
+			}
+		}
+	}
+
+	/**
+	 * Give a temporary file the POSIX permissions of the target it is about
+	 * to replace, if the file system has some and the target exists.
+	 *
+	 * @param target
+	 *            File about to be replaced
+	 * @param temporary
+	 *            Its replacement
+	 * @throws IOException
+	 *             if permissions could not be read or set
+	 */
+	static void keepPermissions(Path target, Path temporary) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+		if (view == null)
+			return;
+		Set<PosixFilePermission> permissions;
+		try {
+			permissions = view.readAttributes().permissions();
+		} catch (NoSuchFileException ex) {
+			return; // New file, default permissions are fine
+		}
+		Files.setPosixFilePermissions(temporary, permissions);
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileSystemView;
+import javax.swing.filechooser.FileView;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link FileView} sharing file icons between all files of the same kind
+ * (directory or file extension), for all {@link SwingFileChooser} dialogs of
+ * the process.
+ *
+ * <p>
+ * Icons are only computed when a row is painted, ie. for visible rows, and at
+ * most once per kind and look and feel. Files whose icon is specific to the
+ * file itself (executables, shortcuts, file system roots) are left to the
+ * default file view. Special folders (roots, home and its children, virtual
+ * shell folders) keep an icon of their own.
+ *
+ * <p>
+ * Painting a row does not touch the file system: whether a file is a
+ * directory is recorded when the chooser asks for
+ * {@link #isTraversable(File)}, which it does for every file while loading a
+ * folder, off the event dispatch thread. Files painted before that are left
+ * to the default file view. These are kept by parent folder, for the few
+ * folders painted last, however many files they hold.
+ */
+final class CachingFileView extends FileView {
+
+	static final CachingFileView instance = new CachingFileView();
+
+	private static final String DIRECTORY = "/";
+
+	private static final int MAX_FOLDERS = 16;
+
+	private static final String[] uncachedExtensions = { "exe", "lnk", "ico", "url", "app", "desktop" };
+
+	private final ConcurrentMap<String, Icon> icons = new ConcurrentHashMap<>();
+
+	// Whether files are directories, by parent folder and name, least recently used folder first
+	private final Map<File, ConcurrentMap<String, Boolean>> traversables = new LinkedHashMap<File, ConcurrentMap<String, Boolean>>(MAX_FOLDERS * 2, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, ConcurrentMap<String, Boolean>> eldest) {
+			return size() > MAX_FOLDERS;
+		}
+	};
+
+	private final File home = new File(System.getProperty("user.home", "")).getAbsoluteFile();
+
+	private volatile LookAndFeel lookAndFeel;
+
+	private CachingFileView() {
+		super();
+	}
+
+	@Override
+	public Boolean isTraversable(File f) {
+		if (f == null)
+			return null;
+		Boolean traversable = FileSystemView.getFileSystemView().isTraversable(f);
+		File parent = f.getParentFile();
+		if (traversable != null && parent != null) {
+			// Folders are loaded in full, a few at a time
+			ConcurrentMap<String, Boolean> folder;
+			synchronized (traversables) {
+				folder = traversables.get(parent);
+				if (folder == null) {
+					folder = new ConcurrentHashMap<>();
+					traversables.put(parent, folder);
+				}
+			}
+			folder.put(f.getName(), traversable);
+		}
+		return traversable;
+	}
+
+	@Override
+	public Icon getIcon(File f) {
+		String key = iconKey(f);
+		if (key == null)
+			return null;
+
+		// Icons are look-and-feel specific
+		LookAndFeel current = UIManager.getLookAndFeel();
+		if (current != lookAndFeel) {
+			icons.clear();
+			lookAndFeel = current;
+		}
+
+		Icon icon = icons.get(key);
+		if (icon == null) {
+			icon = FileSystemView.getFileSystemView().getSystemIcon(f);
+			if (icon == null)
+				return null;
+			Icon previous = icons.putIfAbsent(key, icon);
+			if (previous != null)
+				icon = previous;
+		}
+		return icon;
+	}
+
+	private String iconKey(File f) {
+		if (f == null)
+			return null;
+
+		String name = f.getName();
+		if (name.isEmpty())
+			return null; // Root or drive
+
+		ConcurrentMap<String, Boolean> folder;
+		synchronized (traversables) {
+			folder = traversables.get(f.getParentFile());
+		}
+		Boolean directory = folder == null ? null : folder.get(name);
+		if (directory == null)
+			return null; // Not loaded by a chooser, no guess
+		if (directory)
+			return isSpecial(f) ? DIRECTORY + f.getAbsolutePath() : DIRECTORY;
+
+		int dot = name.lastIndexOf('.');
+		String extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+		for (String uncached : uncachedExtensions) {
+			if (uncached.equals(extension))
+				return null;
+		}
+		return extension;
+	}
+
+	private boolean isSpecial(File directory) {
+		// Neither of these touches the file system for plain files
+		if (!FileSystemView.getFileSystemView().isFileSystem(directory))
+			return true; // Virtual shell folder
+		File absolute = directory.getAbsoluteFile();
+		File parent = absolute.getParentFile();
+		return parent == null || absolute.equals(home) || parent.equals(home);
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+/**
+ * Java Flight Recorder events emitted by the desktop file choosers.
+ */
+final class DesktopEvents {
+
+	private static final String PREFIX = "games.spooky.gdx.nativefilechooser.";
+
+	static final FlightRecorderEventType DIALOG = FlightRecorderEventType.define(PREFIX + "Dialog", "File Chooser Dialog",
+			String.class, "backend", String.class, "title", String.class, "intent", int.class, "selected");
+
+	static final FlightRecorderEventType MIME_PROBE = FlightRecorderEventType.define(PREFIX + "MimeProbe", "MIME Type Probe",
+			String.class, "path", String.class, "mimeType");
+
+	private DesktopEvents() {
+	}
+}
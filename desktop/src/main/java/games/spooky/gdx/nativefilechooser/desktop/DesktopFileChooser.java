@@ -32,6 +32,9 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 /**
@@ -44,6 +47,9 @@ import java.util.regex.Pattern;
  * {@link NativeFileChooserConfiguration} is experimental and slow at best. Use
  * at your own risk.
  * 
+ * <p>
+ * Cancelling a call through its {@link ChooserHandle} closes the dialog.
+ * 
  * @see #chooseFile(NativeFileChooserConfiguration, NativeFileChooserCallback)
  * 
  * @see NativeFileChooser
@@ -53,7 +59,23 @@ import java.util.regex.Pattern;
  * @author thorthur
  * 
  */
-public class DesktopFileChooser implements NativeFileChooser {
+public class DesktopFileChooser implements NativeCancellableChooser, NativeSelectionChooser {
+
+	private static final AtomicBoolean warmedUp = new AtomicBoolean();
+
+	private final FilterCache filterCache = new FilterCache();
+
+	private DirectoryIndex directoryIndex;
+
+	/**
+	 * Set the {@link DirectoryIndex} MIME type filtering answers from, if any.
+	 *
+	 * @param directoryIndex
+	 *            Index of directories, or null to always probe files
+	 */
+	public void setDirectoryIndex(DirectoryIndex directoryIndex) {
+		this.directoryIndex = directoryIndex;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -62,16 +84,28 @@ public class DesktopFileChooser implements NativeFileChooser {
 	 * NativeFileChooserCallback)
 	 */
 	@Override
-	public void chooseFile(final NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		chooseFile(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFile(NativeFileChooserConfiguration,
+	 * NativeFileChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
-		File[] files = openFileDialog(configuration, false);
+		File[] files = openFileDialog(configuration, false, handle);
 
 		if (files == null || files.length == 0) {
 			callback.onCancellation();
-		} else {
+		} else if (withinLimits(configuration, files, callback)) {
 			callback.onFileChosen(new FileHandle(files[0]));
 		}
 	}
@@ -84,16 +118,28 @@ public class DesktopFileChooser implements NativeFileChooser {
 	 */
 	@Override
 	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		chooseFiles(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFiles(NativeFileChooserConfiguration,
+	 * NativeFilesChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
-		File[] selectedFiles = openFileDialog(configuration, true);
+		File[] selectedFiles = openFileDialog(configuration, true, handle);
 
 		if (selectedFiles == null || selectedFiles.length == 0) {
 			callback.onCancellation();
-		} else {
-			Array<FileHandle> result = new Array<>(selectedFiles.length);
+		} else if (withinLimits(configuration, selectedFiles, callback)) {
+			Array<FileHandle> result = ChooserPools.obtainArray();
 			for (File selectedFile : selectedFiles) {
 				result.add(new FileHandle(selectedFile));
 			}
@@ -101,6 +147,91 @@ public class DesktopFileChooser implements NativeFileChooser {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeSelectionChooser#chooseEntries(NativeFileChooserConfiguration,
+	 * NativeSelectionCallback)
+	 */
+	@Override
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback) {
+		chooseEntries(configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Same as
+	 * {@link #chooseEntries(NativeFileChooserConfiguration, NativeSelectionCallback)},
+	 * the dialog being closed once given handle is cancelled.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            Entries choosing asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 */
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		File[] selectedFiles = openFileDialog(configuration, true, handle);
+
+		if (selectedFiles == null || selectedFiles.length == 0) {
+			callback.onCancellation();
+		} else {
+			long[] sizes = new long[selectedFiles.length];
+			if (withinLimits(configuration, selectedFiles, sizes, callback))
+				callback.onEntriesChosen(entries(selectedFiles, sizes));
+		}
+	}
+
+	/*
+	 * Enforce selection limits of given configuration on chosen files, sizes
+	 * coming from their attributes, before anything is done with them.
+	 * Failures go to given callback.
+	 */
+	static boolean withinLimits(NativeFileChooserConfiguration configuration, File[] files, NativeChooserCallback callback) {
+		return withinLimits(configuration, files, null, callback);
+	}
+
+	/*
+	 * Same as above, keeping sizes read on the way in given array (if any),
+	 * SelectionEntry.UNKNOWN for those not read.
+	 */
+	static boolean withinLimits(NativeFileChooserConfiguration configuration, File[] files, long[] sizes, NativeChooserCallback callback) {
+		if (sizes != null)
+			Arrays.fill(sizes, SelectionEntry.UNKNOWN);
+		if (!SelectionLimits.isLimited(configuration))
+			return true;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		try {
+			limits.checkCount(files.length);
+			for (int i = 0; i < files.length; i++) {
+				long size = limits.sizeLimited() ? files[i].length() : SelectionEntry.UNKNOWN;
+				if (sizes != null)
+					sizes[i] = size;
+				limits.add(new FileHandle(files[i]), size);
+			}
+			return true;
+		} catch (SelectionLimitException ex) {
+			callback.onError(ex);
+			return false;
+		}
+	}
+
+	/*
+	 * Entries of chosen files, with their sizes if known (see withinLimits).
+	 */
+	static Array<SelectionEntry> entries(File[] files, long[] sizes) {
+		Array<SelectionEntry> result = ChooserPools.obtainArray();
+		for (int i = 0; i < files.length; i++) {
+			result.add(new SelectionEntry(files[i].getPath(), null, sizes[i], SelectionEntry.UNKNOWN, null));
+		}
+		return result;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -109,22 +240,141 @@ public class DesktopFileChooser implements NativeFileChooser {
 	 */
 	@Override
 	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		chooseFolder(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFolder(NativeFolderChooserConfiguration,
+	 * NativeFolderChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		callback.onError(new IllegalArgumentException("Choosing folder is not implemented in AWT DesktopFileChooser"));
 	}
 
-	private File[] openFileDialog(final NativeFileChooserConfiguration configuration, boolean multiple) {
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeFileChooser#warmUp()
+	 */
+	@Override
+	public void warmUp() {
+		if (!warmedUp.compareAndSet(false, true))
+			return;
+
+		NativeFileChooserUtils.warmUpInBackground("DesktopFileChooser", new Runnable() {
+			@Override
+			public void run() {
+				warmUpMimeProbing();
+
+				if (GraphicsEnvironment.isHeadless())
+					return;
+
+				// Load the toolkit, then create (without showing) a dialog peer where AWT wants it
+				Toolkit.getDefaultToolkit();
+				EventQueue.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						FileDialog dialog = new FileDialog((Frame) null);
+						try {
+							dialog.addNotify();
+						} catch (RuntimeException ignored) {
+						} finally {
+							dialog.dispose();
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeFileChooser#warmUp(Array)
+	 */
+	@Override
+	public void warmUp(Array<FileHandle> directories) {
+		warmUp();
+
+		final Array<FileHandle> copy = new Array<>(directories);
+		final DirectoryIndex index = directoryIndex;
+		NativeFileChooserUtils.warmUpInBackground("DesktopFileChooser", new Runnable() {
+			@Override
+			public void run() {
+				prescan(copy, index);
+			}
+		});
+	}
+
+	/*
+	 * List given directories ahead of their dialog, and have the MIME types of
+	 * their files in the index, if any, for filters to answer from it.
+	 */
+	static void prescan(Array<FileHandle> directories, DirectoryIndex index) {
+		for (FileHandle directory : directories) {
+			File dir = directory.file();
+			String[] names = dir.list();
+			if (names == null || index == null)
+				continue;
+			for (String name : names) {
+				try {
+					index.mimeType(dir, name, null);
+				} catch (IOException ignored) {
+				}
+			}
+		}
+	}
+
+	static void warmUpMimeProbing() {
+		// First probe loads file type detectors and their MIME databases
+		try {
+			Files.probeContentType(Paths.get("warmUp.txt"));
+		} catch (IOException ignored) {
+		}
+	}
+
+	private File[] openFileDialog(final NativeFileChooserConfiguration configuration, boolean multiple, ChooserHandle handle) {
+		// Start measuring before any AWT machinery kicks in
+		DialogMetrics metrics = configuration.metrics == null ? null : new DialogMetrics(configuration.metrics);
+		Object event = DesktopEvents.DIALOG.begin();
+
 		// Create awt Dialog
 		FileDialog fileDialog = new FileDialog(
 				(Frame) null,
 				configuration.title == null ? "" : configuration.title,
 				configuration.intent == NativeFileChooserIntent.SAVE ? FileDialog.SAVE : FileDialog.LOAD);
 
+		if (metrics != null)
+			fileDialog.addWindowListener(metrics);
+
+		// Close the dialog if the call is given up on
+		Runnable closer = null;
+		if (handle != null) {
+			final FileDialog dialog = fileDialog;
+			closer = new Runnable() {
+				@Override
+				public void run() {
+					EventQueue.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							dialog.setVisible(false);
+						}
+					});
+				}
+			};
+			handle.addCancellationListener(closer);
+		}
+
 		try {
-			FilenameFilter filter = createFilenameFilter(configuration);
+			FilenameFilter filter = filterCache.get(configuration, directoryIndex);
 
 			if (filter != null)
 				fileDialog.setFilenameFilter(filter);
@@ -137,18 +387,38 @@ public class DesktopFileChooser implements NativeFileChooser {
 
 			fileDialog.setVisible(true);
 
-			return fileDialog.getFiles();
+			if (metrics != null)
+				metrics.closed();
+
+			// Whatever the dialog says, nobody wants it anymore
+			File[] files = handle != null && handle.isCancelled() ? null : fileDialog.getFiles();
+			if (event != null)
+				DesktopEvents.DIALOG.commit(event, "AWT", configuration.title, intentName(configuration), files == null ? 0 : files.length);
+			return files;
 		} finally {
+			if (closer != null)
+				handle.removeCancellationListener(closer);
 			fileDialog.dispose();
 		}
 	}
 
+	static String intentName(NativeChooserConfiguration configuration) {
+		if (configuration instanceof NativeFolderChooserConfiguration)
+			return "FOLDER";
+		NativeFileChooserIntent intent = ((NativeFileChooserConfiguration) configuration).intent;
+		return intent == null ? NativeFileChooserIntent.OPEN.name() : intent.name();
+	}
+
 	static FilenameFilter createFilenameFilter(final NativeFileChooserConfiguration configuration) {
+		return createFilenameFilter(configuration, null);
+	}
+
+	static FilenameFilter createFilenameFilter(final NativeFileChooserConfiguration configuration, DirectoryIndex index) {
 		FilenameFilter filter = null;
 
 		// Add MIME type filter if any
 		if (configuration.mimeFilter != null)
-			filter = DesktopFileChooser.createMimeTypeFilter(configuration.mimeFilter);
+			filter = DesktopFileChooser.createMimeTypeFilter(configuration.mimeFilter, configuration.metrics, index);
 
 		// Add name filter if any
 		if (configuration.nameFilter != null) {
@@ -165,10 +435,29 @@ public class DesktopFileChooser implements NativeFileChooser {
 				};
 			}
 		}
+
+		// Measure filtering if asked to
+		if (filter != null && configuration.metrics != null)
+			filter = createMeasuredFilter(filter, configuration.metrics);
+
 		return filter;
 	}
 
-	private static FilenameFilter createMimeTypeFilter(final String mimeType) {
+	private static FilenameFilter createMeasuredFilter(final FilenameFilter filter, final ChooserMetrics metrics) {
+		return new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				long start = System.nanoTime();
+				try {
+					return filter.accept(dir, name);
+				} finally {
+					metrics.onFilterEvaluated(System.nanoTime() - start);
+				}
+			}
+		};
+	}
+
+	private static FilenameFilter createMimeTypeFilter(final String mimeType, final ChooserMetrics metrics, final DirectoryIndex index) {
 		return new FilenameFilter() {
 
 			final Pattern mimePattern = NativeFileChooserUtils.mimePattern(mimeType);
@@ -178,7 +467,7 @@ public class DesktopFileChooser implements NativeFileChooser {
 
 				// Getting a Mime type is not warranted (and may be slow!)
 				try {
-					String mime = Files.probeContentType(new File(dir, name).toPath());
+					String mime = index == null ? probeMimeType(new File(dir, name), metrics) : index.mimeType(dir, name, metrics);
 
 					if (mime != null) {
 						// Try to get a match on Mime type
@@ -194,4 +483,13 @@ public class DesktopFileChooser implements NativeFileChooser {
 			}
 		};
 	}
+
+	static String probeMimeType(File file, ChooserMetrics metrics) throws IOException {
+		Object event = DesktopEvents.MIME_PROBE.begin();
+		// Guessed from the name when the platform has no file type detector
+		String mime = NativeFileChooserUtils.probeMimeType(file, metrics);
+		if (event != null)
+			DesktopEvents.MIME_PROBE.commit(event, file.getPath(), mime);
+		return mime;
+	}
 }
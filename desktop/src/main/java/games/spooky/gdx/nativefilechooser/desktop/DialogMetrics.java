@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * Measure dialog latency and user time for a {@link ChooserMetrics}. Listen to
+ * AWT dialog windows or to Swing components shown in a dialog.
+ */
+final class DialogMetrics extends WindowAdapter implements HierarchyListener {
+
+	private final ChooserMetrics metrics;
+	private final long start;
+
+	private volatile boolean opened;
+	private volatile long openTime;
+
+	DialogMetrics(ChooserMetrics metrics) {
+		this.metrics = metrics;
+		this.start = System.nanoTime();
+	}
+
+	@Override
+	public void windowOpened(WindowEvent e) {
+		opened();
+	}
+
+	@Override
+	public void hierarchyChanged(HierarchyEvent e) {
+		if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && e.getComponent().isShowing())
+			opened();
+	}
+
+	private void opened() {
+		if (opened)
+			return;
+		openTime = System.nanoTime();
+		opened = true;
+		metrics.onDialogOpened(openTime - start);
+	}
+
+	/**
+	 * To be called once the modal dialog returned.
+	 */
+	void closed() {
+		// Some native dialogs do not report opening, count from the start then
+		metrics.onDialogClosed(System.nanoTime() - (opened ? openTime : start));
+	}
+}
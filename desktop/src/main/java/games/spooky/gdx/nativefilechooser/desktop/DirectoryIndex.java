@@ -0,0 +1,689 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent index of the directories shown by desktop choosers, recording
+ * size, modification time and detected MIME type of their files.
+ *
+ * <p>
+ * The index lives in a memory-mapped, append-only file: every change is a
+ * record appended at the end, and the file is compacted when it is opened if
+ * most of its records are obsolete. Losing or corrupting the file only loses
+ * the cache, which starts over empty.
+ *
+ * <p>
+ * An index file is used by one index at a time: opening a file already held
+ * by another process (or another index) gives an index kept in memory only,
+ * see {@link #isPersistent()}.
+ *
+ * <p>
+ * Give an index to {@link DesktopFileChooser#setDirectoryIndex(DirectoryIndex)}
+ * or {@link SwingFileChooser#setDirectoryIndex(DirectoryIndex)} to have MIME
+ * filtering answer from it, and use {@link #scan(FileHandle)} to import a
+ * folder incrementally.
+ *
+ * @author thorthur
+ *
+ */
+public class DirectoryIndex implements Disposable {
+
+	private static final int MAGIC = 0x4E464349; // NFCI
+	private static final int VERSION = 1;
+	private static final int HEADER = 16; // magic, version, end of records
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+
+	private static final byte DIRECTORY = 'D';
+	private static final byte FILE = 'F';
+	private static final byte REMOVE_FILE = 'R';
+	private static final byte REMOVE_DIRECTORY = 'X';
+
+	private static final int NOT_PROBED = -1;
+	private static final int UNKNOWN_MIME = -2;
+
+	// How long a directory modification time is trusted while filtering
+	private static final long DIRECTORY_CHECK_PERIOD = 500000000L;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// Index files held by this process: closing any other descriptor on them
+	// would release their lock on some systems, do not even open them
+	private static final Set<String> held = new HashSet<>();
+
+	private final String path;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final FileLock lock;
+	private ByteBuffer buffer;
+
+	private final Map<String, DirectoryEntry> directories = new HashMap<>();
+	private final Map<String, Map<String, FileEntry>> files = new HashMap<>();
+	private final Map<String, Set<String>> subdirectories = new HashMap<>();
+
+	private int records;
+
+	private File checkedDirectory;
+	private String checkedPath;
+	private Map<String, FileEntry> checkedEntries;
+	private long checkedModified;
+	private long checkedAt;
+
+	private DirectoryIndex(File location) throws IOException {
+		super();
+		File parent = location.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+			throw new IOException("Unable to create " + parent);
+		String path = location.getCanonicalPath();
+		RandomAccessFile file = null;
+		FileLock lock = null;
+		synchronized (held) {
+			if (held.add(path)) {
+				try {
+					file = new RandomAccessFile(location, "rw");
+					try {
+						lock = file.getChannel().tryLock();
+					} catch (OverlappingFileLockException ex) {
+						// Locked by someone else in this process
+					} catch (IOException ex) {
+						// No lock there, do not share the file blindly
+					}
+				} finally {
+					if (lock == null) {
+						held.remove(path);
+						if (file != null)
+							file.close();
+						file = null;
+					}
+				}
+			}
+		}
+		this.path = file == null ? null : path;
+		this.file = file;
+		this.channel = file == null ? null : file.getChannel();
+		this.lock = lock;
+	}
+
+	/**
+	 * Open or create the index stored in given file.
+	 *
+	 * @param location
+	 *            Index file, must not be null
+	 * @return the index, to be disposed when done
+	 * @throws IOException
+	 *             if the index file could not be opened
+	 */
+	public static DirectoryIndex open(File location) throws IOException {
+		NativeFileChooserUtils.checkNotNull(location, "location");
+
+		DirectoryIndex index = new DirectoryIndex(location);
+		try {
+			index.load();
+		} catch (IOException ex) {
+			index.dispose();
+			throw ex;
+		}
+		return index;
+	}
+
+	/**
+	 * Open or create the index of given application, under the user's home
+	 * directory.
+	 *
+	 * @param application
+	 *            Name of the application, used as folder name, must not be
+	 *            null
+	 * @return the index, to be disposed when done
+	 * @throws IOException
+	 *             if the index file could not be opened
+	 */
+	public static DirectoryIndex open(String application) throws IOException {
+		NativeFileChooserUtils.checkNotNull(application, "application");
+		return open(new File(System.getProperty("user.home"), ".gdx-nativefilechooser/" + application + "/directories.idx"));
+	}
+
+	/**
+	 * Open or create the index stored in the default location, under the
+	 * user's home directory. This file is shared by all applications: only the
+	 * first one running gets a persistent index, prefer
+	 * {@link #open(String)}.
+	 *
+	 * @return the index, to be disposed when done
+	 * @throws IOException
+	 *             if the index file could not be opened
+	 */
+	public static DirectoryIndex open() throws IOException {
+		return open(new File(System.getProperty("user.home"), ".gdx-nativefilechooser/directories.idx"));
+	}
+
+	/**
+	 * @return false if the index file was held by someone else when opened,
+	 *         the index then lives in memory and is lost when disposed
+	 */
+	public boolean isPersistent() {
+		return channel != null;
+	}
+
+	/**
+	 * Get the MIME type of given file, from the index if its directory did not
+	 * change since it was indexed, by probing it otherwise.
+	 *
+	 * @param file
+	 *            File to get MIME type of, must not be null
+	 * @return the MIME type, or null if unknown
+	 * @throws IOException
+	 *             if probing failed
+	 */
+	public String mimeType(File file) throws IOException {
+		File absolute = file.getAbsoluteFile();
+		File directory = absolute.getParentFile();
+		if (directory == null)
+			return DesktopFileChooser.probeMimeType(absolute, null);
+		return mimeType(directory, absolute.getName(), null);
+	}
+
+	synchronized String mimeType(File directory, String name, ChooserMetrics metrics) throws IOException {
+		if (buffer == null)
+			return DesktopFileChooser.probeMimeType(new File(directory, name), metrics);
+
+		// Dialogs filter a whole directory in a row, look it up only once
+		long now = System.nanoTime();
+		if (!directory.equals(checkedDirectory) || now - checkedAt > DIRECTORY_CHECK_PERIOD) {
+			checkedDirectory = directory;
+			checkedPath = directory.getAbsolutePath();
+			checkedModified = directory.lastModified();
+			checkedEntries = entries(checkedPath);
+			checkedAt = now;
+		}
+		String dir = checkedPath;
+		DirectoryEntry info = directories.get(dir);
+		FileEntry entry = checkedEntries.get(name);
+
+		// Trust entries of unchanged directories, check the file otherwise
+		if (entry != null && entry.probed && info != null && info.modified == checkedModified)
+			return entry.mime;
+
+		File file = new File(directory, name);
+		if (entry != null && entry.probed && entry.size == file.length() && entry.modified == file.lastModified())
+			return entry.mime;
+
+		boolean scanned = info != null && info.scanned;
+		if (info == null) {
+			// First time here, start tracking it
+			putDirectory(dir, checkedModified, false);
+		} else if (!scanned && info.modified != checkedModified) {
+			// Nobody expects a diff of this one, just start over
+			for (String stale : new ArrayList<>(checkedEntries.keySet()))
+				removeFile(dir, stale);
+			putDirectory(dir, checkedModified, false);
+		}
+
+		String mime = DesktopFileChooser.probeMimeType(file, metrics);
+		long size = file.length();
+		long modified = file.lastModified();
+		// Changes of scanned directories are left for the next scan to report
+		if (!scanned || (entry != null && entry.size == size && entry.modified == modified))
+			putFile(dir, name, new FileEntry(size, modified, true, mime));
+		return mime;
+	}
+
+	/**
+	 * Walk given folder and its subfolders, comparing their content with the
+	 * index, and update the index. Folders which did not change since last
+	 * scan are not listed again.
+	 *
+	 * <p>
+	 * The first scan of a folder reports all its files as added.
+	 *
+	 * @param folder
+	 *            Folder to scan, must not be null
+	 * @return the changes since last scan
+	 */
+	public synchronized Diff scan(FileHandle folder) {
+		NativeFileChooserUtils.checkNotNull(folder, "folder");
+		if (buffer == null)
+			throw new IllegalStateException("DirectoryIndex is disposed");
+
+		Diff diff = new Diff();
+		scan(folder.file().getAbsoluteFile(), diff, new HashSet<String>());
+		force();
+		return diff;
+	}
+
+	private void scan(File directory, Diff diff, Set<String> visited) {
+		String dir = directory.getPath();
+		try {
+			if (!visited.add(directory.getCanonicalPath()))
+				return; // Link loop
+		} catch (IOException ex) {
+			return;
+		}
+
+		long modified = directory.lastModified();
+		DirectoryEntry info = directories.get(dir);
+		Map<String, FileEntry> entries = entries(dir);
+
+		if (info != null && info.scanned && info.modified == modified) {
+			// Same files as last time, only their content may have changed
+			for (Map.Entry<String, FileEntry> entry : new ArrayList<>(entries.entrySet())) {
+				File child = new File(directory, entry.getKey());
+				if (checkFile(dir, child, entry.getValue()))
+					diff.modified.add(new FileHandle(child));
+			}
+			for (String subdirectory : new ArrayList<>(subdirectories(dir)))
+				scan(new File(directory, subdirectory), diff, visited);
+			return;
+		}
+
+		File[] children = directory.listFiles();
+		if (children == null) {
+			if (info != null && !directory.exists())
+				removeDirectory(dir, info.scanned ? diff : null);
+			return;
+		}
+
+		boolean known = info != null && info.scanned;
+		putDirectory(dir, modified, true);
+
+		Set<String> seenFiles = new HashSet<>();
+		Set<String> seenDirectories = new HashSet<>();
+		for (File child : children) {
+			String name = child.getName();
+			if (child.isDirectory()) {
+				seenDirectories.add(name);
+				scan(child, diff, visited);
+			} else {
+				seenFiles.add(name);
+				FileEntry entry = entries.get(name);
+				if (entry == null) {
+					putFile(dir, name, new FileEntry(child.length(), child.lastModified(), false, null));
+					diff.added.add(new FileHandle(child));
+				} else if (checkFile(dir, child, entry) || !known) {
+					(known ? diff.modified : diff.added).add(new FileHandle(child));
+				}
+			}
+		}
+
+		for (String name : new ArrayList<>(entries.keySet())) {
+			if (!seenFiles.contains(name)) {
+				removeFile(dir, name);
+				if (known)
+					diff.deleted.add(new FileHandle(new File(directory, name)));
+			}
+		}
+		for (String subdirectory : new ArrayList<>(subdirectories(dir))) {
+			if (!seenDirectories.contains(subdirectory))
+				removeDirectory(new File(directory, subdirectory).getPath(), known ? diff : null);
+		}
+	}
+
+	/**
+	 * @return true if the file changed since indexed
+	 */
+	private boolean checkFile(String dir, File child, FileEntry entry) {
+		long size = child.length();
+		long modified = child.lastModified();
+		if (size == entry.size && modified == entry.modified)
+			return false;
+		putFile(dir, child.getName(), new FileEntry(size, modified, false, null));
+		return true;
+	}
+
+	@Override
+	public synchronized void dispose() {
+		force();
+		buffer = null;
+		if (file == null || !channel.isOpen())
+			return;
+		try {
+			lock.release();
+			channel.close();
+			file.close();
+		} catch (IOException ignored) {
+			// Nothing to do
+		} finally {
+			synchronized (held) {
+				held.remove(path);
+			}
+		}
+	}
+
+	private void force() {
+		if (buffer instanceof MappedByteBuffer)
+			((MappedByteBuffer) buffer).force();
+	}
+
+	// In-memory state
+
+	private Map<String, FileEntry> entries(String dir) {
+		Map<String, FileEntry> entries = files.get(dir);
+		if (entries == null) {
+			entries = new HashMap<>();
+			files.put(dir, entries);
+		}
+		return entries;
+	}
+
+	private Set<String> subdirectories(String dir) {
+		Set<String> result = subdirectories.get(dir);
+		if (result == null) {
+			result = new LinkedHashSet<>();
+			subdirectories.put(dir, result);
+		}
+		return result;
+	}
+
+	private void applyDirectory(String dir, DirectoryEntry entry) {
+		directories.put(dir, entry);
+		File parent = new File(dir).getParentFile();
+		if (parent != null)
+			subdirectories(parent.getPath()).add(new File(dir).getName());
+	}
+
+	private void applyRemoveDirectory(String dir, Diff diff) {
+		for (String subdirectory : new ArrayList<>(subdirectories(dir)))
+			applyRemoveDirectory(new File(dir, subdirectory).getPath(), diff);
+		checkedDirectory = null;
+		Map<String, FileEntry> entries = files.remove(dir);
+		if (diff != null && entries != null) {
+			for (String name : entries.keySet())
+				diff.deleted.add(new FileHandle(new File(dir, name)));
+		}
+		directories.remove(dir);
+		subdirectories.remove(dir);
+		File parent = new File(dir).getParentFile();
+		if (parent != null) {
+			Set<String> siblings = subdirectories.get(parent.getPath());
+			if (siblings != null)
+				siblings.remove(new File(dir).getName());
+		}
+	}
+
+	// Persistent state
+
+	private void putDirectory(String dir, long modified, boolean scanned) {
+		applyDirectory(dir, new DirectoryEntry(modified, scanned));
+		byte[] path = dir.getBytes(UTF8);
+		ensureCapacity(1 + 4 + path.length + 8 + 1);
+		buffer.put(DIRECTORY);
+		putBytes(path);
+		buffer.putLong(modified);
+		buffer.put((byte) (scanned ? 1 : 0));
+		commit();
+	}
+
+	private void putFile(String dir, String name, FileEntry entry) {
+		entries(dir).put(name, entry);
+		byte[] path = dir.getBytes(UTF8);
+		byte[] fileName = name.getBytes(UTF8);
+		byte[] mime = entry.mime == null ? null : entry.mime.getBytes(UTF8);
+		ensureCapacity(1 + 4 + path.length + 4 + fileName.length + 16 + 4 + (mime == null ? 0 : mime.length));
+		buffer.put(FILE);
+		putBytes(path);
+		putBytes(fileName);
+		buffer.putLong(entry.size);
+		buffer.putLong(entry.modified);
+		if (mime == null)
+			buffer.putInt(entry.probed ? UNKNOWN_MIME : NOT_PROBED);
+		else
+			putBytes(mime);
+		commit();
+	}
+
+	private void removeFile(String dir, String name) {
+		entries(dir).remove(name);
+		byte[] path = dir.getBytes(UTF8);
+		byte[] fileName = name.getBytes(UTF8);
+		ensureCapacity(1 + 4 + path.length + 4 + fileName.length);
+		buffer.put(REMOVE_FILE);
+		putBytes(path);
+		putBytes(fileName);
+		commit();
+	}
+
+	private void removeDirectory(String dir, Diff diff) {
+		applyRemoveDirectory(dir, diff);
+		byte[] path = dir.getBytes(UTF8);
+		ensureCapacity(1 + 4 + path.length);
+		buffer.put(REMOVE_DIRECTORY);
+		putBytes(path);
+		commit();
+	}
+
+	private void putBytes(byte[] bytes) {
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private String getString() {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining())
+			throw new IllegalStateException("Corrupted index");
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private void commit() {
+		// Records only count once the end marker moved past them
+		buffer.putLong(8, buffer.position());
+		records++;
+	}
+
+	private void ensureCapacity(int length) {
+		int position = buffer.position();
+		if (position + length <= buffer.capacity())
+			return;
+
+		long capacity = buffer.capacity();
+		while (capacity < position + length)
+			capacity *= 2;
+		if (capacity > Integer.MAX_VALUE)
+			throw new IllegalStateException("Directory index is full");
+		map(capacity, position);
+	}
+
+	private void map(long capacity, int position) {
+		if (channel == null) {
+			ByteBuffer grown = ByteBuffer.allocate((int) capacity);
+			buffer.position(0).limit(position);
+			grown.put(buffer);
+			buffer = grown;
+			return;
+		}
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		} catch (IOException ex) {
+			throw new IllegalStateException("Unable to grow directory index", ex);
+		}
+		buffer.position(position);
+	}
+
+	private void load() throws IOException {
+		if (channel == null) {
+			buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+			reset();
+			return;
+		}
+
+		long size = channel.size();
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+
+		if (size < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			reset();
+			return;
+		}
+
+		long end = buffer.getLong(8);
+		if (end < HEADER || end > buffer.capacity()) {
+			reset();
+			return;
+		}
+
+		buffer.position(HEADER);
+		try {
+			while (buffer.position() < end) {
+				byte type = buffer.get();
+				String dir = getString();
+				switch (type) {
+				case DIRECTORY:
+					long modified = buffer.getLong();
+					applyDirectory(dir, new DirectoryEntry(modified, buffer.get() != 0));
+					break;
+				case FILE:
+					String name = getString();
+					long fileSize = buffer.getLong();
+					long fileModified = buffer.getLong();
+					int mimeLength = buffer.getInt();
+					String mime = null;
+					if (mimeLength >= 0) {
+						buffer.position(buffer.position() - 4);
+						mime = getString();
+					}
+					entries(dir).put(name, new FileEntry(fileSize, fileModified, mimeLength != NOT_PROBED, mime));
+					break;
+				case REMOVE_FILE:
+					entries(dir).remove(getString());
+					break;
+				case REMOVE_DIRECTORY:
+					applyRemoveDirectory(dir, null);
+					break;
+				default:
+					throw new IllegalStateException("Corrupted index");
+				}
+				records++;
+			}
+		} catch (IllegalStateException | BufferUnderflowException ex) {
+			reset();
+			return;
+		}
+
+		if (buffer.position() != end) {
+			reset();
+			return;
+		}
+
+		int live = directories.size();
+		for (Map<String, FileEntry> entries : files.values())
+			live += entries.size();
+		if (records > 2 * live + 1024)
+			compact();
+	}
+
+	private void reset() {
+		checkedDirectory = null;
+		directories.clear();
+		files.clear();
+		subdirectories.clear();
+		records = 0;
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putLong(8, HEADER);
+		buffer.position(HEADER);
+	}
+
+	private void compact() {
+		// Forget everything on disk first, a crash must not leave a mix behind
+		Map<String, DirectoryEntry> liveDirectories = new HashMap<>(directories);
+		Map<String, Map<String, FileEntry>> liveFiles = new HashMap<>(files);
+		reset();
+		for (Map.Entry<String, DirectoryEntry> entry : liveDirectories.entrySet())
+			putDirectory(entry.getKey(), entry.getValue().modified, entry.getValue().scanned);
+		for (Map.Entry<String, Map<String, FileEntry>> entries : liveFiles.entrySet()) {
+			for (Map.Entry<String, FileEntry> entry : entries.getValue().entrySet())
+				putFile(entries.getKey(), entry.getKey(), entry.getValue());
+		}
+		force();
+	}
+
+	/**
+	 * Changes of a folder since it was last scanned, as returned by
+	 * {@link DirectoryIndex#scan(FileHandle)}.
+	 */
+	public static final class Diff {
+		/** Files which appeared since last scan */
+		public final Array<FileHandle> added = new Array<>();
+		/** Files whose size or modification time changed since last scan */
+		public final Array<FileHandle> modified = new Array<>();
+		/** Files which disappeared since last scan */
+		public final Array<FileHandle> deleted = new Array<>();
+
+		Diff() {
+			super();
+		}
+
+		/**
+		 * @return true if nothing changed
+		 */
+		public boolean isEmpty() {
+			return added.size == 0 && modified.size == 0 && deleted.size == 0;
+		}
+	}
+
+	private static final class DirectoryEntry {
+		final long modified;
+		final boolean scanned;
+
+		DirectoryEntry(long modified, boolean scanned) {
+			this.modified = modified;
+			this.scanned = scanned;
+		}
+	}
+
+	private static final class FileEntry {
+		final long size;
+		final long modified;
+		final boolean probed;
+		final String mime;
+
+		FileEntry(long size, long modified, boolean probed, String mime) {
+			this.size = size;
+			this.modified = modified;
+			this.probed = probed;
+			this.mime = mime;
+		}
+	}
+}
@@ -0,0 +1,398 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import games.spooky.gdx.nativefilechooser.ChooserHandle;
+import games.spooky.gdx.nativefilechooser.NativeFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copy of chosen files into a folder of the application, on a bounded pool of
+ * background threads, before results are handed over to a
+ * {@link FileImportCallback} on the rendering thread.
+ *
+ * <p>
+ * Content is copied with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * letting the operating system copy without going through the Java heap where
+ * it can, into a temporary file of the destination folder. That file is then
+ * moved in place atomically, so that a destination file is either the old one
+ * or the complete new one, never a partial copy. Files already imported with
+ * the same size and modification time are skipped. Imports can be given up on
+ * through their {@link ChooserHandle}, stopping copies on the way.
+ *
+ * @see #importFiles(Array, FileImportConfiguration, FileImportCallback)
+ * @see #chooseAndImport(NativeFileChooser, NativeFileChooserConfiguration, FileImportConfiguration, FileImportCallback)
+ *
+ * @author thorthur
+ *
+ */
+public class FileImporter implements Disposable {
+
+	// Small enough to give up on large files early
+	private static final long CHUNK_SIZE = 8L * 1024L * 1024L;
+
+	private final ExecutorService executor;
+	private final boolean ownExecutor;
+
+	/**
+	 * Initialize a new {@code FileImporter} with its own pool of daemon
+	 * threads, four of them: copies are bound by disks rather than processors.
+	 * Call {@link #dispose()} to release them.
+	 */
+	public FileImporter() {
+		this(NativeFileChooserUtils.newDaemonThreadPool("FileImporter", 4), true);
+	}
+
+	/**
+	 * Initialize a new {@code FileImporter} copying files on given executor.
+	 * The executor is left alone by {@link #dispose()}.
+	 *
+	 * @param executor
+	 *            Executor for copies, must not be null
+	 */
+	public FileImporter(ExecutorService executor) {
+		this(executor, false);
+	}
+
+	private FileImporter(ExecutorService executor, boolean ownExecutor) {
+		super();
+		NativeFileChooserUtils.checkNotNull(executor, "executor");
+		this.executor = executor;
+		this.ownExecutor = ownExecutor;
+	}
+
+	/**
+	 * Import given files. This operation is asynchronous.
+	 *
+	 * @param files
+	 *            Files to import, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @return a handle to cancel the import
+	 */
+	public ChooserHandle importFiles(Array<FileHandle> files, FileImportConfiguration configuration, FileImportCallback callback) {
+		return importFiles(files, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Import given files under control of given handle. This operation is
+	 * asynchronous.
+	 *
+	 * @param files
+	 *            Files to import, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the import, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle importFiles(Array<FileHandle> files, FileImportConfiguration configuration, FileImportCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(files, "files");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		start(files, configuration, callback, handle);
+		return handle;
+	}
+
+	private void start(Array<FileHandle> files, FileImportConfiguration configuration, FileImportCallback callback, ChooserHandle handle) {
+		// Fail early rather than after half the copies
+		Path destination;
+		try {
+			destination = destination(files, configuration);
+		} catch (IOException ex) {
+			if (handle.complete())
+				callback.onError(ex);
+			return;
+		}
+
+		new Import(files, destination, configuration.skipUnchanged, callback, handle).start();
+	}
+
+	/**
+	 * Let the user choose files with given {@link NativeFileChooser}, then
+	 * import them before calling back. Cancellation and errors of the chooser
+	 * are forwarded to the callback.
+	 *
+	 * @param chooser
+	 *            Chooser for the files, must not be null
+	 * @param fileConfiguration
+	 *            File choosing configuration, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @return a handle to cancel both choice and import
+	 */
+	public ChooserHandle chooseAndImport(NativeFileChooser chooser, NativeFileChooserConfiguration fileConfiguration,
+			FileImportConfiguration configuration, FileImportCallback callback) {
+		return chooseAndImport(chooser, fileConfiguration, configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Same as
+	 * {@link #chooseAndImport(NativeFileChooser, NativeFileChooserConfiguration, FileImportConfiguration, FileImportCallback)},
+	 * under control of given handle (and its timeout, if any).
+	 *
+	 * @param chooser
+	 *            Chooser for the files, must not be null
+	 * @param fileConfiguration
+	 *            File choosing configuration, must not be null
+	 * @param configuration
+	 *            Import configuration, must not be null
+	 * @param callback
+	 *            Import asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of both choice and import, must not be null
+	 * @return given handle
+	 */
+	public ChooserHandle chooseAndImport(NativeFileChooser chooser, NativeFileChooserConfiguration fileConfiguration,
+			final FileImportConfiguration configuration, final FileImportCallback callback, final ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(chooser, "chooser");
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		NativeFileChooserUtils.notifyCancellation(handle, callback);
+		final ChooserHandle choice = new ChooserHandle();
+		handle.addCancellationListener(new Runnable() {
+			@Override
+			public void run() {
+				choice.cancel();
+			}
+		});
+
+		NativeFileChooserUtils.chooseFiles(chooser, fileConfiguration, new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				start(files, configuration, callback, handle);
+			}
+
+			@Override
+			public void onCancellation() {
+				// Cancellation of the handle itself is notified already
+				if (handle.complete())
+					callback.onCancellation();
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (handle.complete())
+					callback.onError(exception);
+			}
+		}, choice);
+		return handle;
+	}
+
+	@Override
+	public void dispose() {
+		if (ownExecutor)
+			executor.shutdownNow();
+	}
+
+	private static Path destination(Array<FileHandle> files, FileImportConfiguration configuration) throws IOException {
+		if (configuration.destination == null)
+			throw new IOException("No destination folder");
+
+		Path destination = configuration.destination.file().getAbsoluteFile().toPath();
+		Files.createDirectories(destination);
+
+		// Two files of the same name would overwrite each other
+		Set<String> names = new HashSet<>();
+		for (FileHandle file : files) {
+			if (!names.add(file.name()))
+				throw new IOException("Several files named " + file.name() + " to import into " + destination);
+		}
+		return destination;
+	}
+
+	private static FileHandle importFile(FileHandle file, Path destination, boolean skipUnchanged, AtomicBoolean stop) throws IOException {
+		File source = file.file();
+		Path target = destination.resolve(source.getName());
+		long size = source.length();
+		long lastModified = source.lastModified();
+
+		File targetFile = target.toFile();
+		if (skipUnchanged && targetFile.isFile() && targetFile.length() == size && targetFile.lastModified() == lastModified)
+			return new FileHandle(targetFile);
+
+		// Same folder as the target, for the move to be a mere rename
+		Path temporary = TemporaryFiles.create(target);
+		boolean placed = false;
+		try {
+			FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+			try {
+				FileChannel output = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				try {
+					long length = input.size();
+					for (long position = 0L; position < length; ) {
+						if (stop.get())
+							throw new CancellationException();
+						long transferred = input.transferTo(position, Math.min(CHUNK_SIZE, length - position), output);
+						if (transferred <= 0L)
+							break; // Source shrunk under our feet
+						position += transferred;
+					}
+				} finally {
+					output.close();
+				}
+			} finally {
+				input.close();
+			}
+
+			Files.setLastModifiedTime(temporary, FileTime.fromMillis(lastModified));
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			placed = true;
+		} finally {
+			if (!placed)
+				Files.deleteIfExists(temporary);
+		}
+		return new FileHandle(targetFile);
+	}
+
+	private final class Import {
+
+		private final FileHandle[] files;
+		private final FileHandle[] results;
+		private final Path destination;
+		private final boolean skipUnchanged;
+		private final FileImportCallback callback;
+		private final ChooserHandle handle;
+
+		private final AtomicInteger pending;
+		private final AtomicBoolean finished = new AtomicBoolean();
+
+		Import(Array<FileHandle> files, Path destination, boolean skipUnchanged, FileImportCallback callback, ChooserHandle handle) {
+			// Callers may reuse their array once we return
+			this.files = files.toArray(FileHandle.class);
+			this.results = new FileHandle[files.size];
+			this.destination = destination;
+			this.skipUnchanged = skipUnchanged;
+			this.callback = callback;
+			this.handle = handle;
+			this.pending = new AtomicInteger(files.size);
+		}
+
+		void start() {
+			handle.addCancellationListener(new Runnable() {
+				@Override
+				public void run() {
+					// Stop copying, callback is notified by the handle
+					finished.set(true);
+				}
+			});
+			if (files.length == 0) {
+				complete();
+				return;
+			}
+			for (int i = 0; i < files.length; i++) {
+				final int index = i;
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							if (finished.get())
+								return;
+							try {
+								results[index] = importFile(files[index], destination, skipUnchanged, finished);
+							} catch (Exception ex) {
+								fail(ex);
+								return;
+							}
+							if (pending.decrementAndGet() == 0)
+								complete();
+						}
+					});
+				} catch (Exception ex) {
+					fail(ex);
+					return;
+				}
+			}
+		}
+
+		private void complete() {
+			if (finished.compareAndSet(false, true) && handle.complete()) {
+				final Array<FileHandle> imported = new Array<>(results);
+				post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onFilesImported(imported);
+					}
+				});
+			}
+		}
+
+		private void fail(final Exception exception) {
+			if (finished.compareAndSet(false, true) && handle.complete()) {
+				post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onError(exception);
+					}
+				});
+			}
+		}
+
+		private void post(Runnable runnable) {
+			if (Gdx.app == null)
+				runnable.run();
+			else
+				Gdx.app.postRunnable(runnable);
+		}
+	}
+}
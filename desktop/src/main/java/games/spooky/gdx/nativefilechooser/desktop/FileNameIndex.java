@@ -0,0 +1,423 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sorted, case-insensitive index of the file names displayed by a
+ * {@link JFileChooser} list, answering type-ahead lookups by binary search
+ * instead of the linear scan of the stock Swing implementation.
+ *
+ * <p>
+ * Lookups are logarithmic whatever the number of names sharing the typed
+ * prefix: rows are also kept sorted within aligned blocks of the name order
+ * (a merge sort tree), so that the next matching row is found by binary
+ * searches on rows rather than by a scan of the whole prefix range.
+ *
+ * <p>
+ * Indexes are kept per directory, so that going back into a recently visited
+ * folder does not rebuild anything as long as its content did not change.
+ */
+final class FileNameIndex {
+
+	private static final int CACHE_SIZE = 16;
+
+	// Rows of smaller blocks are scanned, which is faster than searching them
+	private static final int LEAF_SIZE = 64;
+
+	private static final Map<File, FileNameIndex> cache = new LinkedHashMap<File, FileNameIndex>(CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, FileNameIndex> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final long lastModified;
+	private final String[] names;
+	private final int[] rows;
+	private final int[][] blocks;
+	private final Object[] elements;
+
+	// Model and version the index was last checked against
+	private ListModel<?> model;
+	private int version;
+
+	private FileNameIndex(long lastModified, String[] names, int[] rows, Object[] elements, ListModel<?> model, int version) {
+		this.lastModified = lastModified;
+		this.names = names;
+		this.rows = rows;
+		this.blocks = buildBlocks(rows);
+		this.elements = elements;
+		this.model = model;
+		this.version = version;
+	}
+
+	/**
+	 * Install index-backed type-ahead on every file list of given chooser.
+	 * Indexes are built as soon as the lists are (re)loaded.
+	 */
+	static void install(JFileChooser chooser) {
+		installOn(chooser, chooser);
+	}
+
+	private static void installOn(JFileChooser chooser, Container container) {
+		for (Component component : container.getComponents()) {
+			if (component instanceof JList) {
+				new TypeAhead(chooser, (JList<?>) component).install();
+			} else if (component instanceof Container) {
+				installOn(chooser, (Container) component);
+			}
+		}
+	}
+
+	/**
+	 * Retrieve a valid index for the current content of given model, building
+	 * it if necessary. Given version is to change with every change of the
+	 * model.
+	 */
+	static FileNameIndex of(JFileChooser chooser, ListModel<?> model, int version) {
+		File directory = chooser.getCurrentDirectory();
+		long lastModified = directory == null ? 0L : directory.lastModified();
+		synchronized (cache) {
+			FileNameIndex index = directory == null ? null : cache.get(directory);
+			if (index == null || !index.isValid(lastModified, model, version)) {
+				index = build(chooser, model, version, lastModified);
+				if (directory != null)
+					cache.put(directory, index);
+			}
+			return index;
+		}
+	}
+
+	private static FileNameIndex build(JFileChooser chooser, ListModel<?> model, int version, long lastModified) {
+		int size = model.getSize();
+		Entry[] entries = new Entry[size];
+		Object[] elements = new Object[size];
+		for (int row = 0; row < size; row++) {
+			Object element = model.getElementAt(row);
+			String name = element instanceof File ? chooser.getName((File) element) : String.valueOf(element);
+			entries[row] = new Entry(name == null ? "" : name.toLowerCase(Locale.ENGLISH), row);
+			elements[row] = element;
+		}
+		Arrays.sort(entries);
+
+		String[] names = new String[size];
+		int[] rows = new int[size];
+		for (int i = 0; i < size; i++) {
+			names[i] = entries[i].name;
+			rows[i] = entries[i].row;
+		}
+		return new FileNameIndex(lastModified, names, rows, elements, model, version);
+	}
+
+	/*
+	 * Level 0 holds rows sorted within blocks of LEAF_SIZE names, each level
+	 * up within blocks twice as large, until one block covers all names.
+	 */
+	private static int[][] buildBlocks(int[] rows) {
+		int size = rows.length;
+		int levels = 1;
+		while ((LEAF_SIZE << (levels - 1)) < size)
+			levels++;
+
+		int[][] blocks = new int[levels][];
+		blocks[0] = rows.clone();
+		for (int from = 0; from < size; from += LEAF_SIZE)
+			Arrays.sort(blocks[0], from, Math.min(from + LEAF_SIZE, size));
+
+		for (int level = 1; level < levels; level++) {
+			int[] lower = blocks[level - 1];
+			int[] merged = new int[size];
+			int blockSize = LEAF_SIZE << level;
+			for (int from = 0; from < size; from += blockSize) {
+				int middle = Math.min(from + blockSize / 2, size);
+				int to = Math.min(from + blockSize, size);
+				for (int i = from, left = from, right = middle; i < to; i++) {
+					if (right >= to || (left < middle && lower[left] < lower[right]))
+						merged[i] = lower[left++];
+					else
+						merged[i] = lower[right++];
+				}
+			}
+			blocks[level] = merged;
+		}
+		return blocks;
+	}
+
+	private boolean isValid(long lastModified, ListModel<?> model, int version) {
+		if (this.lastModified != lastModified || elements.length != model.getSize())
+			return false;
+		if (this.model == model && this.version == version)
+			return true;
+
+		// Model reloaded, or another list: sort order or filter may have changed without touching the folder
+		for (int row = 0; row < elements.length; row++) {
+			if (!elements[row].equals(model.getElementAt(row)))
+				return false;
+		}
+		this.model = model;
+		this.version = version;
+		return true;
+	}
+
+	/**
+	 * Find the first row, starting from given one and wrapping around, whose
+	 * name starts with given prefix (case-insensitive).
+	 *
+	 * @return the matching row or -1 if none
+	 */
+	int nextMatch(String prefix, int startIndex) {
+		String key = prefix.toLowerCase(Locale.ENGLISH);
+
+		// Lower bound of the prefix range
+		int low = 0;
+		int high = names.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (names[middle].compareTo(key) < 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+
+		// Upper bound of the prefix range, names starting with the prefix come first
+		high = names.length;
+		int from = low;
+		while (from < high) {
+			int middle = (from + high) >>> 1;
+			if (names[middle].startsWith(key))
+				from = middle + 1;
+			else
+				high = middle;
+		}
+
+		// Cover the range with as few sorted blocks as possible
+		int first = -1;
+		int next = -1;
+		for (int i = low; i < high; ) {
+			if (i % LEAF_SIZE != 0 || i + LEAF_SIZE > high) {
+				for (int end = Math.min(high, (i / LEAF_SIZE + 1) * LEAF_SIZE); i < end; i++) {
+					int row = rows[i];
+					if (first < 0 || row < first)
+						first = row;
+					if (row >= startIndex && (next < 0 || row < next))
+						next = row;
+				}
+				continue;
+			}
+
+			int level = 0;
+			while (level + 1 < blocks.length && i % (LEAF_SIZE << (level + 1)) == 0 && i + (LEAF_SIZE << (level + 1)) <= high)
+				level++;
+			int[] block = blocks[level];
+			int end = i + (LEAF_SIZE << level);
+
+			if (first < 0 || block[i] < first)
+				first = block[i];
+			int match = lowerBound(block, i, end, startIndex);
+			if (match < end && (next < 0 || block[match] < next))
+				next = block[match];
+			i = end;
+		}
+		return next >= 0 ? next : first;
+	}
+
+	private static int lowerBound(int[] sorted, int from, int to, int value) {
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			if (sorted[middle] < value)
+				from = middle + 1;
+			else
+				to = middle;
+		}
+		return from;
+	}
+
+	private static final class Entry implements Comparable<Entry> {
+		final String name;
+		final int row;
+
+		Entry(String name, int row) {
+			this.name = name;
+			this.row = row;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int result = name.compareTo(other.name);
+			return result == 0 ? row - other.row : result;
+		}
+	}
+
+	/**
+	 * Key listener standing in front of the list UI's own key handling, only
+	 * taking over first-letter navigation.
+	 */
+	private static final class TypeAhead implements KeyListener, ListDataListener, PropertyChangeListener {
+
+		private final JFileChooser chooser;
+		private final JList<?> list;
+		private final long timeFactor;
+
+		private KeyListener[] delegates;
+		private String prefix = "";
+		private String typedString = "";
+		private long lastTime;
+		private int version;
+		private boolean buildScheduled;
+
+		TypeAhead(JFileChooser chooser, JList<?> list) {
+			this.chooser = chooser;
+			this.list = list;
+			Object factor = UIManager.get("List.timeFactor");
+			this.timeFactor = factor instanceof Long ? (Long) factor : 1000L;
+		}
+
+		void install() {
+			delegates = list.getKeyListeners();
+			for (KeyListener delegate : delegates)
+				list.removeKeyListener(delegate);
+			list.addKeyListener(this);
+			list.getModel().addListDataListener(this);
+			list.addPropertyChangeListener("model", this);
+		}
+
+		@Override
+		public void keyTyped(KeyEvent e) {
+			ListModel<?> model = list.getModel();
+			if (model.getSize() == 0 || e.isAltDown() || isMenuShortcutKeyDown(e) || isNavigationKey(e)) {
+				for (KeyListener delegate : delegates)
+					delegate.keyTyped(e);
+				return;
+			}
+
+			char c = e.getKeyChar();
+			long time = e.getWhen();
+			int startIndex = list.getLeadSelectionIndex();
+			if (time - lastTime < timeFactor) {
+				typedString += c;
+				if (prefix.length() == 1 && c == prefix.charAt(0)) {
+					// Same key again, move on to the next entry
+					startIndex++;
+				} else {
+					prefix = typedString;
+				}
+			} else {
+				startIndex++;
+				typedString = String.valueOf(c);
+				prefix = typedString;
+			}
+			lastTime = time;
+
+			if (startIndex < 0 || startIndex >= model.getSize())
+				startIndex = 0;
+
+			int index = FileNameIndex.of(chooser, model, version).nextMatch(prefix, startIndex);
+			if (index >= 0) {
+				list.setSelectedIndex(index);
+				list.ensureIndexIsVisible(index);
+			}
+		}
+
+		@Override
+		public void keyPressed(KeyEvent e) {
+			if (isNavigationKey(e)) {
+				prefix = "";
+				typedString = "";
+				lastTime = 0L;
+			}
+			for (KeyListener delegate : delegates)
+				delegate.keyPressed(e);
+		}
+
+		@Override
+		public void keyReleased(KeyEvent e) {
+			for (KeyListener delegate : delegates)
+				delegate.keyReleased(e);
+		}
+
+		@Override
+		public void intervalAdded(ListDataEvent e) {
+			scheduleBuild();
+		}
+
+		@Override
+		public void intervalRemoved(ListDataEvent e) {
+			scheduleBuild();
+		}
+
+		@Override
+		public void contentsChanged(ListDataEvent e) {
+			scheduleBuild();
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent evt) {
+			if (evt.getOldValue() instanceof ListModel)
+				((ListModel<?>) evt.getOldValue()).removeListDataListener(this);
+			if (evt.getNewValue() instanceof ListModel)
+				((ListModel<?>) evt.getNewValue()).addListDataListener(this);
+			scheduleBuild();
+		}
+
+		private void scheduleBuild() {
+			version++;
+			// Directory loading comes in bursts, build once it settles
+			if (buildScheduled)
+				return;
+			buildScheduled = true;
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					buildScheduled = false;
+					FileNameIndex.of(chooser, list.getModel(), version);
+				}
+			});
+		}
+
+		private boolean isNavigationKey(KeyEvent e) {
+			InputMap inputMap = list.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+			return inputMap != null && inputMap.get(KeyStroke.getKeyStrokeForEvent(e)) != null;
+		}
+
+		@SuppressWarnings("deprecation")
+		private static boolean isMenuShortcutKeyDown(InputEvent e) {
+			return (e.getModifiers() & Toolkit.getDefaultToolkit().getMenuShortcutKeyMask()) != 0;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+
+import java.io.FilenameFilter;
+
+/**
+ * Last filter built by
+ * {@link DesktopFileChooser#createFilenameFilter(NativeFileChooserConfiguration, DirectoryIndex)},
+ * reused as long as calls come with the same filtering configuration, which
+ * is what applications opening the same dialog over and over do.
+ */
+final class FilterCache {
+
+	private String mimeFilter;
+	private FilenameFilter nameFilter;
+	private ChooserMetrics metrics;
+	private DirectoryIndex index;
+	private FilenameFilter filter;
+	private boolean valid;
+
+	synchronized FilenameFilter get(NativeFileChooserConfiguration configuration, DirectoryIndex directoryIndex) {
+		if (!valid || !same(mimeFilter, configuration.mimeFilter) || nameFilter != configuration.nameFilter
+				|| metrics != configuration.metrics || index != directoryIndex) {
+			mimeFilter = configuration.mimeFilter;
+			nameFilter = configuration.nameFilter;
+			metrics = configuration.metrics;
+			index = directoryIndex;
+			filter = DesktopFileChooser.createFilenameFilter(configuration, directoryIndex);
+			valid = true;
+		}
+		return filter;
+	}
+
+	private static boolean same(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
@@ -29,8 +29,12 @@ import games.spooky.gdx.nativefilechooser.*;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
+import javax.swing.filechooser.FileSystemView;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.HierarchyListener;
 import java.io.File;
 import java.io.FilenameFilter;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementation of a {@link NativeFileChooser} for the Desktop backend of a
@@ -42,6 +46,9 @@ import java.io.FilenameFilter;
  * {@link NativeFileChooserConfiguration} is experimental and slow at best. Use
  * at your own risk.
  * 
+ * <p>
+ * Cancelling a call through its {@link ChooserHandle} closes the dialog.
+ * 
  * @see #chooseFile(NativeFileChooserConfiguration, NativeFileChooserCallback)
  * 
  * @see NativeFileChooser
@@ -51,7 +58,26 @@ import java.io.FilenameFilter;
  * @author thorthur
  * 
  */
-public class SwingFileChooser implements NativeFileChooser {
+public class SwingFileChooser implements NativeCancellableChooser, NativeSelectionChooser {
+
+	private static final AtomicBoolean warmedUp = new AtomicBoolean();
+
+	private final FilterCache filterCache = new FilterCache();
+
+	private FilenameFilter swingFilterSource;
+	private FileFilter swingFilter;
+
+	private DirectoryIndex directoryIndex;
+
+	/**
+	 * Set the {@link DirectoryIndex} MIME type filtering answers from, if any.
+	 *
+	 * @param directoryIndex
+	 *            Index of directories, or null to always probe files
+	 */
+	public void setDirectoryIndex(DirectoryIndex directoryIndex) {
+		this.directoryIndex = directoryIndex;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -60,19 +86,33 @@ public class SwingFileChooser implements NativeFileChooser {
 	 * NativeFileChooserCallback)
 	 */
 	@Override
-	public void chooseFile(final NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		chooseFile(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFile(NativeFileChooserConfiguration,
+	 * NativeFileChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		JFileChooser fileChooser = createFileChooser(configuration);
 
-		int returnState = (configuration.intent == NativeFileChooserIntent.SAVE ? fileChooser.showSaveDialog(null) : fileChooser.showOpenDialog(null));
+		int returnState = showDialog(fileChooser, configuration, handle);
 		switch (returnState) {
 			case JFileChooser.APPROVE_OPTION:
 				File file = fileChooser.getSelectedFile();
-				FileHandle result = new FileHandle(file);
-				callback.onFileChosen(result);
+				if (DesktopFileChooser.withinLimits(configuration, new File[] { file }, callback)) {
+					FileHandle result = new FileHandle(file);
+					callback.onFileChosen(result);
+				}
 				break;
 			case JFileChooser.CANCEL_OPTION:
 				callback.onCancellation();
@@ -92,17 +132,31 @@ public class SwingFileChooser implements NativeFileChooser {
 	 */
 	@Override
 	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		chooseFiles(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFiles(NativeFileChooserConfiguration,
+	 * NativeFilesChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, ChooserHandle handle) {
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		JFileChooser fileChooser = createFileChooser(configuration);
 		fileChooser.setMultiSelectionEnabled(true);
 
-		int returnState = (configuration.intent == NativeFileChooserIntent.SAVE ? fileChooser.showSaveDialog(null) : fileChooser.showOpenDialog(null));
+		int returnState = showDialog(fileChooser, configuration, handle);
 		switch (returnState) {
 			case JFileChooser.APPROVE_OPTION:
 				File[] selectedFiles = fileChooser.getSelectedFiles();
-				Array<FileHandle> result = new Array<>(selectedFiles.length);
+				if (!DesktopFileChooser.withinLimits(configuration, selectedFiles, callback))
+					break;
+				Array<FileHandle> result = ChooserPools.obtainArray();
 				for (File selectedFile : selectedFiles) {
 					result.add(new FileHandle(selectedFile));
 				}
@@ -118,15 +172,76 @@ public class SwingFileChooser implements NativeFileChooser {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeSelectionChooser#chooseEntries(NativeFileChooserConfiguration,
+	 * NativeSelectionCallback)
+	 */
+	@Override
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback) {
+		chooseEntries(configuration, callback, new ChooserHandle());
+	}
+
+	/**
+	 * Same as
+	 * {@link #chooseEntries(NativeFileChooserConfiguration, NativeSelectionCallback)},
+	 * the dialog being closed once given handle is cancelled.
+	 *
+	 * @param configuration
+	 *            File choosing configuration, must not be null
+	 * @param callback
+	 *            Entries choosing asynchronous callback, must not be null
+	 * @param handle
+	 *            Handle of the call, must not be null
+	 */
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback, ChooserHandle handle) {
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		JFileChooser fileChooser = createFileChooser(configuration);
+		fileChooser.setMultiSelectionEnabled(true);
+
+		int returnState = showDialog(fileChooser, configuration, handle);
+		switch (returnState) {
+			case JFileChooser.APPROVE_OPTION:
+				File[] chosenFiles = fileChooser.getSelectedFiles();
+				long[] sizes = new long[chosenFiles.length];
+				if (DesktopFileChooser.withinLimits(configuration, chosenFiles, sizes, callback))
+					callback.onEntriesChosen(DesktopFileChooser.entries(chosenFiles, sizes));
+				break;
+			case JFileChooser.CANCEL_OPTION:
+				callback.onCancellation();
+				break;
+			case JFileChooser.ERROR_OPTION:
+			default:
+				callback.onError(new RuntimeException("An error happened while opening Swing file dialog"));
+				break;
+		}
+	}
+
 	@Override
 	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		chooseFolder(configuration, callback, new ChooserHandle());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeCancellableChooser#chooseFolder(NativeFolderChooserConfiguration,
+	 * NativeFolderChooserCallback, ChooserHandle)
+	 */
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, ChooserHandle handle) {
 
 		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
 		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
 
 		JFileChooser folderChooser = createFolderChooser(configuration);
 
-		int returnState = folderChooser.showOpenDialog(null);
+		int returnState = showDialog(folderChooser, configuration, handle);
 		switch (returnState) {
 			case JFileChooser.APPROVE_OPTION:
 				File file = folderChooser.getSelectedFile();
@@ -143,28 +258,154 @@ public class SwingFileChooser implements NativeFileChooser {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeFileChooser#warmUp()
+	 */
+	@Override
+	public void warmUp() {
+		if (!warmedUp.compareAndSet(false, true))
+			return;
+
+		NativeFileChooserUtils.warmUpInBackground("SwingFileChooser", new Runnable() {
+			@Override
+			public void run() {
+				DesktopFileChooser.warmUpMimeProbing();
+
+				if (GraphicsEnvironment.isHeadless())
+					return;
+
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						// UI delegates, look and feel defaults and file system view
+						new JFileChooser();
+
+						// Shell folders and the icon of the home folder
+						FileSystemView view = FileSystemView.getFileSystemView();
+						view.getRoots();
+						File home = view.getHomeDirectory();
+						CachingFileView.instance.isTraversable(home);
+						CachingFileView.instance.getIcon(home);
+					}
+				});
+			}
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see NativeFileChooser#warmUp(Array)
+	 */
+	@Override
+	public void warmUp(Array<FileHandle> directories) {
+		warmUp();
+
+		final Array<FileHandle> copy = new Array<>(directories);
+		final DirectoryIndex index = directoryIndex;
+		NativeFileChooserUtils.warmUpInBackground("SwingFileChooser", new Runnable() {
+			@Override
+			public void run() {
+				DesktopFileChooser.prescan(copy, index);
+
+				if (GraphicsEnvironment.isHeadless())
+					return;
+
+				// Shell folders of the directories, and icons of their kinds of files
+				FileSystemView view = FileSystemView.getFileSystemView();
+				for (FileHandle directory : copy) {
+					final File[] files = view.getFiles(directory.file(), true);
+					for (File file : files)
+						CachingFileView.instance.isTraversable(file);
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							for (File file : files)
+								CachingFileView.instance.getIcon(file);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	private int showDialog(final JFileChooser chooser, NativeChooserConfiguration configuration, ChooserHandle handle) {
+
+		Object event = DesktopEvents.DIALOG.begin();
+
+		// Close the dialog if the call is given up on
+		Runnable closer = null;
+		if (handle != null) {
+			closer = new Runnable() {
+				@Override
+				public void run() {
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							chooser.cancelSelection();
+						}
+					});
+				}
+			};
+			handle.addCancellationListener(closer);
+		}
+
+		boolean save = configuration instanceof NativeFileChooserConfiguration
+				&& ((NativeFileChooserConfiguration) configuration).intent == NativeFileChooserIntent.SAVE;
+		int returnState;
+		try {
+			returnState = save ? chooser.showSaveDialog(null) : chooser.showOpenDialog(null);
+		} finally {
+			if (closer != null)
+				handle.removeCancellationListener(closer);
+		}
+
+		if (event != null) {
+			int selected = returnState != JFileChooser.APPROVE_OPTION ? 0
+					: chooser.isMultiSelectionEnabled() ? chooser.getSelectedFiles().length : 1;
+			DesktopEvents.DIALOG.commit(event, "Swing", configuration.title, DesktopFileChooser.intentName(configuration), selected);
+		}
+
+		for (HierarchyListener listener : chooser.getHierarchyListeners()) {
+			if (listener instanceof DialogMetrics)
+				((DialogMetrics) listener).closed();
+		}
+
+		return returnState;
+	}
+
 	private JFileChooser createFileChooser(final NativeFileChooserConfiguration configuration) {
 
 		JFileChooser fileChooser = createBasicChooser(configuration);
 
-		FilenameFilter filter = DesktopFileChooser.createFilenameFilter(configuration);
+		FilenameFilter filter = filterCache.get(configuration, directoryIndex);
 
 		if (filter != null) {
-			final FilenameFilter finalFilter = filter;
-			fileChooser.setFileFilter(new FileFilter() {
+			fileChooser.setFileFilter(swingFilter(filter));
+			fileChooser.setAcceptAllFileFilterUsed(false);
+		}
+
+		return fileChooser;
+	}
+
+	private synchronized FileFilter swingFilter(final FilenameFilter filter) {
+		// Same filter as last time, same wrapper
+		if (filter != swingFilterSource) {
+			swingFilterSource = filter;
+			swingFilter = new FileFilter() {
 				@Override public String getDescription() {
 					return "gdx-nativefilechooser custom filter";
 				}
 
 				@Override
 				public boolean accept(File f) {
-					return f.isDirectory() || finalFilter.accept(f.getParentFile(), f.getName());
+					return f.isDirectory() || filter.accept(f.getParentFile(), f.getName());
 				}
-			});
-			fileChooser.setAcceptAllFileFilterUsed(false);
+			};
 		}
-
-		return fileChooser;
+		return swingFilter;
 	}
 
 	private JFileChooser createFolderChooser(final NativeFolderChooserConfiguration configuration) {
@@ -175,9 +416,15 @@ public class SwingFileChooser implements NativeFileChooser {
 
 	private JFileChooser createBasicChooser(final NativeChooserConfiguration configuration) {
 
+		// Start measuring before any Swing machinery kicks in
+		DialogMetrics metrics = configuration.metrics == null ? null : new DialogMetrics(configuration.metrics);
+
 		// Create Swing JFileChooser
 		JFileChooser fileChooser = new JFileChooser();
 
+		if (metrics != null)
+			fileChooser.addHierarchyListener(metrics);
+
 		String title = configuration.title;
 		if (title != null)
 			fileChooser.setDialogTitle(title);
@@ -186,6 +433,12 @@ public class SwingFileChooser implements NativeFileChooser {
 		if (configuration.directory != null)
 			fileChooser.setCurrentDirectory(configuration.directory.file());
 
+		// Share icons between files of the same kind
+		fileChooser.setFileView(CachingFileView.instance);
+
+		// Type-ahead in large folders
+		FileNameIndex.install(fileChooser);
+
 		return fileChooser;
 	}
 }
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+public class CachingFileViewTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final CachingFileView view = CachingFileView.instance;
+
+	@Test
+	public void unloadedFilesAreLeftToTheDefaultView() throws IOException {
+		assertNull(view.getIcon(folder.newFolder("unloaded")));
+		assertNull(view.getIcon(folder.newFile("unloaded.txt")));
+	}
+
+	@Test
+	public void filesOfTheSameKindShareIcons() throws IOException {
+		File first = load(folder.newFolder("first"));
+		File second = load(folder.newFolder("second"));
+		assertNotNull(view.getIcon(first));
+		assertSame(view.getIcon(first), view.getIcon(second));
+
+		File text = load(folder.newFile("notes.txt"));
+		File other = load(folder.newFile("other.TXT"));
+		assertNotNull(view.getIcon(text));
+		assertSame(view.getIcon(text), view.getIcon(other));
+	}
+
+	@Test
+	public void largeFoldersStayLoaded() throws IOException {
+		File large = folder.newFolder("large");
+		File first = new File(large, "0.txt");
+		first.createNewFile();
+		load(first);
+		for (int i = 1; i < 100000; i++)
+			load(new File(large, i + ".txt"));
+		assertNotNull(view.getIcon(first));
+	}
+
+	private File load(File file) {
+		// As the chooser does while loading a folder
+		view.isTraversable(file);
+		return file;
+	}
+}
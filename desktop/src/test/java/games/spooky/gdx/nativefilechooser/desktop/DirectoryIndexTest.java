@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+public class DirectoryIndexTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void secondIndexOnTheSameFileStaysInMemory() throws IOException {
+		File location = new File(folder.getRoot(), "index/directories.idx");
+		File content = folder.newFolder("content");
+		new File(content, "a.txt").createNewFile();
+
+		DirectoryIndex first = DirectoryIndex.open(location);
+		DirectoryIndex second = DirectoryIndex.open(location);
+		try {
+			assertTrue(first.isPersistent());
+			assertFalse(second.isPersistent());
+
+			assertEquals(1, first.scan(new FileHandle(content)).added.size);
+			assertEquals(1, second.scan(new FileHandle(content)).added.size);
+			new File(content, "b.txt").createNewFile();
+			// Changes within the same millisecond are not told apart
+			content.setLastModified(content.lastModified() + 2000L);
+			assertEquals(1, second.scan(new FileHandle(content)).added.size);
+		} finally {
+			second.dispose();
+			first.dispose();
+		}
+
+		// Only the locked index was written
+		DirectoryIndex reopened = DirectoryIndex.open(location);
+		try {
+			assertTrue(reopened.isPersistent());
+			DirectoryIndex.Diff diff = reopened.scan(new FileHandle(content));
+			assertEquals(1, diff.added.size);
+			assertEquals("b.txt", diff.added.first().name());
+		} finally {
+			reopened.dispose();
+		}
+	}
+
+	@Test
+	public void inMemoryIndexGrows() throws IOException {
+		File location = new File(folder.getRoot(), "directories.idx");
+		File content = folder.newFolder("content");
+		for (int i = 0; i < 2000; i++)
+			new File(content, "some-rather-long-file-name-" + i + ".txt").createNewFile();
+
+		DirectoryIndex first = DirectoryIndex.open(location);
+		DirectoryIndex second = DirectoryIndex.open(location);
+		try {
+			assertEquals(2000, second.scan(new FileHandle(content)).added.size);
+			assertTrue(second.scan(new FileHandle(content)).isEmpty());
+		} finally {
+			second.dispose();
+			first.dispose();
+		}
+	}
+}
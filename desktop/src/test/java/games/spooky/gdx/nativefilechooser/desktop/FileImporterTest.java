@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class FileImporterTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final FileImporter importer = new FileImporter();
+
+	@After
+	public void dispose() {
+		importer.dispose();
+	}
+
+	@Test
+	public void importedFilesGetDefaultPermissions() throws Exception {
+		assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+		File source = folder.newFile("song.ogg");
+		Files.write(source.toPath(), new byte[] { 1, 2, 3 });
+		File destination = folder.newFolder("imported");
+		Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(Files.createFile(destination.toPath().resolve("new")));
+
+		Array<FileHandle> imported = importFiles(new FileHandle(source), new FileHandle(destination));
+
+		Path copy = imported.first().file().toPath();
+		assertEquals(3L, Files.size(copy));
+		assertEquals(defaults, Files.getPosixFilePermissions(copy));
+	}
+
+	private Array<FileHandle> importFiles(FileHandle file, FileHandle destination) throws InterruptedException {
+		final BlockingQueue<Object> results = new ArrayBlockingQueue<>(1);
+		FileImportConfiguration configuration = new FileImportConfiguration();
+		configuration.destination = destination;
+		Array<FileHandle> files = new Array<>();
+		files.add(file);
+		importer.importFiles(files, configuration, new FileImportCallback() {
+			@Override
+			public void onFilesImported(Array<FileHandle> files) {
+				results.add(files);
+			}
+
+			@Override
+			public void onCancellation() {
+				results.add("cancelled");
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				results.add(exception);
+			}
+		});
+
+		Object result = results.poll(10L, TimeUnit.SECONDS);
+		if (result instanceof Exception)
+			throw new AssertionError(result);
+		@SuppressWarnings("unchecked")
+		Array<FileHandle> imported = (Array<FileHandle>) result;
+		return imported;
+	}
+}
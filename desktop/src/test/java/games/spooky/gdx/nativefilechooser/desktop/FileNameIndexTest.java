@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JFileChooser;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class FileNameIndexTest {
+
+	private final JFileChooser chooser = new JFileChooser();
+
+	@Test
+	public void nextMatchAgreesWithLinearScan() {
+		Random random = new Random(3L);
+		for (int size : new int[] { 0, 1, 63, 64, 65, 200, 5000, 20011 }) {
+			List<String> names = new ArrayList<>();
+			DefaultListModel<String> model = new DefaultListModel<>();
+			for (int i = 0; i < size; i++) {
+				String name = "" + (char) ('a' + random.nextInt(3)) + (char) ('a' + random.nextInt(4)) + random.nextInt(100);
+				names.add(name);
+				model.addElement(name);
+			}
+
+			FileNameIndex index = FileNameIndex.of(chooser, model, 0);
+			for (int i = 0; i < 1000; i++) {
+				String prefix = random.nextBoolean() ? "" + (char) ('a' + random.nextInt(4))
+						: "" + (char) ('a' + random.nextInt(3)) + (char) ('a' + random.nextInt(5));
+				int startIndex = size == 0 ? 0 : random.nextInt(size);
+				assertEquals(prefix + " from " + startIndex, linearMatch(names, prefix, startIndex), index.nextMatch(prefix, startIndex));
+			}
+		}
+	}
+
+	@Test
+	public void changedModelIsReindexed() {
+		DefaultListModel<String> model = new DefaultListModel<>();
+		for (int i = 0; i < 100; i++)
+			model.addElement("file" + i);
+		assertEquals(-1, FileNameIndex.of(chooser, model, 0).nextMatch("other", 0));
+
+		// Same size, same first, middle and last rows
+		model.set(7, "other");
+		assertEquals(7, FileNameIndex.of(chooser, model, 1).nextMatch("other", 0));
+	}
+
+	private static int linearMatch(List<String> names, String prefix, int startIndex) {
+		for (int i = 0; i < names.size(); i++) {
+			int row = (startIndex + i) % names.size();
+			if (names.get(row).startsWith(prefix))
+				return row;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import games.spooky.gdx.nativefilechooser.NativeFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserIntent;
+import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class FileSaverTest {
+
+	private static final byte[] CONTENT = { 1, 2, 3 };
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void posixOnly() {
+		assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+	}
+
+	@Test
+	public void replacedFilesKeepTheirPermissions() throws Exception {
+		Path target = folder.newFile("save.dat").toPath();
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+		Files.setPosixFilePermissions(target, permissions);
+
+		save(target.toFile());
+
+		assertArrayEquals(CONTENT, Files.readAllBytes(target));
+		assertEquals(permissions, Files.getPosixFilePermissions(target));
+	}
+
+	@Test
+	public void newFilesGetDefaultPermissions() throws Exception {
+		Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(folder.newFile("other.dat").toPath());
+		Path target = folder.getRoot().toPath().resolve("save.dat");
+
+		save(target.toFile());
+
+		assertArrayEquals(CONTENT, Files.readAllBytes(target));
+		assertEquals(defaults, Files.getPosixFilePermissions(target));
+	}
+
+	private static void save(final File target) throws InterruptedException {
+		NativeFileChooser chooser = new NativeFileChooser() {
+			@Override
+			public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+				callback.onFileChosen(new FileHandle(target));
+			}
+
+			@Override
+			public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+		configuration.intent = NativeFileChooserIntent.SAVE;
+		final BlockingQueue<Object> results = new ArrayBlockingQueue<>(1);
+
+		FileSaver.chooseAndWrite(chooser, configuration, new ChannelWriter() {
+			@Override
+			public void write(WritableByteChannel channel) throws IOException {
+				channel.write(ByteBuffer.wrap(CONTENT));
+			}
+		}, new FileWriteCallback() {
+			@Override
+			public void onFileWritten(FileHandle file) {
+				results.add(file);
+			}
+
+			@Override
+			public void onCancellation() {
+				results.add("cancelled");
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				results.add(exception);
+			}
+		});
+
+		Object result = results.poll(10L, TimeUnit.SECONDS);
+		if (!(result instanceof FileHandle))
+			throw new AssertionError(result);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class FilterCacheTest {
+
+	private static final int CALLS = 100000;
+
+	// Bytes allocated per call in steady state, measurement overhead included
+	private static final double BUDGET = 1.0;
+
+	private final FilterCache cache = new FilterCache();
+	private final NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+
+	{
+		configuration.mimeFilter = "audio/*";
+		configuration.nameFilter = new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".ogg");
+			}
+		};
+	}
+
+	@Test
+	public void filterIsReusedUntilFilteringChanges() {
+		FilenameFilter filter = cache.get(configuration, null);
+		configuration.title = "Another title";
+		assertSame(filter, cache.get(configuration, null));
+
+		configuration.mimeFilter = "image/*";
+		assertNotSame(filter, cache.get(configuration, null));
+	}
+
+	@Test
+	public void reusedFilterAllocatesNothing() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		long thread = Thread.currentThread().getId();
+		for (int i = 0; i < CALLS; i++)
+			cache.get(configuration, null);
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < CALLS; i++)
+			cache.get(configuration, null);
+		double bytes = (threads.getThreadAllocatedBytes(thread) - before) / (double) CALLS;
+		assertTrue(bytes + " bytes per call", bytes < BUDGET);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.utils.Array;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeSelectionCallback;
+import games.spooky.gdx.nativefilechooser.SelectionEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class SelectionEntriesTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+
+	private final NativeSelectionCallback callback = new NativeSelectionCallback() {
+		@Override
+		public void onEntriesChosen(Array<SelectionEntry> entries) {
+		}
+
+		@Override
+		public void onCancellation() {
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			throw new AssertionError(exception);
+		}
+	};
+
+	@Test
+	public void entriesKeepSizesReadForLimits() throws IOException {
+		File[] files = { createFile("a", 10), createFile("b", 20) };
+		configuration.maxTotalBytes = 100L;
+
+		long[] sizes = new long[files.length];
+		assertTrue(DesktopFileChooser.withinLimits(configuration, files, sizes, callback));
+		// Sizes must not be read again
+		Files.write(files[0].toPath(), new byte[50]);
+
+		Array<SelectionEntry> entries = DesktopFileChooser.entries(files, sizes);
+		assertEquals(10L, entries.get(0).length());
+		assertEquals(20L, entries.get(1).length());
+	}
+
+	@Test
+	public void sizesAreUnknownWithoutSizeLimits() throws IOException {
+		File[] files = { createFile("a", 10) };
+		configuration.maxFiles = 1;
+
+		long[] sizes = { 42L };
+		assertTrue(DesktopFileChooser.withinLimits(configuration, files, sizes, callback));
+		assertEquals(SelectionEntry.UNKNOWN, sizes[0]);
+		assertEquals(10L, DesktopFileChooser.entries(files, sizes).get(0).length());
+	}
+
+	private File createFile(String name, int bytes) throws IOException {
+		File file = folder.newFile(name);
+		Files.write(file.toPath(), new byte[bytes]);
+		return file;
+	}
+}
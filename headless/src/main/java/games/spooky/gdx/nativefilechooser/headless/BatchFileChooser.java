@@ -0,0 +1,304 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import games.spooky.gdx.nativefilechooser.ChooserHandle;
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.ChooserPools;
+import games.spooky.gdx.nativefilechooser.NativeCancellableChooser;
+import games.spooky.gdx.nativefilechooser.NativeChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeSelectionCallback;
+import games.spooky.gdx.nativefilechooser.NativeSelectionChooser;
+import games.spooky.gdx.nativefilechooser.SelectionEntry;
+import games.spooky.gdx.nativefilechooser.SelectionLimitException;
+import games.spooky.gdx.nativefilechooser.SelectionLimits;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Implementation of a {@link NativeFileChooser} for headless runs (servers,
+ * build tools, automation), resolving selections from declarative
+ * {@link SelectionRules} instead of asking a user.
+ *
+ * <p>
+ * Rules are registered per configuration title, so that every chooser call
+ * of the application can be answered differently. Calls whose title has no
+ * rules use the default rules, or fail with an {@link IllegalStateException}
+ * if there are none.
+ *
+ * <p>
+ * The starting directory of the configuration (the working directory if
+ * none) is walked in parallel, testing rules as well as
+ * {@link NativeFileChooserConfiguration#mimeFilter} and
+ * {@link NativeFileChooserConfiguration#nameFilter} along the way, with the
+ * same behavior as the desktop file choosers. A call where nothing matches is
+ * a cancellation.
+ *
+ * <p>
+ * Like desktop dialogs, calls are synchronous: the callback is called on the
+ * calling thread once the walk is over. Walks stop as soon as the
+ * {@link ChooserHandle} of the call is cancelled. This class is thread-safe.
+ *
+ * @see SelectionRules
+ *
+ * @author thorthur
+ *
+ */
+public class BatchFileChooser implements NativeCancellableChooser, NativeSelectionChooser {
+
+	private final ForkJoinPool pool;
+
+	private final Map<String, SelectionRules> rules = new ConcurrentHashMap<>();
+
+	private volatile SelectionRules defaultRules;
+
+	/**
+	 * Initialize a new {@code BatchFileChooser} walking directories on the
+	 * common {@link ForkJoinPool}.
+	 */
+	public BatchFileChooser() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Initialize a new {@code BatchFileChooser} walking directories on given
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param pool
+	 *            Pool for directory walks
+	 */
+	public BatchFileChooser(ForkJoinPool pool) {
+		super();
+		NativeFileChooserUtils.checkNotNull(pool, "pool");
+		this.pool = pool;
+	}
+
+	/**
+	 * Register rules for chooser calls with given title.
+	 *
+	 * @param title
+	 *            Title of the configurations these rules apply to, or null
+	 *            for default rules
+	 * @param selectionRules
+	 *            Rules to apply, or null to remove rules
+	 * @return this chooser, for chaining
+	 */
+	public BatchFileChooser setRules(String title, SelectionRules selectionRules) {
+		if (title == null) {
+			defaultRules = selectionRules;
+		} else if (selectionRules == null) {
+			rules.remove(title);
+		} else {
+			rules.put(title, selectionRules);
+		}
+		return this;
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+		chooseFile(configuration, callback, new ChooserHandle());
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		List<DirectoryWalker.Entry> entries = select(configuration, callback, FileFilters.create(configuration), false, handle);
+		if (entries != null && withinLimits(configuration, entries.subList(0, 1), callback))
+			callback.onFileChosen(new FileHandle(entries.get(0).path.toFile()));
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+		chooseFiles(configuration, callback, new ChooserHandle());
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		List<DirectoryWalker.Entry> entries = select(configuration, callback, FileFilters.create(configuration), false, handle);
+		if (entries != null && withinLimits(configuration, entries, callback)) {
+			Array<FileHandle> files = ChooserPools.obtainArray();
+			for (DirectoryWalker.Entry entry : entries)
+				files.add(new FileHandle(entry.path.toFile()));
+			callback.onFilesChosen(files);
+		}
+	}
+
+	@Override
+	public void chooseEntries(NativeFileChooserConfiguration configuration, NativeSelectionCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		List<DirectoryWalker.Entry> entries = select(configuration, callback, FileFilters.create(configuration), false, new ChooserHandle());
+		if (entries != null && withinLimits(configuration, entries, callback)) {
+			// The walk already read attributes, hand them over
+			Array<SelectionEntry> result = ChooserPools.obtainArray();
+			for (DirectoryWalker.Entry entry : entries)
+				result.add(new SelectionEntry(entry.path.toString(), null, entry.attributes.size(),
+						entry.attributes.lastModifiedTime().toMillis(), null));
+			callback.onEntriesChosen(result);
+		}
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+		chooseFolder(configuration, callback, new ChooserHandle());
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback, ChooserHandle handle) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+		NativeFileChooserUtils.checkNotNull(handle, "handle");
+
+		List<DirectoryWalker.Entry> folders = select(configuration, callback, null, true, handle);
+		if (folders != null)
+			callback.onFolderChosen(new FileHandle(folders.get(0).path.toFile()));
+	}
+
+	/*
+	 * Enforce selection limits on picked entries, sizes coming with the walk.
+	 * Failures go to given callback.
+	 */
+	private static boolean withinLimits(NativeFileChooserConfiguration configuration, List<DirectoryWalker.Entry> entries, NativeChooserCallback callback) {
+		if (!SelectionLimits.isLimited(configuration))
+			return true;
+		SelectionLimits limits = new SelectionLimits(configuration);
+		try {
+			limits.checkCount(entries.size());
+			for (DirectoryWalker.Entry entry : entries)
+				limits.add(new FileHandle(entry.path.toFile()), entry.attributes.size());
+			return true;
+		} catch (SelectionLimitException ex) {
+			callback.onError(ex);
+			return false;
+		}
+	}
+
+	/*
+	 * Apply rules. Return picked entries, or null if callback already got
+	 * cancellation or error (or will get it from the cancelled handle).
+	 */
+	private List<DirectoryWalker.Entry> select(NativeChooserConfiguration configuration, NativeChooserCallback callback,
+			FilenameFilter configurationFilter, final boolean folders, ChooserHandle handle) {
+
+		SelectionRules selectionRules = configuration.title == null ? null : rules.get(configuration.title);
+		if (selectionRules == null)
+			selectionRules = defaultRules;
+		if (selectionRules == null) {
+			callback.onError(new IllegalStateException("No selection rules for \"" + configuration.title + "\""));
+			return null;
+		}
+
+		ChooserMetrics metrics = configuration.metrics;
+		if (metrics != null)
+			metrics.onDialogOpened(0L);
+		long start = System.nanoTime();
+
+		try {
+			final Path root = (configuration.directory == null ? new File("") : configuration.directory.file()).getAbsoluteFile().toPath();
+			final SelectionRules r = selectionRules;
+			final PathMatcher matcher = r.glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + r.glob);
+			final FilenameFilter ruleFilter = r.mimeFilter == null ? null : FileFilters.create(mimeConfiguration(r.mimeFilter));
+			final FilenameFilter filter = configurationFilter;
+
+			DirectoryWalker walker = new DirectoryWalker(pool, r.maxDepth, r.followLinks, (path, attributes) -> {
+				// Links are only seen as what they point to when followed, special files never match
+				if (folders ? !attributes.isDirectory() : !attributes.isRegularFile())
+					return false;
+				if (!folders && (attributes.size() < r.minSize || attributes.size() > r.maxSize))
+					return false;
+				if (matcher != null && !matcher.matches(root.relativize(path)))
+					return false;
+				File file = path.toFile();
+				return FileFilters.accept(ruleFilter, file) && FileFilters.accept(filter, file);
+			}, handle);
+
+			List<DirectoryWalker.Entry> entries = new ArrayList<>(walker.walk(root));
+			if (r.newest > 0) {
+				// Most recent first, then keep requested amount
+				Collections.sort(entries, Comparator.comparing((DirectoryWalker.Entry entry) -> entry.attributes.lastModifiedTime()).reversed()
+						.thenComparing(entry -> entry.path));
+				if (entries.size() > r.newest)
+					entries = entries.subList(0, r.newest);
+			} else {
+				Collections.sort(entries, Comparator.comparing(entry -> entry.path));
+			}
+
+			if (metrics != null)
+				metrics.onDialogClosed(System.nanoTime() - start);
+
+			if (entries.isEmpty()) {
+				callback.onCancellation();
+				return null;
+			}
+
+			return entries;
+		} catch (CancellationException ex) {
+			return null;
+		} catch (Exception ex) {
+			callback.onError(ex);
+			return null;
+		}
+	}
+
+	private static NativeFileChooserConfiguration mimeConfiguration(String mimeFilter) {
+		NativeFileChooserConfiguration configuration = new NativeFileChooserConfiguration();
+		configuration.mimeFilter = mimeFilter;
+		return configuration;
+	}
+}
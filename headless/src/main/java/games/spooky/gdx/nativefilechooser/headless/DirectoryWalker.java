@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import games.spooky.gdx.nativefilechooser.ChooserHandle;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel directory walker, forking one task per directory on a
+ * {@link ForkJoinPool}. Entries are tested as soon as they are listed, so
+ * that expensive tests (like MIME probing) run in parallel as well. Walks
+ * stop as soon as their {@link ChooserHandle} is cancelled.
+ */
+final class DirectoryWalker {
+
+	interface EntryFilter {
+		boolean accept(Path path, BasicFileAttributes attributes);
+	}
+
+	static final class Entry {
+		final Path path;
+		final BasicFileAttributes attributes;
+
+		Entry(Path path, BasicFileAttributes attributes) {
+			this.path = path;
+			this.attributes = attributes;
+		}
+	}
+
+	private final ForkJoinPool pool;
+	private final int maxDepth;
+	private final LinkOption[] linkOptions;
+	private final EntryFilter filter;
+	private final ChooserHandle handle;
+
+	private final Collection<Entry> entries = new ConcurrentLinkedQueue<>();
+	private final Set<Object> visited = ConcurrentHashMap.newKeySet();
+
+	DirectoryWalker(ForkJoinPool pool, int maxDepth, boolean followLinks, EntryFilter filter, ChooserHandle handle) {
+		this.pool = pool;
+		this.maxDepth = maxDepth;
+		this.linkOptions = followLinks ? new LinkOption[0] : new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+		this.filter = filter;
+		this.handle = handle;
+	}
+
+	/**
+	 * Walk given directory and return accepted entries, in no particular order.
+	 * Throw a {@link java.util.concurrent.CancellationException} if the walk
+	 * was cancelled.
+	 */
+	Collection<Entry> walk(Path root) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(root, BasicFileAttributes.class);
+		if (!attributes.isDirectory())
+			throw new IOException("Not a directory: " + root);
+		visit(attributes);
+		pool.invoke(new DirectoryTask(root, 1));
+		handle.checkCancelled();
+		return entries;
+	}
+
+	private boolean visit(BasicFileAttributes attributes) {
+		// Guard against link loops, where file keys are available
+		Object key = attributes.fileKey();
+		return key == null || visited.add(key);
+	}
+
+	private final class DirectoryTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Path directory;
+		private final int depth;
+
+		DirectoryTask(Path directory, int depth) {
+			this.directory = directory;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			List<DirectoryTask> subtasks = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+				for (Path path : stream) {
+					if (handle.isCancelled())
+						break;
+
+					BasicFileAttributes attributes;
+					try {
+						attributes = Files.readAttributes(path, BasicFileAttributes.class, linkOptions);
+					} catch (IOException ignored) {
+						continue; // Vanished or unreadable, like a dialog would skip it
+					}
+
+					if (filter.accept(path, attributes))
+						entries.add(new Entry(path, attributes));
+
+					if (attributes.isDirectory() && depth < maxDepth && visit(attributes)) {
+						DirectoryTask subtask = new DirectoryTask(path, depth + 1);
+						subtask.fork();
+						subtasks.add(subtask);
+					}
+				}
+			} catch (IOException ignored) {
+				// Unreadable directory, skip it
+			}
+			for (DirectoryTask subtask : subtasks)
+				subtask.join();
+		}
+	}
+}
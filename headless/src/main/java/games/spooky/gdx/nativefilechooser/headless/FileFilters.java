@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Filters of the headless file choosers. They behave exactly like the ones
+ * of the AWT and Swing file choosers: MIME type probed through
+ * {@link NativeFileChooserUtils#probeMimeType(File, ChooserMetrics)} (files
+ * of unknown type are accepted), then name filter, both having to agree.
+ */
+final class FileFilters {
+
+	private FileFilters() {
+	}
+
+	static FilenameFilter create(final NativeFileChooserConfiguration configuration) {
+		FilenameFilter filter = null;
+
+		// Add MIME type filter if any
+		if (configuration.mimeFilter != null)
+			filter = createMimeTypeFilter(configuration.mimeFilter, configuration.metrics);
+
+		// Add name filter if any
+		if (configuration.nameFilter != null) {
+			if (filter == null) {
+				filter = configuration.nameFilter;
+			} else {
+				// Combine filters!
+				final FilenameFilter mime = filter;
+				filter = (dir, name) -> mime.accept(dir, name) && configuration.nameFilter.accept(dir, name);
+			}
+		}
+
+		// Measure filtering if asked to
+		if (filter != null && configuration.metrics != null) {
+			final FilenameFilter measured = filter;
+			final ChooserMetrics metrics = configuration.metrics;
+			filter = (dir, name) -> {
+				long start = System.nanoTime();
+				try {
+					return measured.accept(dir, name);
+				} finally {
+					metrics.onFilterEvaluated(System.nanoTime() - start);
+				}
+			};
+		}
+
+		return filter;
+	}
+
+	static boolean accept(FilenameFilter filter, File file) {
+		return filter == null || filter.accept(file.getParentFile(), file.getName());
+	}
+
+	private static FilenameFilter createMimeTypeFilter(String mimeType, final ChooserMetrics metrics) {
+		final Pattern mimePattern = NativeFileChooserUtils.mimePattern(mimeType);
+		return (dir, name) -> {
+			try {
+				String mime = NativeFileChooserUtils.probeMimeType(new File(dir, name), metrics);
+
+				if (mime != null)
+					return mimePattern.matcher(mime).matches();
+
+			} catch (IOException ignored) {
+			}
+
+			// Accept by default, in case mime probing doesn't work
+			return true;
+		};
+	}
+}
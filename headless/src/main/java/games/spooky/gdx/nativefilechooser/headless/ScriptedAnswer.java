@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the imaginary user of a {@link ScriptedFileChooser} does when facing
+ * a dialog: pick given paths, pick whatever matches a glob pattern, cancel,
+ * or make the dialog fail. Any of these may come after some latency.
+ *
+ * <p>
+ * Instances are immutable and may be reused any number of times.
+ *
+ * @see ScriptedFileChooser
+ *
+ * @author thorthur
+ *
+ */
+public final class ScriptedAnswer {
+
+	enum Kind {
+		PATHS, GLOB, CANCELLATION, ERROR
+	}
+
+	final Kind kind;
+	final String[] values;
+	final Exception error;
+	final long latency;
+
+	private ScriptedAnswer(Kind kind, String[] values, Exception error, long latency) {
+		this.kind = kind;
+		this.values = values;
+		this.error = error;
+		this.latency = latency;
+	}
+
+	/**
+	 * Pick given paths. Relative paths are resolved against the
+	 * configuration's starting directory, or the working directory if none.
+	 *
+	 * @param paths
+	 *            Paths to pick, in order
+	 * @return the answer
+	 */
+	public static ScriptedAnswer paths(String... paths) {
+		NativeFileChooserUtils.checkNotNull(paths, "paths");
+		return new ScriptedAnswer(Kind.PATHS, paths.clone(), null, 0L);
+	}
+
+	/**
+	 * Pick every path matching given glob pattern (see
+	 * {@link FileSystems#getDefault()} and
+	 * {@link java.nio.file.FileSystem#getPathMatcher(String)}), relative to
+	 * the configuration's starting directory, or the working directory if
+	 * none. Paths are picked in lexicographic order.
+	 *
+	 * @param pattern
+	 *            Glob pattern, eg. "**&#47;*.ogg"
+	 * @return the answer
+	 */
+	public static ScriptedAnswer glob(String pattern) {
+		NativeFileChooserUtils.checkNotNull(pattern, "pattern");
+		return new ScriptedAnswer(Kind.GLOB, new String[] { pattern }, null, 0L);
+	}
+
+	/**
+	 * Cancel the dialog.
+	 *
+	 * @return the answer
+	 */
+	public static ScriptedAnswer cancellation() {
+		return new ScriptedAnswer(Kind.CANCELLATION, null, null, 0L);
+	}
+
+	/**
+	 * Make the dialog fail with given exception.
+	 *
+	 * @param exception
+	 *            Exception handed to the callback
+	 * @return the answer
+	 */
+	public static ScriptedAnswer error(Exception exception) {
+		NativeFileChooserUtils.checkNotNull(exception, "exception");
+		return new ScriptedAnswer(Kind.ERROR, null, exception, 0L);
+	}
+
+	/**
+	 * Create a copy of this answer only given after some time, like a real
+	 * user would.
+	 *
+	 * @param millis
+	 *            Latency in milliseconds
+	 * @return the delayed answer
+	 */
+	public ScriptedAnswer withLatency(long millis) {
+		if (millis < 0L)
+			throw new IllegalArgumentException("Latency must not be negative");
+		return new ScriptedAnswer(kind, values, error, millis);
+	}
+
+	List<File> candidates(FileHandle directory) throws IOException {
+		Path root = (directory == null ? new File("") : directory.file()).getAbsoluteFile().toPath();
+		switch (kind) {
+			case PATHS:
+				List<File> files = new ArrayList<>(values.length);
+				for (String value : values)
+					files.add(root.resolve(value).toFile());
+				return files;
+			case GLOB:
+				return glob(root, FileSystems.getDefault().getPathMatcher("glob:" + values[0]));
+			default:
+				return Collections.emptyList();
+		}
+	}
+
+	private static List<File> glob(final Path root, final PathMatcher matcher) throws IOException {
+		final List<File> files = new ArrayList<>();
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if (!dir.equals(root) && matcher.matches(root.relativize(dir)))
+					files.add(dir.toFile());
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (matcher.matches(root.relativize(file)))
+					files.add(file.toFile());
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(files);
+		return files;
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import games.spooky.gdx.nativefilechooser.ChooserMetrics;
+import games.spooky.gdx.nativefilechooser.ChooserPools;
+import games.spooky.gdx.nativefilechooser.NativeChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooser;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserUtils;
+import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.SelectionLimitException;
+import games.spooky.gdx.nativefilechooser.SelectionLimits;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Implementation of a {@link NativeFileChooser} without any UI, answering
+ * dialogs from a script of {@link ScriptedAnswer}s. Meant for automated and
+ * load testing of the code handling chooser results.
+ *
+ * <p>
+ * Answers are consumed in order, one per call. Once the script is exhausted,
+ * the default answer (if any) is given, otherwise the callback gets an
+ * {@link IllegalStateException}.
+ *
+ * <p>
+ * Picked paths go through {@link NativeFileChooserConfiguration#mimeFilter}
+ * and {@link NativeFileChooserConfiguration#nameFilter} exactly like they
+ * would with the desktop file choosers, a path rejected by filters being one
+ * the user could not pick. A call where no path survives is a cancellation.
+ *
+ * <p>
+ * Like desktop dialogs, calls are synchronous: the callback is called on the
+ * calling thread, after the answer's latency if any. This class is
+ * thread-safe.
+ *
+ * @see ScriptedAnswer
+ *
+ * @author thorthur
+ *
+ */
+public class ScriptedFileChooser implements NativeFileChooser {
+
+	private final Queue<ScriptedAnswer> script = new ConcurrentLinkedQueue<>();
+
+	private volatile ScriptedAnswer defaultAnswer;
+
+	/**
+	 * Append given answers to the script.
+	 *
+	 * @param answers
+	 *            Answers for next calls, in order
+	 * @return this chooser, for chaining
+	 */
+	public ScriptedFileChooser enqueue(ScriptedAnswer... answers) {
+		for (ScriptedAnswer answer : answers) {
+			NativeFileChooserUtils.checkNotNull(answer, "answer");
+			script.add(answer);
+		}
+		return this;
+	}
+
+	/**
+	 * Set the answer given once the script is exhausted.
+	 *
+	 * @param answer
+	 *            Default answer, or null to fail calls once the script is
+	 *            exhausted
+	 */
+	public void setDefaultAnswer(ScriptedAnswer answer) {
+		this.defaultAnswer = answer;
+	}
+
+	/**
+	 * @return the number of answers left in the script
+	 */
+	public int remaining() {
+		return script.size();
+	}
+
+	@Override
+	public void chooseFile(NativeFileChooserConfiguration configuration, NativeFileChooserCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		Array<FileHandle> files = answer(configuration, callback, FileFilters.create(configuration), false);
+		if (files != null) {
+			FileHandle file = files.first();
+			ChooserPools.free(files);
+			if (withinLimits(configuration, Array.with(file), callback))
+				callback.onFileChosen(file);
+		}
+	}
+
+	@Override
+	public void chooseFiles(NativeFileChooserConfiguration configuration, NativeFilesChooserCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		Array<FileHandle> files = answer(configuration, callback, FileFilters.create(configuration), false);
+		if (files != null && withinLimits(configuration, files, callback))
+			callback.onFilesChosen(files);
+	}
+
+	@Override
+	public void chooseFolder(NativeFolderChooserConfiguration configuration, NativeFolderChooserCallback callback) {
+
+		NativeFileChooserUtils.checkNotNull(configuration, "configuration");
+		NativeFileChooserUtils.checkNotNull(callback, "callback");
+
+		Array<FileHandle> folders = answer(configuration, callback, null, true);
+		if (folders != null) {
+			FileHandle folder = folders.first();
+			ChooserPools.free(folders);
+			callback.onFolderChosen(folder);
+		}
+	}
+
+	/*
+	 * Enforce selection limits on picked files. Failures go to given callback.
+	 */
+	private static boolean withinLimits(NativeFileChooserConfiguration configuration, Array<FileHandle> files, NativeChooserCallback callback) {
+		try {
+			SelectionLimits.check(configuration, files);
+			return true;
+		} catch (SelectionLimitException ex) {
+			callback.onError(ex);
+			return false;
+		}
+	}
+
+	/*
+	 * Play next answer. Return picked files, or null if callback already got
+	 * cancellation or error.
+	 */
+	private Array<FileHandle> answer(NativeChooserConfiguration configuration, NativeChooserCallback callback,
+			FilenameFilter filter, boolean folders) {
+
+		ChooserMetrics metrics = configuration.metrics;
+		if (metrics != null)
+			metrics.onDialogOpened(0L);
+		long start = System.nanoTime();
+
+		ScriptedAnswer answer = script.poll();
+		if (answer == null)
+			answer = defaultAnswer;
+		if (answer == null) {
+			callback.onError(new IllegalStateException("No scripted answer left"));
+			return null;
+		}
+
+		try {
+			if (answer.latency > 0L)
+				Thread.sleep(answer.latency);
+
+			Array<FileHandle> result = null;
+			switch (answer.kind) {
+				case CANCELLATION:
+					break;
+				case ERROR:
+					dialogClosed(metrics, start);
+					callback.onError(answer.error);
+					return null;
+				default:
+					List<File> candidates = answer.candidates(configuration.directory);
+					result = ChooserPools.obtainArray();
+					for (File candidate : candidates) {
+						if (candidate.isDirectory() == folders && FileFilters.accept(filter, candidate))
+							result.add(new FileHandle(candidate));
+					}
+					break;
+			}
+
+			dialogClosed(metrics, start);
+			if (result == null || result.size == 0) {
+				if (result != null)
+					ChooserPools.free(result);
+				callback.onCancellation();
+				return null;
+			}
+			return result;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			callback.onError(ex);
+		} catch (Exception ex) {
+			callback.onError(ex);
+		}
+		return null;
+	}
+
+	private static void dialogClosed(ChooserMetrics metrics, long start) {
+		if (metrics != null)
+			metrics.onDialogClosed(System.nanoTime() - start);
+	}
+}
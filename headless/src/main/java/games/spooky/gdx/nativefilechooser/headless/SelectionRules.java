@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+/**
+ * Declarative rules telling a {@link BatchFileChooser} what to pick in the
+ * starting directory of a chooser call.
+ *
+ * <p>
+ * Rules apply on top of the filters of the call configuration. Any instance
+ * of this is to be considered a plain-old Java object (POJO), code in this
+ * very library will never modify the content of such instance.
+ *
+ * @see BatchFileChooser
+ *
+ * @author thorthur
+ *
+ */
+public class SelectionRules {
+
+	/**
+	 * Glob pattern that picked paths must match, relative to the starting
+	 * directory, eg. "**&#47;*.ogg". See
+	 * {@link java.nio.file.FileSystem#getPathMatcher(String)} for syntax.
+	 *
+	 * <p>
+	 * If null (default value), every path matches.
+	 */
+	public String glob;
+
+	/**
+	 * A filter on MIME data type, with the same syntax and behavior as
+	 * {@link games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration#mimeFilter}.
+	 *
+	 * <p>
+	 * If null (default value), no additional MIME filtering happens.
+	 */
+	public String mimeFilter;
+
+	/**
+	 * Only pick that many paths, the most recently modified ones.
+	 *
+	 * <p>
+	 * If 0 or less (default value), all matching paths are picked, in
+	 * lexicographic order.
+	 */
+	public int newest;
+
+	/**
+	 * Minimum size in bytes of picked files. Does not apply to folders.
+	 */
+	public long minSize;
+
+	/**
+	 * Maximum size in bytes of picked files. Does not apply to folders.
+	 */
+	public long maxSize = Long.MAX_VALUE;
+
+	/**
+	 * Maximum depth of the directory walk, 1 meaning only direct children of
+	 * the starting directory.
+	 */
+	public int maxDepth = Integer.MAX_VALUE;
+
+	/**
+	 * Whether to follow symbolic links during the directory walk. Links
+	 * leading back to an ancestor are never followed.
+	 */
+	public boolean followLinks;
+
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNoException;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class BatchFileChooserTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final SelectionRules rules = new SelectionRules();
+
+	private NativeFileChooserConfiguration configuration;
+
+	@Before
+	public void createTree() throws IOException {
+		File root = folder.getRoot();
+		folder.newFile("file.txt");
+		File directory = folder.newFolder("directory");
+		try {
+			Files.createSymbolicLink(new File(root, "fileLink").toPath(), new File(root, "file.txt").toPath());
+			Files.createSymbolicLink(new File(root, "directoryLink").toPath(), directory.toPath());
+		} catch (UnsupportedOperationException | IOException ex) {
+			assumeNoException("Symbolic links not supported here", ex);
+		}
+
+		configuration = new NativeFileChooserConfiguration();
+		configuration.directory = new FileHandle(root);
+		rules.maxDepth = 1;
+	}
+
+	@Test
+	public void linksAreNotFilesWhenNotFollowed() {
+		rules.followLinks = false;
+		assertEquals(names("file.txt"), choose());
+	}
+
+	@Test
+	public void linksAreWhatTheyPointToWhenFollowed() {
+		rules.followLinks = true;
+		assertEquals(names("file.txt", "fileLink"), choose());
+	}
+
+	private Set<String> choose() {
+		final Set<String> chosen = new TreeSet<>();
+		new BatchFileChooser().setRules(null, rules).chooseFiles(configuration, new NativeFilesChooserCallback() {
+			@Override
+			public void onFilesChosen(Array<FileHandle> files) {
+				for (FileHandle file : files)
+					chosen.add(file.name());
+			}
+
+			@Override
+			public void onCancellation() {
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				throw new AssertionError(exception);
+			}
+		});
+		return chosen;
+	}
+
+	private static Set<String> names(String... names) {
+		Set<String> set = new TreeSet<>();
+		for (String name : names)
+			set.add(name);
+		return set;
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2024 Spooky Games
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package games.spooky.gdx.nativefilechooser.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import games.spooky.gdx.nativefilechooser.NativeFileChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFileChooserConfiguration;
+import games.spooky.gdx.nativefilechooser.NativeFilesChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserCallback;
+import games.spooky.gdx.nativefilechooser.NativeFolderChooserConfiguration;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+
+public class ScriptedFileChooserTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final ScriptedFileChooser chooser = new ScriptedFileChooser();
+
+	private NativeFileChooserConfiguration configuration;
+
+	private NativeFolderChooserConfiguration folderConfiguration;
+
+	@Before
+	public void createTree() throws IOException {
+		folder.newFile("b.txt");
+		folder.newFile("a.txt");
+		folder.newFile("c.ogg");
+		folder.newFolder("directory");
+
+		FileHandle root = new FileHandle(folder.getRoot());
+		configuration = new NativeFileChooserConfiguration();
+		configuration.directory = root;
+		folderConfiguration = new NativeFolderChooserConfiguration();
+		folderConfiguration.directory = root;
+	}
+
+	@Test
+	public void fileIsPicked() {
+		chooser.enqueue(ScriptedAnswer.paths("a.txt"));
+		assertEquals("file a.txt", chooseFile().outcome);
+		assertEquals(0, chooser.remaining());
+	}
+
+	@Test
+	public void filesArePickedInGlobOrder() {
+		chooser.enqueue(ScriptedAnswer.glob("*.txt"));
+		assertEquals("files a.txt b.txt", chooseFiles().outcome);
+	}
+
+	@Test
+	public void filesRejectedByFiltersCannotBePicked() {
+		configuration.nameFilter = new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".ogg");
+			}
+		};
+		chooser.enqueue(ScriptedAnswer.glob("*"), ScriptedAnswer.paths("a.txt"));
+		assertEquals("files c.ogg", chooseFiles().outcome);
+		assertEquals("cancellation", chooseFile().outcome);
+	}
+
+	@Test
+	public void mimeFilterKnowsCommonExtensions() throws IOException {
+		folder.newFile("d.png");
+		configuration.mimeFilter = "image/*";
+		chooser.enqueue(ScriptedAnswer.glob("*.{txt,png}"));
+		assertEquals("files d.png", chooseFiles().outcome);
+	}
+
+	@Test
+	public void folderIsPicked() {
+		chooser.enqueue(ScriptedAnswer.paths("directory"), ScriptedAnswer.paths("a.txt"));
+		assertEquals("folder directory", chooseFolder().outcome);
+		assertEquals("cancellation", chooseFolder().outcome);
+	}
+
+	@Test
+	public void cancellationIsPlayed() {
+		chooser.enqueue(ScriptedAnswer.cancellation().withLatency(10L));
+		assertEquals("cancellation", chooseFiles().outcome);
+	}
+
+	@Test
+	public void errorIsHandedToCallback() {
+		Exception error = new IOException("Scripted");
+		chooser.enqueue(ScriptedAnswer.error(error));
+		Recorder recorder = chooseFile();
+		assertEquals("error", recorder.outcome);
+		assertSame(error, recorder.error);
+	}
+
+	@Test
+	public void exhaustedScriptFailsUnlessDefaultAnswer() {
+		chooser.enqueue(ScriptedAnswer.paths("a.txt"));
+		assertEquals(1, chooser.remaining());
+		assertEquals("file a.txt", chooseFile().outcome);
+
+		Recorder recorder = chooseFile();
+		assertEquals("error", recorder.outcome);
+		assertTrue(recorder.error instanceof IllegalStateException);
+
+		chooser.setDefaultAnswer(ScriptedAnswer.paths("b.txt"));
+		assertEquals("file b.txt", chooseFile().outcome);
+		assertEquals("file b.txt", chooseFile().outcome);
+		assertEquals(0, chooser.remaining());
+	}
+
+	private Recorder chooseFile() {
+		Recorder recorder = new Recorder();
+		chooser.chooseFile(configuration, recorder);
+		return recorder;
+	}
+
+	private Recorder chooseFiles() {
+		Recorder recorder = new Recorder();
+		chooser.chooseFiles(configuration, recorder);
+		return recorder;
+	}
+
+	private Recorder chooseFolder() {
+		Recorder recorder = new Recorder();
+		chooser.chooseFolder(folderConfiguration, recorder);
+		return recorder;
+	}
+
+	private static class Recorder implements NativeFileChooserCallback, NativeFilesChooserCallback, NativeFolderChooserCallback {
+
+		String outcome;
+		Exception error;
+
+		@Override
+		public void onFileChosen(FileHandle file) {
+			outcome = "file " + file.name();
+		}
+
+		@Override
+		public void onFilesChosen(Array<FileHandle> files) {
+			StringBuilder builder = new StringBuilder("files");
+			for (FileHandle file : files)
+				builder.append(' ').append(file.name());
+			outcome = builder.toString();
+		}
+
+		@Override
+		public void onFolderChosen(FileHandle folder) {
+			outcome = "folder " + folder.name();
+		}
+
+		@Override
+		public void onCancellation() {
+			outcome = "cancellation";
+		}
+
+		@Override
+		public void onError(Exception exception) {
+			outcome = "error";
+			error = exception;
+		}
+	}
+}